@@ -0,0 +1,238 @@
+/*
+ * Copyright 2026 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.cloud.artifactregistry.auth;
+
+import com.google.auth.oauth2.GoogleCredentials;
+import java.io.File;
+import java.io.IOException;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.concurrent.TimeUnit;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+// ApplicationDefaultCredentials looks up Application Default Credentials without paying for the
+// metadata server probe on hosts that are not on Google Compute Engine. When no credentials file
+// is configured it detects GCE itself, from DMI on Linux or with a short probe elsewhere, and
+// remembers a negative result for a while, in memory and optionally in a file shared by every JVM
+// on the machine.
+final class ApplicationDefaultCredentials {
+  private static final Logger LOGGER =
+      LoggerFactory.getLogger(ApplicationDefaultCredentials.class.getName());
+
+  static final String PROBE_TIMEOUT_PROPERTY = "artifactregistry.adcProbeTimeoutMs";
+  static final String CACHE_TTL_PROPERTY = "artifactregistry.adcCacheTtlSeconds";
+  static final String CACHE_FILE_PROPERTY = "artifactregistry.adcCacheFile";
+
+  private static final String DEFAULT_METADATA_HOST = "169.254.169.254";
+
+  // What the lookup needs from the machine it runs on. Replaced in tests.
+  interface Environment {
+    String getenv(String name);
+
+    // The file holding the DMI product name, which only exists on Linux.
+    Path productNameFile();
+
+    boolean probeMetadataServer();
+
+    GoogleCredentials getApplicationDefault() throws IOException;
+
+    long currentTimeMillis();
+  }
+
+  private static final ApplicationDefaultCredentials SHARED =
+      new ApplicationDefaultCredentials(new SystemEnvironment());
+
+  private final Environment env;
+  // Time until which Application Default Credentials are known to be unavailable.
+  private volatile long unavailableUntilMs;
+
+  ApplicationDefaultCredentials(Environment env) {
+    this.env = env;
+  }
+
+  static GoogleCredentials load() throws IOException {
+    return SHARED.lookup();
+  }
+
+  GoogleCredentials lookup() throws IOException {
+    if (isConfigured()) {
+      // A credentials file or a non-GCE environment is set up, which the library finds quickly.
+      return env.getApplicationDefault();
+    }
+    long now = env.currentTimeMillis();
+    if (now < unavailableUntilMs || isCachedOnDisk(now)) {
+      throw new IOException("Application Default Credentials were recently found to be "
+          + "unavailable on this host.");
+    }
+    if (!isOnComputeEngine()) {
+      rememberUnavailable(now);
+      throw new IOException("No Application Default Credentials file is configured and this host "
+          + "is not on Google Compute Engine.");
+    }
+    try {
+      return env.getApplicationDefault();
+    } catch (IOException e) {
+      rememberUnavailable(now);
+      throw e;
+    }
+  }
+
+  // Mirrors the sources that GoogleCredentials.getApplicationDefault() checks before the GCE probe.
+  private boolean isConfigured() {
+    if (!isNullOrEmpty(env.getenv("GOOGLE_APPLICATION_CREDENTIALS"))
+        || !isNullOrEmpty(env.getenv("DEVSHELL_CLIENT_PORT"))
+        || System.getProperty("com.google.appengine.runtime.version") != null) {
+      return true;
+    }
+    return wellKnownCredentialsFile().isFile();
+  }
+
+  private File wellKnownCredentialsFile() {
+    String configDir = env.getenv("CLOUDSDK_CONFIG");
+    File dir;
+    if (!isNullOrEmpty(configDir)) {
+      dir = new File(configDir);
+    } else if (System.getProperty("os.name", "").startsWith("Windows")) {
+      dir = new File(String.valueOf(env.getenv("APPDATA")), "gcloud");
+    } else {
+      dir = new File(new File(System.getProperty("user.home"), ".config"), "gcloud");
+    }
+    return new File(dir, "application_default_credentials.json");
+  }
+
+  private boolean isOnComputeEngine() {
+    if ("true".equalsIgnoreCase(env.getenv("NO_GCE_CHECK"))) {
+      return false;
+    }
+    // GCE and GKE Linux machines identify themselves in DMI, which avoids the network round trip
+    // both on GCE and off it.
+    Path productName = env.productNameFile();
+    try {
+      if (Files.isReadable(productName)) {
+        return new String(Files.readAllBytes(productName), StandardCharsets.UTF_8).trim()
+            .startsWith("Google");
+      }
+    } catch (IOException | SecurityException e) {
+      LOGGER.debug("Failed to read the DMI product name: " + e.getMessage());
+    }
+    return env.probeMetadataServer();
+  }
+
+  private static long cacheTtlMs() {
+    return TimeUnit.SECONDS.toMillis(Long.getLong(CACHE_TTL_PROPERTY, 300));
+  }
+
+  // The cache file holds the time at which the negative result was recorded. A file that cannot
+  // be read or holds a time in the future is ignored.
+  private boolean isCachedOnDisk(long now) {
+    String cacheFile = System.getProperty(CACHE_FILE_PROPERTY);
+    if (isNullOrEmpty(cacheFile)) {
+      return false;
+    }
+    long recorded;
+    try {
+      recorded = Long.parseLong(
+          new String(Files.readAllBytes(Paths.get(cacheFile)), StandardCharsets.US_ASCII).trim());
+    } catch (IOException | NumberFormatException e) {
+      // No negative result has been recorded.
+      return false;
+    }
+    if (recorded <= now && now < recorded + cacheTtlMs()) {
+      unavailableUntilMs = recorded + cacheTtlMs();
+      return true;
+    }
+    return false;
+  }
+
+  private void rememberUnavailable(long now) {
+    unavailableUntilMs = now + cacheTtlMs();
+    String cacheFile = System.getProperty(CACHE_FILE_PROPERTY);
+    if (isNullOrEmpty(cacheFile)) {
+      return;
+    }
+    try {
+      Path path = Paths.get(cacheFile).toAbsolutePath();
+      Files.createDirectories(path.getParent());
+      // Written to a temporary file first, so that other JVMs never read a partial time.
+      Path tmp = Files.createTempFile(path.getParent(), ".no-adc-", ".tmp");
+      Files.write(tmp, Long.toString(now).getBytes(StandardCharsets.US_ASCII));
+      Files.move(tmp, path, StandardCopyOption.REPLACE_EXISTING,
+          StandardCopyOption.ATOMIC_MOVE);
+    } catch (IOException e) {
+      LOGGER.debug("Failed to record unavailable Application Default Credentials in " + cacheFile
+          + ": " + e.getMessage());
+    }
+  }
+
+  private static boolean isNullOrEmpty(String s) {
+    return s == null || s.isEmpty();
+  }
+
+  private static final class SystemEnvironment implements Environment {
+
+    @Override
+    public String getenv(String name) {
+      return System.getenv(name);
+    }
+
+    @Override
+    public Path productNameFile() {
+      return Paths.get("/sys/class/dmi/id/product_name");
+    }
+
+    @Override
+    public boolean probeMetadataServer() {
+      String host = System.getenv("GCE_METADATA_HOST");
+      int timeout = Integer.getInteger(PROBE_TIMEOUT_PROPERTY, 500);
+      long start = System.nanoTime();
+      try {
+        URL url = new URL("http://" + (isNullOrEmpty(host) ? DEFAULT_METADATA_HOST : host) + "/");
+        HttpURLConnection connection = (HttpURLConnection) url.openConnection();
+        connection.setConnectTimeout(timeout);
+        connection.setReadTimeout(timeout);
+        connection.setRequestProperty("Metadata-Flavor", "Google");
+        try {
+          return "Google".equals(connection.getHeaderField("Metadata-Flavor"));
+        } finally {
+          connection.disconnect();
+        }
+      } catch (IOException e) {
+        LOGGER.debug("The metadata server did not respond: " + e.getMessage());
+        return false;
+      } finally {
+        LOGGER.debug("Probed the metadata server in "
+            + TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) + " ms.");
+      }
+    }
+
+    @Override
+    public GoogleCredentials getApplicationDefault() throws IOException {
+      return GoogleCredentials.getApplicationDefault();
+    }
+
+    @Override
+    public long currentTimeMillis() {
+      return System.currentTimeMillis();
+    }
+  }
+}
@@ -19,9 +19,29 @@ package com.google.cloud.artifactregistry.auth;
 import com.google.auth.Credentials;
 
 import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
 
 @FunctionalInterface
 public interface CredentialProvider {
 
   Credentials getCredential(CommandExecutor commandExecutor) throws IOException;
+
+  /**
+   * Starts retrieving credentials without blocking the calling thread, so that a slow lookup such
+   * as running gcloud overlaps with other work. The future fails with the {@link IOException} that
+   * {@link #getCredential} would have thrown. By default the lookup runs on a new daemon thread.
+   */
+  default CompletableFuture<Credentials> getCredentialAsync(CommandExecutor commandExecutor) {
+    CompletableFuture<Credentials> result = new CompletableFuture<>();
+    Thread thread = new Thread(Tracing.wrap(() -> {
+      try {
+        result.complete(getCredential(commandExecutor));
+      } catch (IOException | RuntimeException e) {
+        result.completeExceptionally(e);
+      }
+    }), "artifactregistry-credentials");
+    thread.setDaemon(true);
+    thread.start();
+    return result;
+  }
 }
@@ -21,18 +21,43 @@ import com.google.auth.oauth2.GoogleCredentials;
 import java.io.IOException;
 import java.time.Duration;
 import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-// DefaultCredentialProvider fetches credentials from gcloud and falls back to Application Default
-// Credentials if that fails.
+// DefaultCredentialProvider fetches Application Default Credentials and falls back to gcloud if
+// that fails. The order can be changed with the artifactregistry.credentialSources property, and
+// with artifactregistry.raceCredentialSources the sources are queried concurrently.
 public final class DefaultCredentialProvider implements CredentialProvider {
   private static final Logger LOGGER = LoggerFactory.getLogger(GcloudCredentials.class.getName());
 
+  static final String SOURCES_PROPERTY = "artifactregistry.credentialSources";
+  static final String RACE_PROPERTY = "artifactregistry.raceCredentialSources";
+
   private static String[] SCOPES = {"https://www.googleapis.com/auth/cloud-platform",
       "https://www.googleapis.com/auth/cloud-platform.read-only"};
 
+  // Loads credentials from one source. When verify is set, the credentials are also refreshed so
+  // that a source with unusable credentials loses the race.
+  interface Source {
+    GoogleCredentials load(CommandExecutor commandExecutor, boolean verify) throws IOException;
+  }
+
+  private final Map<String, Source> sources;
   private GoogleCredentials cachedCredentials;
+  // The asynchronous lookup in progress, shared by every caller that asks before it completes.
+  // getCredential holds the instance lock for the whole lookup, so it is guarded by its own lock.
+  private final Object pendingLock = new Object();
+  private CompletableFuture<Credentials> pendingCredentials;
 
   // Singleton instance
   private final static DefaultCredentialProvider defaultInstance = new DefaultCredentialProvider();
@@ -44,16 +69,54 @@ public final class DefaultCredentialProvider implements CredentialProvider {
   public static final long REFESH_INTERVAL_MS = Duration.ofSeconds(10).toMillis();
 
   // Private constructor so that they must use the singleton.
-  private DefaultCredentialProvider(){}
+  private DefaultCredentialProvider() {
+    Map<String, Source> builtIn = new HashMap<>();
+    builtIn.put("adc", DefaultCredentialProvider::loadApplicationDefault);
+    builtIn.put("gcloud", (commandExecutor, verify) -> loadGcloud(commandExecutor));
+    this.sources = builtIn;
+  }
+
+  // Creates a provider with other sources, for tests.
+  DefaultCredentialProvider(Map<String, Source> sources) {
+    this.sources = sources;
+  }
 
   public Credentials getCredential(CommandExecutor commandExecutor) throws IOException {
-    synchronized (this) {
-      if (cachedCredentials == null) {
-        LOGGER.info("Initializing Credentials...");
-        cachedCredentials = makeGoogleCredentials(commandExecutor);
+    try (Tracing.Span span = Tracing.start("artifactregistry.credentials")) {
+      try {
+        synchronized (this) {
+          span.setAttribute("artifactregistry.credentials.cached", cachedCredentials != null);
+          if (cachedCredentials == null) {
+            LOGGER.info("Initializing Credentials...");
+            cachedCredentials = makeGoogleCredentials(commandExecutor);
+          }
+          refreshIfNeeded();
+          return cachedCredentials;
+        }
+      } catch (IOException e) {
+        span.recordException(e);
+        throw e;
+      }
+    }
+  }
+
+  @Override
+  public CompletableFuture<Credentials> getCredentialAsync(CommandExecutor commandExecutor) {
+    synchronized (pendingLock) {
+      if (pendingCredentials == null) {
+        CompletableFuture<Credentials> lookup =
+            CredentialProvider.super.getCredentialAsync(commandExecutor);
+        pendingCredentials = lookup;
+        lookup.whenComplete((credentials, e) -> {
+          synchronized (pendingLock) {
+            if (pendingCredentials == lookup) {
+              pendingCredentials = null;
+            }
+          }
+        });
       }
-      refreshIfNeeded();
-      return cachedCredentials;
+      // Callers get their own future, so that one of them cancelling does not affect the others.
+      return pendingCredentials.thenApply(credentials -> credentials);
     }
   }
 
@@ -68,28 +131,124 @@ public final class DefaultCredentialProvider implements CredentialProvider {
 
   public GoogleCredentials makeGoogleCredentials(CommandExecutor commandExecutor) throws IOException {
     LOGGER.debug("ArtifactRegistry: Retrieving credentials...");
-    GoogleCredentials credentials;
+    List<String> sources = credentialSources();
+    GoogleCredentials credentials = Boolean.getBoolean(RACE_PROPERTY)
+        ? raceSources(sources, commandExecutor)
+        : trySources(sources, commandExecutor);
+    if (credentials != null) {
+      return credentials;
+    }
 
+    LOGGER.info("ArtifactRegistry: No credentials could be found.");
+    throw new IOException("Failed to find credentials Check debug logs for more details.");
+  }
+
+  private GoogleCredentials trySources(List<String> sources, CommandExecutor commandExecutor) {
+    for (String source : sources) {
+      try {
+        return loadFrom(source, commandExecutor, false);
+      } catch (IOException ex) {
+        // Logged by loadFrom.
+      }
+    }
+    return null;
+  }
+
+  // Starts every source at once and returns the first one in priority order that produced a valid
+  // token, so that a cold lookup costs the slowest source rather than the sum of all of them.
+  private GoogleCredentials raceSources(List<String> sources, CommandExecutor commandExecutor) {
+    ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, sources.size()), r -> {
+      Thread thread = new Thread(r, "artifactregistry-credentials");
+      thread.setDaemon(true);
+      return thread;
+    });
+    try {
+      List<Future<GoogleCredentials>> results = new ArrayList<>();
+      for (String source : sources) {
+        results.add(executor.submit(Tracing.wrap(() -> loadFrom(source, commandExecutor, true))));
+      }
+      for (Future<GoogleCredentials> result : results) {
+        try {
+          return result.get();
+        } catch (ExecutionException ex) {
+          // Unchecked failures propagate as they do when the sources are tried one at a time.
+          if (ex.getCause() instanceof RuntimeException) {
+            throw (RuntimeException) ex.getCause();
+          } else if (ex.getCause() instanceof Error) {
+            throw (Error) ex.getCause();
+          }
+          // Logged by loadFrom; fall through to the next source.
+        } catch (InterruptedException ex) {
+          Thread.currentThread().interrupt();
+          return null;
+        }
+      }
+      return null;
+    } finally {
+      // Stop the sources that lost; a running gcloud command is left to finish on its own.
+      executor.shutdownNow();
+    }
+  }
+
+  private GoogleCredentials loadFrom(String source, CommandExecutor commandExecutor,
+      boolean verify) throws IOException {
+    try (Tracing.Span span = Tracing.start("artifactregistry.credentials.source")) {
+      span.setAttribute("artifactregistry.credentials.source", source);
+      try {
+        Source loader = sources.get(source);
+        if (loader == null) {
+          LOGGER.warn("Ignoring unknown credential source '" + source + "' in "
+              + SOURCES_PROPERTY + ".");
+          throw new IOException("Unknown credential source " + source);
+        }
+        return loader.load(commandExecutor, verify);
+      } catch (IOException e) {
+        span.recordException(e);
+        throw e;
+      }
+    }
+  }
+
+  private static GoogleCredentials loadApplicationDefault(CommandExecutor commandExecutor,
+      boolean verify) throws IOException {
     LOGGER.debug("Trying Application Default Credentials...");
     try {
-      credentials = GoogleCredentials.getApplicationDefault().createScoped(SCOPES);
+      GoogleCredentials credentials = ApplicationDefaultCredentials.load().createScoped(SCOPES);
+      if (verify) {
+        credentials.refreshIfExpired();
+      }
       LOGGER.info("Using Application Default Credentials.");
       return credentials;
     } catch (IOException ex) {
       LOGGER.info("Application Default Credentials unavailable.");
       LOGGER.debug("Failed to retrieve Application Default Credentials: " + ex.getMessage());
+      throw ex;
     }
+  }
 
+  private static GoogleCredentials loadGcloud(CommandExecutor commandExecutor)
+      throws IOException {
     LOGGER.debug("Trying gcloud credentials...");
     try {
-      credentials = GcloudCredentials.tryCreateGcloudCredentials(commandExecutor);
+      // The token is checked for expiry when it is created.
+      GoogleCredentials credentials = GcloudCredentials.tryCreateGcloudCredentials(commandExecutor);
       LOGGER.info("Using credentials retrieved from gcloud.");
       return credentials;
     } catch (IOException ex) {
       LOGGER.info("Failed to retrieve credentials from gcloud: " + ex.getMessage());
+      throw ex;
     }
+  }
 
-    LOGGER.info("ArtifactRegistry: No credentials could be found.");
-    throw new IOException("Failed to find credentials Check debug logs for more details.");
+  // The credential sources to try, in order. Defaults to Application Default Credentials, then
+  // gcloud.
+  private static List<String> credentialSources() {
+    List<String> sources = new ArrayList<>();
+    for (String source : System.getProperty(SOURCES_PROPERTY, "adc,gcloud").split(",")) {
+      if (!source.trim().isEmpty()) {
+        sources.add(source.trim().toLowerCase(Locale.ROOT));
+      }
+    }
+    return sources;
   }
 }
@@ -0,0 +1,330 @@
+/*
+ * Copyright 2026 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.cloud.artifactregistry.auth;
+
+import java.io.IOException;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+// EndpointSelector routes requests for a repository to the fastest of a group of equivalent
+// regional endpoints, configured with the artifactregistry.endpoints property as groups separated
+// by ";" of endpoints separated by ",", each written as host/path. Endpoints are ranked by the
+// response times of recent requests made through them, falling back to the round trip time of
+// periodic background probes as those age. A failed request takes an endpoint out of rotation for
+// a while, and an unusually slow response triggers an early probe of the whole group.
+public final class EndpointSelector {
+  private static final Logger LOGGER = LoggerFactory.getLogger(EndpointSelector.class.getName());
+
+  static final String ENDPOINTS_PROPERTY = "artifactregistry.endpoints";
+  static final String PROBE_INTERVAL_PROPERTY = "artifactregistry.endpointProbeIntervalSeconds";
+
+  private static final long PROBE_TIMEOUT_MS = 2000;
+  private static final long EJECTION_MS = TimeUnit.SECONDS.toMillis(30);
+  // Weight of a new sample in the moving averages.
+  private static final double ALPHA = 0.3;
+  // A response this many times slower than the average for its endpoint triggers a probe.
+  private static final double SLOW_FACTOR = 3;
+  // How long request times outweigh probes; their weight falls linearly to nothing over it.
+  private static final long REQUEST_FRESH_MS = TimeUnit.MINUTES.toMillis(1);
+  private static final long MIN_PROBE_SPACING_MS = TimeUnit.SECONDS.toMillis(10);
+
+  // Measures the round trip time to an endpoint in nanoseconds, throwing if it is unreachable.
+  interface Probe {
+    long measure(String endpoint) throws IOException;
+  }
+
+  private static final class Endpoint {
+    final String name;
+    final Group group;
+    double probeNanos = -1;
+    double requestNanos = -1;
+    long lastRequestMs;
+    long ejectedUntilMs;
+
+    Endpoint(String name, Group group) {
+      this.name = name;
+      this.group = group;
+    }
+  }
+
+  private static final class Group {
+    final List<Endpoint> members = new ArrayList<>();
+    long lastProbeMs = Long.MIN_VALUE;
+    boolean probing;
+  }
+
+  private static final EndpointSelector defaultInstance = new EndpointSelector(
+      parse(System.getProperty(ENDPOINTS_PROPERTY, "")), EndpointSelector::probe,
+      TimeUnit.SECONDS.toMillis(Long.getLong(PROBE_INTERVAL_PROPERTY, 300)));
+
+  public static EndpointSelector getInstance() {
+    return defaultInstance;
+  }
+
+  private final Map<String, Endpoint> endpoints = new HashMap<>();
+  private final Probe probe;
+  private final long probeIntervalMs;
+  private final ExecutorService executor = Executors.newCachedThreadPool(r -> {
+    Thread t = new Thread(r, "artifactregistry-endpoint-probe");
+    t.setDaemon(true);
+    return t;
+  });
+
+  EndpointSelector(List<List<String>> config, Probe probe, long probeIntervalMs) {
+    this.probe = probe;
+    this.probeIntervalMs = probeIntervalMs;
+    for (List<String> names : config) {
+      Group group = new Group();
+      for (String name : names) {
+        Endpoint endpoint = new Endpoint(name, group);
+        group.members.add(endpoint);
+        endpoints.put(name, endpoint);
+      }
+    }
+  }
+
+  static List<List<String>> parse(String value) {
+    List<List<String>> config = new ArrayList<>();
+    for (String group : value.split(";")) {
+      List<String> names = new ArrayList<>();
+      for (String name : group.split(",")) {
+        if (!name.trim().isEmpty()) {
+          names.add(normalize(name));
+        }
+      }
+      if (names.size() > 1) {
+        config.add(names);
+      }
+    }
+    return config;
+  }
+
+  // Endpoints are compared as host/path, without a scheme or trailing slash.
+  private static String normalize(String endpoint) {
+    String s = endpoint.trim();
+    int scheme = s.indexOf("://");
+    if (scheme >= 0) {
+      s = s.substring(scheme + 3);
+    }
+    while (s.endsWith("/")) {
+      s = s.substring(0, s.length() - 1);
+    }
+    return s;
+  }
+
+  // Returns whether any endpoint groups are configured.
+  public boolean isEnabled() {
+    return !endpoints.isEmpty();
+  }
+
+  // Returns the endpoint to use instead of the given host/path, which is returned unchanged if it
+  // is not part of a group. Probes run in the background, so until anything is known about the
+  // group the configured endpoint itself is used.
+  public String select(String endpoint) {
+    Endpoint configured = endpoints.get(normalize(endpoint));
+    if (configured == null) {
+      return endpoint;
+    }
+    Group group = configured.group;
+    probeInBackground(group, probeIntervalMs);
+    synchronized (this) {
+      long now = System.currentTimeMillis();
+      Endpoint best = null;
+      double bestScore = 0;
+      for (Endpoint candidate : group.members) {
+        double score = score(candidate, now);
+        if (candidate.ejectedUntilMs > now || score < 0) {
+          continue;
+        }
+        if (best == null || score < bestScore) {
+          best = candidate;
+          bestScore = score;
+        }
+      }
+      if (best != null) {
+        return best.name;
+      }
+      if (configured.ejectedUntilMs <= now) {
+        return configured.name;
+      }
+      // Nothing is known to be healthy: use the endpoint that failed least recently, and the
+      // configured order among those that have not failed.
+      for (Endpoint candidate : group.members) {
+        if (best == null || candidate.ejectedUntilMs < best.ejectedUntilMs) {
+          best = candidate;
+        }
+      }
+      return best.name;
+    }
+  }
+
+  // Returns the expected response time of an endpoint in nanoseconds, or -1 if nothing is known
+  // about it. The average of recent requests is preferred, as it reflects the transfers actually
+  // being made; it is blended into the probe times as it ages.
+  private static double score(Endpoint endpoint, long now) {
+    double weight = endpoint.requestNanos < 0 ? 0
+        : Math.max(0, 1 - (double) (now - endpoint.lastRequestMs) / REQUEST_FRESH_MS);
+    if (endpoint.probeNanos < 0) {
+      return weight > 0 ? endpoint.requestNanos : -1;
+    }
+    return weight * endpoint.requestNanos + (1 - weight) * endpoint.probeNanos;
+  }
+
+  // Returns the configured endpoint that url (with or without a scheme) was sent to, or null.
+  public String endpointOf(String url) {
+    String s = normalize(url);
+    for (String name : endpoints.keySet()) {
+      if (s.equals(name) || s.startsWith(name + "/")) {
+        return name;
+      }
+    }
+    return null;
+  }
+
+  // Records a response received from an endpoint after durationNanos.
+  public void recordSuccess(String endpoint, long durationNanos) {
+    Endpoint e = endpoints.get(endpoint);
+    if (e == null) {
+      return;
+    }
+    boolean slow;
+    synchronized (this) {
+      slow = e.requestNanos > 0 && durationNanos > SLOW_FACTOR * e.requestNanos;
+      e.requestNanos = e.requestNanos < 0
+          ? durationNanos : ALPHA * durationNanos + (1 - ALPHA) * e.requestNanos;
+      e.lastRequestMs = System.currentTimeMillis();
+    }
+    if (slow) {
+      probeInBackground(e.group, MIN_PROBE_SPACING_MS);
+    }
+  }
+
+  // Records a request to an endpoint that got no response or a server error. The endpoint is not
+  // selected again until it has recovered.
+  public void recordFailure(String endpoint) {
+    Endpoint e = endpoints.get(endpoint);
+    if (e == null) {
+      return;
+    }
+    synchronized (this) {
+      e.ejectedUntilMs = System.currentTimeMillis() + EJECTION_MS;
+    }
+    LOGGER.info("Request to " + endpoint + " failed, using another endpoint for "
+        + TimeUnit.MILLISECONDS.toSeconds(EJECTION_MS) + " seconds.");
+  }
+
+  // Starts probing the group unless it was probed less than spacingMs ago or is being probed.
+  private void probeInBackground(Group group, long spacingMs) {
+    synchronized (this) {
+      long now = System.currentTimeMillis();
+      if (group.probing
+          || (group.lastProbeMs != Long.MIN_VALUE && now - group.lastProbeMs < spacingMs)) {
+        return;
+      }
+      group.probing = true;
+    }
+    executor.execute(() -> {
+      Map<Endpoint, Long> measured = new HashMap<>();
+      try {
+        measured = probeGroup(group);
+      } finally {
+        update(group, measured);
+      }
+    });
+  }
+
+  // Probes every endpoint of the group in parallel; endpoints that fail map to null.
+  private Map<Endpoint, Long> probeGroup(Group group) {
+    Map<Endpoint, Future<Long>> results = new HashMap<>();
+    for (Endpoint endpoint : group.members) {
+      results.put(endpoint, executor.submit(() -> probe.measure(endpoint.name)));
+    }
+    long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(PROBE_TIMEOUT_MS);
+    Map<Endpoint, Long> measured = new HashMap<>();
+    for (Map.Entry<Endpoint, Future<Long>> result : results.entrySet()) {
+      try {
+        measured.put(result.getKey(),
+            result.getValue().get(deadline - System.nanoTime(), TimeUnit.NANOSECONDS));
+      } catch (Exception e) {
+        result.getValue().cancel(true);
+        LOGGER.debug("Probe of " + result.getKey().name + " failed: " + e);
+        measured.put(result.getKey(), null);
+      }
+    }
+    return measured;
+  }
+
+  // Applies a round of probe results. Unreachable endpoints are taken out of rotation.
+  private void update(Group group, Map<Endpoint, Long> measured) {
+    synchronized (this) {
+      long now = System.currentTimeMillis();
+      for (Map.Entry<Endpoint, Long> m : measured.entrySet()) {
+        Endpoint endpoint = m.getKey();
+        if (m.getValue() == null) {
+          endpoint.probeNanos = -1;
+          endpoint.ejectedUntilMs = now + EJECTION_MS;
+        } else {
+          endpoint.probeNanos = endpoint.probeNanos < 0
+              ? m.getValue() : ALPHA * m.getValue() + (1 - ALPHA) * endpoint.probeNanos;
+          endpoint.ejectedUntilMs = 0;
+        }
+      }
+      group.lastProbeMs = now;
+      group.probing = false;
+    }
+    if (LOGGER.isDebugEnabled()) {
+      LOGGER.debug("Probed endpoints: " + describe(group));
+    }
+  }
+
+  private synchronized String describe(Group group) {
+    StringBuilder sb = new StringBuilder();
+    for (Endpoint endpoint : group.members) {
+      sb.append(sb.length() == 0 ? "" : ", ").append(endpoint.name).append(' ')
+          .append(endpoint.probeNanos < 0
+              ? "unreachable" : TimeUnit.NANOSECONDS.toMillis((long) endpoint.probeNanos) + " ms");
+    }
+    return sb.toString();
+  }
+
+  // Any HTTP response, including an error status, shows that the endpoint is reachable.
+  private static long probe(String endpoint) throws IOException {
+    long start = System.nanoTime();
+    int slash = endpoint.indexOf('/');
+    URL url = new URL("https://" + (slash < 0 ? endpoint : endpoint.substring(0, slash)) + "/");
+    HttpURLConnection connection = (HttpURLConnection) url.openConnection();
+    connection.setRequestMethod("HEAD");
+    connection.setConnectTimeout((int) PROBE_TIMEOUT_MS);
+    connection.setReadTimeout((int) PROBE_TIMEOUT_MS);
+    try {
+      connection.getResponseCode();
+      return System.nanoTime() - start;
+    } finally {
+      connection.disconnect();
+    }
+  }
+}
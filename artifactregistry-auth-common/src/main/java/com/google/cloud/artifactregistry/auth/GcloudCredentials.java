@@ -15,32 +15,16 @@
  */
 package com.google.cloud.artifactregistry.auth;
 
-import com.google.api.client.json.JsonFactory;
-import com.google.api.client.json.jackson2.JacksonFactory;
-import com.google.api.client.util.GenericData;
 import com.google.auth.oauth2.AccessToken;
 import com.google.auth.oauth2.GoogleCredentials;
 import java.io.IOException;
-import java.io.InputStream;
-import java.io.InputStreamReader;
-import java.text.DateFormat;
-import java.text.ParseException;
-import java.text.SimpleDateFormat;
-import java.time.Duration;
-import java.time.Instant;
 import java.util.Date;
-import java.util.Map;
-import java.util.TimeZone;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 public class GcloudCredentials extends GoogleCredentials {
   private static final Logger LOGGER = LoggerFactory.getLogger(GcloudCredentials.class.getName());
 
-  private static final JsonFactory JSON_FACTORY = JacksonFactory.getDefaultInstance();
-  private static final String KEY_ACCESS_TOKEN = "access_token";
-  private static final String KEY_TOKEN_EXPIRY = "token_expiry";
-
   private final CommandExecutor commandExecutor;
 
 
@@ -87,32 +71,27 @@ public class GcloudCredentials extends GoogleCredentials {
   }
 
   private static AccessToken getGcloudAccessToken(CommandExecutor commandExecutor) throws IOException {
-    try {
-      String gcloud = gCloudCommand();
-      CommandExecutorResult commandExecutorResult = commandExecutor.executeCommand(gcloud, "config", "config-helper", "--format=json(credential)");
-      int exitCode = commandExecutorResult.exitCode;
-      String stdOut = commandExecutorResult.stdOut;
-
-      if (exitCode != 0) {
-        String stdErr = commandExecutorResult.stdErr;
-        throw new IOException(String.format("gcloud exited with status: %d\nOutput:\n%s\nError Output:\n%s\n",
-            exitCode, stdOut, stdErr));
+    String gcloud = gCloudCommand();
+    CommandExecutorResult commandExecutorResult;
+    try (Tracing.Span span = Tracing.start("artifactregistry.gcloud")) {
+      try {
+        commandExecutorResult = commandExecutor.executeCommand(gcloud, "config", "config-helper", "--format=json(credential)");
+      } catch (IOException | RuntimeException e) {
+        span.recordException(e);
+        throw e;
       }
+      span.setAttribute("process.exit.code", commandExecutorResult.exitCode);
+    }
+    int exitCode = commandExecutorResult.exitCode;
+    String stdOut = commandExecutorResult.stdOut;
 
-      GenericData result = JSON_FACTORY.fromString(stdOut, GenericData.class);
-      Map credential = (Map) result.get("credential");
-      if (credential == null) {
-        throw new IOException("No credential returned from gcloud");
-      }
-      if (!credential.containsKey(KEY_ACCESS_TOKEN) || !credential.containsKey(KEY_TOKEN_EXPIRY)) {
-        throw new IOException("Malformed response from gcloud");
-      }
-      DateFormat df = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss'Z'");
-      df.setTimeZone(TimeZone.getTimeZone("UTC"));
-      Date expiry = df.parse((String) credential.get(KEY_TOKEN_EXPIRY));
-      return new AccessToken((String) credential.get(KEY_ACCESS_TOKEN), expiry);
-    } catch (ParseException e) {
-      throw new IOException("Failed to parse timestamp from gcloud output", e);
+    if (exitCode != 0) {
+      String stdErr = commandExecutorResult.stdErr;
+      throw new IOException(String.format("gcloud exited with status: %d\nOutput:\n%s\nError Output:\n%s\n",
+          exitCode, stdOut, stdErr));
     }
+
+    GcloudOutput output = GcloudOutput.parse(stdOut);
+    return new AccessToken(output.accessToken, new Date(output.expiryMillis));
   }
 }
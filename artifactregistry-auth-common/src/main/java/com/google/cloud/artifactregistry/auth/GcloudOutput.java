@@ -0,0 +1,279 @@
+/*
+ * Copyright 2026 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.cloud.artifactregistry.auth;
+
+import java.io.IOException;
+
+/**
+ * GcloudOutput reads the access token out of the output of {@code gcloud config config-helper
+ * --format=json(credential)}. Only the two fields that are needed are extracted, which avoids
+ * loading a JSON library and a date formatter on the path to the first request.
+ */
+final class GcloudOutput {
+
+  final String accessToken;
+  final long expiryMillis;
+
+  private GcloudOutput(String accessToken, long expiryMillis) {
+    this.accessToken = accessToken;
+    this.expiryMillis = expiryMillis;
+  }
+
+  /**
+   * Parses {@code {"credential": {"access_token": ..., "token_expiry": ...}}}, where the expiry
+   * is written as {@code yyyy-MM-dd'T'HH:mm:ss'Z'}. Other fields are skipped.
+   */
+  static GcloudOutput parse(String json) throws IOException {
+    Parser parser = new Parser(json);
+    boolean hasCredential;
+    try {
+      hasCredential = parser.readTopLevel();
+    } catch (IndexOutOfBoundsException e) {
+      throw new IOException("Malformed response from gcloud", e);
+    }
+    if (!hasCredential) {
+      throw new IOException("No credential returned from gcloud");
+    }
+    if (parser.accessToken == null || parser.tokenExpiry == null) {
+      throw new IOException("Malformed response from gcloud");
+    }
+    return new GcloudOutput(parser.accessToken, parseTimestamp(parser.tokenExpiry));
+  }
+
+  // A single pass over the JSON text that only keeps the strings it is looking for. Running off
+  // the end of the text throws IndexOutOfBoundsException.
+  private static final class Parser {
+    private final String json;
+    private int pos;
+    String accessToken;
+    String tokenExpiry;
+
+    Parser(String json) {
+      this.json = json;
+    }
+
+    // Returns whether the object has a "credential" member that is an object.
+    boolean readTopLevel() throws IOException {
+      boolean hasCredential = false;
+      expect('{');
+      if (!consume('}')) {
+        do {
+          if (readKey().equals("credential") && peek() == '{') {
+            hasCredential = true;
+            readCredential();
+          } else {
+            skipValue();
+          }
+        } while (consume(','));
+        expect('}');
+      }
+      if (skipWhitespace() != json.length()) {
+        throw malformed();
+      }
+      return hasCredential;
+    }
+
+    private void readCredential() throws IOException {
+      expect('{');
+      if (consume('}')) {
+        return;
+      }
+      do {
+        String key = readKey();
+        if (key.equals("access_token")) {
+          accessToken = readStringOrSkip();
+        } else if (key.equals("token_expiry")) {
+          tokenExpiry = readStringOrSkip();
+        } else {
+          skipValue();
+        }
+      } while (consume(','));
+      expect('}');
+    }
+
+    // Reads a member name and the colon after it.
+    private String readKey() throws IOException {
+      String key = readString();
+      expect(':');
+      return key;
+    }
+
+    private String readStringOrSkip() throws IOException {
+      if (peek() == '"') {
+        return readString();
+      }
+      skipValue();
+      return null;
+    }
+
+    private String readString() throws IOException {
+      expect('"');
+      int start = pos;
+      while (json.charAt(pos) != '"') {
+        if (json.charAt(pos) == '\\') {
+          return readEscapedString(start);
+        }
+        pos++;
+      }
+      return json.substring(start, pos++);
+    }
+
+    private String readEscapedString(int start) throws IOException {
+      StringBuilder sb = new StringBuilder(json.length() - start).append(json, start, pos);
+      char c;
+      while ((c = json.charAt(pos++)) != '"') {
+        if (c != '\\') {
+          sb.append(c);
+          continue;
+        }
+        c = json.charAt(pos++);
+        switch (c) {
+          case '"':
+          case '\\':
+          case '/':
+            sb.append(c);
+            break;
+          case 'b':
+            sb.append('\b');
+            break;
+          case 'f':
+            sb.append('\f');
+            break;
+          case 'n':
+            sb.append('\n');
+            break;
+          case 'r':
+            sb.append('\r');
+            break;
+          case 't':
+            sb.append('\t');
+            break;
+          case 'u':
+            try {
+              sb.append((char) Integer.parseInt(json.substring(pos, pos + 4), 16));
+            } catch (NumberFormatException e) {
+              throw malformed();
+            }
+            pos += 4;
+            break;
+          default:
+            throw malformed();
+        }
+      }
+      return sb.toString();
+    }
+
+    private void skipValue() throws IOException {
+      char c = peek();
+      if (c == '"') {
+        readString();
+      } else if (c == '{' || c == '[') {
+        char close = c == '{' ? '}' : ']';
+        pos++;
+        if (consume(close)) {
+          return;
+        }
+        do {
+          if (close == '}') {
+            readString();
+            expect(':');
+          }
+          skipValue();
+        } while (consume(','));
+        expect(close);
+      } else {
+        // A number, true, false or null.
+        int start = pos;
+        while (pos < json.length() && "{}[],:\" \t\r\n".indexOf(json.charAt(pos)) < 0) {
+          pos++;
+        }
+        if (pos == start) {
+          throw malformed();
+        }
+      }
+    }
+
+    private char peek() {
+      return json.charAt(skipWhitespace());
+    }
+
+    private boolean consume(char c) {
+      if (peek() == c) {
+        pos++;
+        return true;
+      }
+      return false;
+    }
+
+    private void expect(char c) throws IOException {
+      if (!consume(c)) {
+        throw malformed();
+      }
+    }
+
+    private int skipWhitespace() {
+      while (pos < json.length() && Character.isWhitespace(json.charAt(pos))) {
+        pos++;
+      }
+      return pos;
+    }
+
+    private IOException malformed() {
+      return new IOException("Malformed response from gcloud");
+    }
+  }
+
+  // Parses yyyy-MM-dd'T'HH:mm:ss'Z' in UTC into milliseconds since the epoch.
+  static long parseTimestamp(String s) throws IOException {
+    if (s.length() != 20 || s.charAt(4) != '-' || s.charAt(7) != '-' || s.charAt(10) != 'T'
+        || s.charAt(13) != ':' || s.charAt(16) != ':' || s.charAt(19) != 'Z') {
+      throw new IOException("Failed to parse timestamp from gcloud output");
+    }
+    int year = digits(s, 0, 4);
+    int month = digits(s, 5, 2);
+    int day = digits(s, 8, 2);
+    int hour = digits(s, 11, 2);
+    int minute = digits(s, 14, 2);
+    int second = digits(s, 17, 2);
+    if (year < 0 || month < 1 || month > 12 || day < 1 || day > 31 || hour < 0 || hour > 23
+        || minute < 0 || minute > 59 || second < 0 || second > 60) {
+      throw new IOException("Failed to parse timestamp from gcloud output");
+    }
+    // Days from the civil date, counted in years starting on the 1st of March so that the leap
+    // day comes last.
+    int y = month <= 2 ? year - 1 : year;
+    int era = y / 400;
+    int yearOfEra = y - era * 400;
+    int dayOfYear = (153 * (month + (month > 2 ? -3 : 9)) + 2) / 5 + day - 1;
+    int dayOfEra = yearOfEra * 365 + yearOfEra / 4 - yearOfEra / 100 + dayOfYear;
+    long days = era * 146097L + dayOfEra - 719468;
+    return ((days * 24 + hour) * 60 + minute) * 60_000L + second * 1000L;
+  }
+
+  // Returns the value of count decimal digits, or -1 if one of them is not a digit.
+  private static int digits(String s, int start, int count) {
+    int value = 0;
+    for (int i = start; i < start + count; i++) {
+      char c = s.charAt(i);
+      if (c < '0' || c > '9') {
+        return -1;
+      }
+      value = value * 10 + (c - '0');
+    }
+    return value;
+  }
+}
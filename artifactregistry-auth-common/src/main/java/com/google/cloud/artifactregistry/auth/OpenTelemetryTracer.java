@@ -0,0 +1,137 @@
+/*
+ * Copyright 2026 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.cloud.artifactregistry.auth;
+
+import io.opentelemetry.api.GlobalOpenTelemetry;
+import io.opentelemetry.api.OpenTelemetry;
+import io.opentelemetry.api.trace.SpanKind;
+import io.opentelemetry.api.trace.StatusCode;
+import io.opentelemetry.context.Context;
+import io.opentelemetry.context.Scope;
+import io.opentelemetry.context.propagation.ContextPropagators;
+import io.opentelemetry.context.propagation.TextMapSetter;
+import java.util.concurrent.Callable;
+import java.util.function.BiConsumer;
+
+/**
+ * OpenTelemetryTracer records spans with the global OpenTelemetry instance. It is only loaded when
+ * the {@code artifactregistry.tracing} system property is {@code otel}, so that the OpenTelemetry
+ * API is not needed otherwise.
+ */
+final class OpenTelemetryTracer implements Tracing.Tracer {
+
+  private static final TextMapSetter<BiConsumer<String, String>> SETTER =
+      (headers, key, value) -> headers.accept(key, value);
+
+  private final io.opentelemetry.api.trace.Tracer tracer;
+  private final ContextPropagators propagators;
+
+  public OpenTelemetryTracer() {
+    this(GlobalOpenTelemetry.get());
+  }
+
+  OpenTelemetryTracer(OpenTelemetry openTelemetry) {
+    this.tracer = openTelemetry.getTracer("com.google.cloud.artifactregistry");
+    this.propagators = openTelemetry.getPropagators();
+  }
+
+  @Override
+  public Tracing.Span start(String name) {
+    return start(name, Tracing.Kind.INTERNAL);
+  }
+
+  @Override
+  public Tracing.Span start(String name, Tracing.Kind kind) {
+    io.opentelemetry.api.trace.Span span = tracer.spanBuilder(name)
+        .setSpanKind(kind == Tracing.Kind.CLIENT ? SpanKind.CLIENT : SpanKind.INTERNAL)
+        .startSpan();
+    return new OpenTelemetrySpan(span, span.makeCurrent(), propagators);
+  }
+
+  @Override
+  public Runnable wrap(Runnable task) {
+    return Context.current().wrap(task);
+  }
+
+  @Override
+  public <T> Callable<T> wrap(Callable<T> task) {
+    return Context.current().wrap(task);
+  }
+
+  private static final class OpenTelemetrySpan implements Tracing.Span {
+    private final io.opentelemetry.api.trace.Span span;
+    private final ContextPropagators propagators;
+    // Null once the span was detached.
+    private Scope scope;
+
+    OpenTelemetrySpan(io.opentelemetry.api.trace.Span span, Scope scope,
+        ContextPropagators propagators) {
+      this.span = span;
+      this.scope = scope;
+      this.propagators = propagators;
+    }
+
+    @Override
+    public Tracing.Span setAttribute(String key, String value) {
+      span.setAttribute(key, value);
+      return this;
+    }
+
+    @Override
+    public Tracing.Span setAttribute(String key, long value) {
+      span.setAttribute(key, value);
+      return this;
+    }
+
+    @Override
+    public Tracing.Span setAttribute(String key, boolean value) {
+      span.setAttribute(key, value);
+      return this;
+    }
+
+    @Override
+    public void addEvent(String name) {
+      span.addEvent(name);
+    }
+
+    @Override
+    public void recordException(Throwable error) {
+      span.recordException(error);
+      span.setStatus(StatusCode.ERROR);
+    }
+
+    @Override
+    public void inject(BiConsumer<String, String> headers) {
+      propagators.getTextMapPropagator()
+          .inject(Context.current().with(span), headers, SETTER);
+    }
+
+    @Override
+    public synchronized void detach() {
+      if (scope != null) {
+        scope.close();
+        scope = null;
+      }
+    }
+
+    @Override
+    public void close() {
+      detach();
+      span.end();
+    }
+  }
+}
@@ -0,0 +1,163 @@
+/*
+ * Copyright 2026 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.cloud.artifactregistry.auth;
+
+import java.util.concurrent.Callable;
+import java.util.function.BiConsumer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Tracing records spans for credential lookups and transfers, so that the time a build spends
+ * talking to Artifact Registry shows up in its distributed traces.
+ *
+ * <p>Tracing is off by default, in which case {@link #start} returns a span that does nothing.
+ * Setting the {@code artifactregistry.tracing} system property to {@code otel} records spans
+ * through the OpenTelemetry API, which must then be on the classpath, for example through the
+ * OpenTelemetry Java agent. Any other value is the name of a {@link Tracer} class with a public
+ * no-argument constructor. A tracer can also be installed with {@link #setTracer}.
+ */
+public final class Tracing {
+  private static final Logger LOGGER = LoggerFactory.getLogger(Tracing.class.getName());
+
+  static final String TRACING_PROPERTY = "artifactregistry.tracing";
+
+  /** What a span stands for, as in the OpenTelemetry span kinds. */
+  public enum Kind {
+    /** Work done within the build. */
+    INTERNAL,
+    /** A request sent to another service, such as an HTTP request. */
+    CLIENT
+  }
+
+  /** Starts spans. Implementations must be thread-safe. */
+  public interface Tracer {
+
+    /**
+     * Starts a span as a child of the current span of the calling thread, and makes it the
+     * current span until it is closed.
+     */
+    Span start(String name);
+
+    /** Starts a span of the given kind, as {@link #start(String)} does. */
+    default Span start(String name, Kind kind) {
+      return start(name);
+    }
+
+    /** Returns a task that runs {@code task} with the current span of the calling thread. */
+    default Runnable wrap(Runnable task) {
+      return task;
+    }
+
+    /** Returns a task that runs {@code task} with the current span of the calling thread. */
+    default <T> Callable<T> wrap(Callable<T> task) {
+      return task;
+    }
+  }
+
+  /** A span, ended by {@link #close} on the thread that started it unless it was detached. */
+  public interface Span extends AutoCloseable {
+
+    default Span setAttribute(String key, String value) {
+      return this;
+    }
+
+    default Span setAttribute(String key, long value) {
+      return this;
+    }
+
+    default Span setAttribute(String key, boolean value) {
+      return this;
+    }
+
+    /** Records an event at the current time, such as a retry. */
+    default void addEvent(String name) {}
+
+    /** Marks the span as failed with {@code error}. */
+    default void recordException(Throwable error) {}
+
+    /**
+     * Adds the headers that carry this span to another process, such as {@code traceparent}, to
+     * an outgoing request.
+     */
+    default void inject(BiConsumer<String, String> headers) {}
+
+    /**
+     * Stops this span being the current span of the thread that started it, without ending it,
+     * so that it can be ended later by {@link #close} on any thread.
+     */
+    default void detach() {}
+
+    @Override
+    default void close() {}
+  }
+
+  private static final Span NO_SPAN = new Span() {};
+
+  private static volatile Tracer tracer = defaultTracer();
+
+  private Tracing() {}
+
+  /** Starts a span with the installed tracer, or returns a span that does nothing. */
+  public static Span start(String name) {
+    Tracer t = tracer;
+    return t == null ? NO_SPAN : t.start(name);
+  }
+
+  /** Starts a span of the given kind, as {@link #start(String)} does. */
+  public static Span start(String name, Kind kind) {
+    Tracer t = tracer;
+    return t == null ? NO_SPAN : t.start(name, kind);
+  }
+
+  /** Returns {@code task}, made to run with the current span of the calling thread. */
+  public static Runnable wrap(Runnable task) {
+    Tracer t = tracer;
+    return t == null ? task : t.wrap(task);
+  }
+
+  /** Returns {@code task}, made to run with the current span of the calling thread. */
+  public static <T> Callable<T> wrap(Callable<T> task) {
+    Tracer t = tracer;
+    return t == null ? task : t.wrap(task);
+  }
+
+  public static boolean isEnabled() {
+    return tracer != null;
+  }
+
+  /** Installs {@code tracer} for the whole JVM, or turns tracing off if it is null. */
+  public static void setTracer(Tracer tracer) {
+    Tracing.tracer = tracer;
+  }
+
+  private static Tracer defaultTracer() {
+    String name = System.getProperty(TRACING_PROPERTY);
+    if (name == null || name.isEmpty() || name.equals("none")) {
+      return null;
+    }
+    if (name.equals("otel")) {
+      name = "com.google.cloud.artifactregistry.auth.OpenTelemetryTracer";
+    }
+    try {
+      return (Tracer) Class.forName(name).getConstructor().newInstance();
+    } catch (ReflectiveOperationException | LinkageError | ClassCastException e) {
+      LOGGER.warn("Failed to load the tracer " + name + ", tracing is off.", e);
+      return null;
+    }
+  }
+}
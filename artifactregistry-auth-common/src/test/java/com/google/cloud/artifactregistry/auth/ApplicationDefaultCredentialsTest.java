@@ -0,0 +1,198 @@
+/*
+ * Copyright 2026 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.cloud.artifactregistry.auth;
+
+import com.google.auth.oauth2.GoogleCredentials;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+public class ApplicationDefaultCredentialsTest {
+
+  private static final long TTL_MS = TimeUnit.SECONDS.toMillis(300);
+
+  @Rule
+  public TemporaryFolder tmp = new TemporaryFolder();
+
+  private FakeEnvironment env;
+  private Path cacheFile;
+
+  @Before
+  public void setUp() throws IOException {
+    env = new FakeEnvironment();
+    // No well-known credentials file.
+    env.variables.put("CLOUDSDK_CONFIG", tmp.newFolder("gcloud").getPath());
+    env.productName = tmp.getRoot().toPath().resolve("product_name");
+    cacheFile = tmp.getRoot().toPath().resolve("cache/no-adc");
+    System.setProperty(ApplicationDefaultCredentials.CACHE_TTL_PROPERTY, "300");
+  }
+
+  @After
+  public void tearDown() {
+    System.clearProperty(ApplicationDefaultCredentials.CACHE_TTL_PROPERTY);
+    System.clearProperty(ApplicationDefaultCredentials.CACHE_FILE_PROPERTY);
+  }
+
+  @Test
+  public void testNonGoogleDmiSkipsProbe() throws Exception {
+    Files.write(env.productName,
+        "Standard PC (Q35 + ICH9, 2009)\n".getBytes(StandardCharsets.UTF_8));
+    env.onComputeEngine = true;
+    assertUnavailable(new ApplicationDefaultCredentials(env));
+    Assert.assertEquals(0, env.probes);
+    Assert.assertEquals(0, env.loads);
+  }
+
+  @Test
+  public void testGoogleDmiSkipsProbe() throws Exception {
+    Files.write(env.productName, "Google Compute Engine\n".getBytes(StandardCharsets.UTF_8));
+    env.onComputeEngine = true;
+    Assert.assertSame(env.credentials, new ApplicationDefaultCredentials(env).lookup());
+    Assert.assertEquals(0, env.probes);
+  }
+
+  @Test
+  public void testProbesWithoutDmi() throws Exception {
+    env.onComputeEngine = true;
+    Assert.assertSame(env.credentials, new ApplicationDefaultCredentials(env).lookup());
+    Assert.assertEquals(1, env.probes);
+  }
+
+  @Test
+  public void testNegativeResultExpires() throws Exception {
+    ApplicationDefaultCredentials adc = new ApplicationDefaultCredentials(env);
+    assertUnavailable(adc);
+    Assert.assertEquals(1, env.probes);
+
+    env.now += TTL_MS - 1;
+    assertUnavailable(adc);
+    Assert.assertEquals(1, env.probes);
+
+    env.now += 1;
+    env.onComputeEngine = true;
+    Assert.assertSame(env.credentials, adc.lookup());
+    Assert.assertEquals(2, env.probes);
+  }
+
+  @Test
+  public void testNegativeResultIsSharedThroughCacheFile() throws Exception {
+    System.setProperty(ApplicationDefaultCredentials.CACHE_FILE_PROPERTY, cacheFile.toString());
+    assertUnavailable(new ApplicationDefaultCredentials(env));
+    Assert.assertEquals(1, env.probes);
+
+    // Another JVM on the same machine.
+    env.now += 1000;
+    assertUnavailable(new ApplicationDefaultCredentials(env));
+    Assert.assertEquals(1, env.probes);
+
+    env.now += TTL_MS;
+    assertUnavailable(new ApplicationDefaultCredentials(env));
+    Assert.assertEquals(2, env.probes);
+  }
+
+  @Test
+  public void testStaleOrCorruptCacheFileIsIgnored() throws Exception {
+    System.setProperty(ApplicationDefaultCredentials.CACHE_FILE_PROPERTY, cacheFile.toString());
+    Files.createDirectories(cacheFile.getParent());
+    String[] contents = {
+        "not a time",
+        "",
+        Long.toString(env.now - TTL_MS - 1),
+        // Recorded in the future, for example before the clock was corrected.
+        Long.toString(env.now + TTL_MS),
+    };
+    for (int i = 0; i < contents.length; i++) {
+      Files.write(cacheFile, contents[i].getBytes(StandardCharsets.US_ASCII));
+      env.onComputeEngine = true;
+      Assert.assertSame(env.credentials, new ApplicationDefaultCredentials(env).lookup());
+      Assert.assertEquals(contents[i], i + 1, env.probes);
+    }
+  }
+
+  @Test
+  public void testCredentialsFileBypassesProbe() throws Exception {
+    ApplicationDefaultCredentials adc = new ApplicationDefaultCredentials(env);
+    assertUnavailable(adc);
+    Assert.assertEquals(1, env.probes);
+
+    env.variables.put("GOOGLE_APPLICATION_CREDENTIALS", "/etc/credentials.json");
+    Assert.assertSame(env.credentials, adc.lookup());
+    Assert.assertEquals(1, env.probes);
+  }
+
+  private static void assertUnavailable(ApplicationDefaultCredentials adc) {
+    try {
+      adc.lookup();
+      Assert.fail("Expected Application Default Credentials to be unavailable.");
+    } catch (IOException e) {
+      // Expected.
+    }
+  }
+
+  private static final class FakeEnvironment implements ApplicationDefaultCredentials.Environment {
+    final Map<String, String> variables = new HashMap<>();
+    final GoogleCredentials credentials = new GoogleCredentials() {};
+    Path productName;
+    boolean onComputeEngine;
+    long now = 1_700_000_000_000L;
+    int probes;
+    int loads;
+
+    @Override
+    public String getenv(String name) {
+      return variables.get(name);
+    }
+
+    @Override
+    public Path productNameFile() {
+      return productName;
+    }
+
+    @Override
+    public boolean probeMetadataServer() {
+      probes++;
+      return onComputeEngine;
+    }
+
+    @Override
+    public GoogleCredentials getApplicationDefault() throws IOException {
+      loads++;
+      if (!onComputeEngine && variables.get("GOOGLE_APPLICATION_CREDENTIALS") == null) {
+        throw new IOException("No credentials");
+      }
+      return credentials;
+    }
+
+    @Override
+    public long currentTimeMillis() {
+      return now;
+    }
+  }
+}
@@ -0,0 +1,59 @@
+/*
+ * Copyright 2026 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.cloud.artifactregistry.auth;
+
+import com.google.auth.Credentials;
+import com.google.auth.oauth2.AccessToken;
+import com.google.auth.oauth2.GoogleCredentials;
+import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+public class CredentialProviderTest {
+
+  @Test
+  public void testGetCredentialAsync() throws Exception {
+    Credentials credentials = GoogleCredentials.create(new AccessToken("token", null));
+    Thread caller = Thread.currentThread();
+    CredentialProvider provider = commandExecutor -> {
+      Assert.assertNotSame(caller, Thread.currentThread());
+      return credentials;
+    };
+    Assert.assertSame(credentials,
+        provider.getCredentialAsync(null).get(10, TimeUnit.SECONDS));
+  }
+
+  @Test
+  public void testGetCredentialAsyncFails() throws Exception {
+    IOException failure = new IOException("no credentials");
+    CompletableFuture<Credentials> result = ((CredentialProvider) commandExecutor -> {
+      throw failure;
+    }).getCredentialAsync(null);
+    try {
+      result.get(10, TimeUnit.SECONDS);
+      Assert.fail("Expected the lookup to fail.");
+    } catch (ExecutionException e) {
+      Assert.assertSame(failure, e.getCause());
+    }
+  }
+}
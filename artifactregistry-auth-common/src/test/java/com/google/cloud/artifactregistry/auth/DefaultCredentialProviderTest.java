@@ -0,0 +1,207 @@
+/*
+ * Copyright 2026 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.cloud.artifactregistry.auth;
+
+import com.google.auth.oauth2.GoogleCredentials;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+public class DefaultCredentialProviderTest {
+
+  private final GoogleCredentials adcCredentials = new GoogleCredentials() {};
+  private final GoogleCredentials gcloudCredentials = new GoogleCredentials() {};
+  private final List<String> tried = Collections.synchronizedList(new ArrayList<>());
+
+  @After
+  public void tearDown() {
+    System.clearProperty(DefaultCredentialProvider.SOURCES_PROPERTY);
+    System.clearProperty(DefaultCredentialProvider.RACE_PROPERTY);
+  }
+
+  @Test
+  public void testDefaultOrder() throws Exception {
+    Assert.assertSame(adcCredentials, provider(adcCredentials).makeGoogleCredentials(null));
+    Assert.assertEquals(Collections.singletonList("adc"), tried);
+  }
+
+  @Test
+  public void testConfiguredOrder() throws Exception {
+    System.setProperty(DefaultCredentialProvider.SOURCES_PROPERTY, " GCLOUD, adc ");
+    Assert.assertSame(gcloudCredentials, provider(adcCredentials).makeGoogleCredentials(null));
+    Assert.assertEquals(Collections.singletonList("gcloud"), tried);
+  }
+
+  @Test
+  public void testFallsBackInOrder() throws Exception {
+    System.setProperty(DefaultCredentialProvider.SOURCES_PROPERTY, "unknown,adc,gcloud");
+    Assert.assertSame(gcloudCredentials, provider(null).makeGoogleCredentials(null));
+    Assert.assertEquals(Arrays.asList("adc", "gcloud"), tried);
+  }
+
+  @Test
+  public void testOnlyConfiguredSourcesAreTried() {
+    System.setProperty(DefaultCredentialProvider.SOURCES_PROPERTY, "adc");
+    try {
+      provider(null).makeGoogleCredentials(null);
+      Assert.fail("Expected no credentials to be found.");
+    } catch (IOException e) {
+      Assert.assertEquals("Failed to find credentials Check debug logs for more details.",
+          e.getMessage());
+    }
+    Assert.assertEquals(Collections.singletonList("adc"), tried);
+  }
+
+  @Test
+  public void testRaceKeepsPriorityOrder() throws Exception {
+    System.setProperty(DefaultCredentialProvider.RACE_PROPERTY, "true");
+    Map<String, DefaultCredentialProvider.Source> sources = new LinkedHashMap<>();
+    sources.put("adc", (commandExecutor, verify) -> {
+      Assert.assertTrue(verify);
+      sleep(200);
+      return adcCredentials;
+    });
+    sources.put("gcloud", (commandExecutor, verify) -> gcloudCredentials);
+    Assert.assertSame(adcCredentials,
+        new DefaultCredentialProvider(sources).makeGoogleCredentials(null));
+  }
+
+  @Test
+  public void testRaceCancelsLosers() throws Exception {
+    System.setProperty(DefaultCredentialProvider.RACE_PROPERTY, "true");
+    CountDownLatch started = new CountDownLatch(1);
+    CountDownLatch cancelled = new CountDownLatch(1);
+    Map<String, DefaultCredentialProvider.Source> sources = new LinkedHashMap<>();
+    sources.put("adc", (commandExecutor, verify) -> {
+      try {
+        started.await(5, TimeUnit.SECONDS);
+      } catch (InterruptedException e) {
+        throw new IOException("Interrupted", e);
+      }
+      return adcCredentials;
+    });
+    sources.put("gcloud", (commandExecutor, verify) -> {
+      started.countDown();
+      try {
+        Thread.sleep(TimeUnit.MINUTES.toMillis(1));
+      } catch (InterruptedException e) {
+        cancelled.countDown();
+      }
+      return gcloudCredentials;
+    });
+    long start = System.nanoTime();
+    Assert.assertSame(adcCredentials,
+        new DefaultCredentialProvider(sources).makeGoogleCredentials(null));
+    Assert.assertTrue(cancelled.await(5, TimeUnit.SECONDS));
+    Assert.assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(30));
+  }
+
+  @Test
+  public void testRaceFailsLikeSequentialLookup() throws Exception {
+    Map<String, DefaultCredentialProvider.Source> sources = new LinkedHashMap<>();
+    sources.put("adc", (commandExecutor, verify) -> {
+      throw new IOException("No Application Default Credentials");
+    });
+    sources.put("gcloud", (commandExecutor, verify) -> {
+      throw new IOException("gcloud is not installed");
+    });
+    Exception sequential = failure(new DefaultCredentialProvider(sources));
+    System.setProperty(DefaultCredentialProvider.RACE_PROPERTY, "true");
+    Exception raced = failure(new DefaultCredentialProvider(sources));
+    Assert.assertEquals(IOException.class, sequential.getClass());
+    Assert.assertEquals(sequential.getClass(), raced.getClass());
+    Assert.assertEquals(sequential.getMessage(), raced.getMessage());
+
+    sources.put("adc", (commandExecutor, verify) -> {
+      throw new IllegalStateException("Broken credentials file");
+    });
+    Exception racedUnchecked = failure(new DefaultCredentialProvider(sources));
+    System.clearProperty(DefaultCredentialProvider.RACE_PROPERTY);
+    Exception sequentialUnchecked = failure(new DefaultCredentialProvider(sources));
+    Assert.assertEquals(IllegalStateException.class, sequentialUnchecked.getClass());
+    Assert.assertEquals(sequentialUnchecked.getClass(), racedUnchecked.getClass());
+    Assert.assertEquals(sequentialUnchecked.getMessage(), racedUnchecked.getMessage());
+  }
+
+  @Test
+  public void testWithoutRaceSourcesAreTriedOneAtATime() throws Exception {
+    List<Boolean> verified = new ArrayList<>();
+    Map<String, DefaultCredentialProvider.Source> sources = new LinkedHashMap<>();
+    sources.put("adc", (commandExecutor, verify) -> {
+      tried.add("adc");
+      verified.add(verify);
+      sleep(100);
+      return adcCredentials;
+    });
+    sources.put("gcloud", (commandExecutor, verify) -> {
+      tried.add("gcloud");
+      return gcloudCredentials;
+    });
+    Assert.assertSame(adcCredentials,
+        new DefaultCredentialProvider(sources).makeGoogleCredentials(null));
+    Assert.assertEquals(Collections.singletonList("adc"), tried);
+    Assert.assertEquals(Collections.singletonList(false), verified);
+  }
+
+  private static Exception failure(DefaultCredentialProvider provider) {
+    try {
+      provider.makeGoogleCredentials(null);
+    } catch (IOException | RuntimeException e) {
+      return e;
+    }
+    throw new AssertionError("Expected no credentials to be found.");
+  }
+
+  private static void sleep(long millis) throws IOException {
+    try {
+      Thread.sleep(millis);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IOException("Interrupted", e);
+    }
+  }
+
+  // A provider whose adc source returns adc, or fails if it is null, and whose gcloud source
+  // returns gcloudCredentials.
+  private DefaultCredentialProvider provider(GoogleCredentials adc) {
+    Map<String, DefaultCredentialProvider.Source> sources = new LinkedHashMap<>();
+    sources.put("adc", (commandExecutor, verify) -> {
+      tried.add("adc");
+      if (adc == null) {
+        throw new IOException("No Application Default Credentials");
+      }
+      return adc;
+    });
+    sources.put("gcloud", (commandExecutor, verify) -> {
+      tried.add("gcloud");
+      return gcloudCredentials;
+    });
+    return new DefaultCredentialProvider(sources);
+  }
+}
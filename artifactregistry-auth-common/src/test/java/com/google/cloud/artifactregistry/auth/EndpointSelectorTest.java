@@ -0,0 +1,137 @@
+/*
+ * Copyright 2026 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.cloud.artifactregistry.auth;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+public class EndpointSelectorTest {
+
+  private static final String US = "us-maven.pkg.dev/my-project/my-repo";
+  private static final String EU = "europe-maven.pkg.dev/my-project/my-repo";
+
+  // Probe round trip times in milliseconds; missing endpoints are unreachable.
+  private final Map<String, Long> rtts = new ConcurrentHashMap<>();
+
+  private EndpointSelector selector(long probeIntervalMs) {
+    return new EndpointSelector(EndpointSelector.parse("https://" + US + "/ , " + EU),
+        endpoint -> {
+          Long rtt = rtts.get(endpoint);
+          if (rtt == null) {
+            throw new IOException("unreachable");
+          }
+          return TimeUnit.MILLISECONDS.toNanos(rtt);
+        }, probeIntervalMs);
+  }
+
+  @Test
+  public void testParse() {
+    List<List<String>> expected = Collections.singletonList(Arrays.asList(US, EU));
+    Assert.assertEquals(expected, EndpointSelector.parse(US + "," + EU + ";single.pkg.dev/p/r"));
+    Assert.assertEquals(Collections.emptyList(), EndpointSelector.parse(""));
+  }
+
+  @Test
+  public void testSelectsFastestEndpoint() throws InterruptedException {
+    rtts.put(US, 80L);
+    rtts.put(EU, 10L);
+    EndpointSelector selector = selector(TimeUnit.MINUTES.toMillis(5));
+    awaitSelection(selector, US, EU);
+    Assert.assertEquals(EU, selector.select(EU + "/"));
+    Assert.assertEquals("other.pkg.dev/p/r", selector.select("other.pkg.dev/p/r"));
+  }
+
+  @Test
+  public void testFirstSelectionDoesNotWaitForProbes() throws InterruptedException {
+    CountDownLatch probed = new CountDownLatch(1);
+    EndpointSelector selector = new EndpointSelector(EndpointSelector.parse(US + "," + EU),
+        endpoint -> {
+          try {
+            probed.await();
+          } catch (InterruptedException e) {
+            throw new InterruptedIOException();
+          }
+          return TimeUnit.MILLISECONDS.toNanos(US.equals(endpoint) ? 80 : 10);
+        }, TimeUnit.MINUTES.toMillis(5));
+    try {
+      long start = System.nanoTime();
+      Assert.assertEquals(US, selector.select(US));
+      Assert.assertEquals(EU, selector.select(EU));
+      Assert.assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(1));
+    } finally {
+      probed.countDown();
+    }
+    awaitSelection(selector, US, EU);
+  }
+
+  @Test
+  public void testRecentRequestsOutweighProbes() throws InterruptedException {
+    rtts.put(US, 10L);
+    rtts.put(EU, 80L);
+    EndpointSelector selector = selector(TimeUnit.MINUTES.toMillis(5));
+    awaitSelection(selector, EU, US);
+    selector.recordSuccess(US, TimeUnit.MILLISECONDS.toNanos(500));
+    selector.recordSuccess(EU, TimeUnit.MILLISECONDS.toNanos(20));
+    Assert.assertEquals(EU, selector.select(US));
+  }
+
+  @Test
+  public void testFailsOverAndSkipsUnreachableEndpoints() throws InterruptedException {
+    rtts.put(EU, 10L);
+    EndpointSelector selector = selector(TimeUnit.MINUTES.toMillis(5));
+    awaitSelection(selector, US, EU);
+    Assert.assertEquals(EU, selector.endpointOf("https://" + EU + "/com/example/a.jar"));
+    selector.recordFailure(EU);
+    // Both have failed, so the one that failed least recently is used.
+    Assert.assertEquals(US, selector.select(US));
+  }
+
+  @Test
+  public void testReprobesFollowChanges() throws InterruptedException {
+    rtts.put(US, 10L);
+    rtts.put(EU, 80L);
+    EndpointSelector selector = selector(0);
+    awaitSelection(selector, EU, US);
+    rtts.put(US, 500L);
+    rtts.put(EU, 5L);
+    // Later selections probe in the background and use the previous ranking meanwhile.
+    for (int i = 0; i < 100 && selector.select(EU).equals(US); i++) {
+      Thread.sleep(20);
+    }
+    Assert.assertEquals(EU, selector.select(EU));
+  }
+
+  // Selects from until the background probes have made it select expected.
+  private static void awaitSelection(EndpointSelector selector, String from, String expected)
+      throws InterruptedException {
+    for (int i = 0; i < 100 && !selector.select(from).equals(expected); i++) {
+      Thread.sleep(20);
+    }
+    Assert.assertEquals(expected, selector.select(from));
+  }
+}
@@ -0,0 +1,83 @@
+/*
+ * Copyright 2026 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.cloud.artifactregistry.auth;
+
+import java.io.IOException;
+import java.text.SimpleDateFormat;
+import java.util.TimeZone;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+public class GcloudOutputTest {
+
+  @Test
+  public void testParse() throws Exception {
+    GcloudOutput output = GcloudOutput.parse("{\n"
+        + "  \"credential\": {\n"
+        + "    \"access_token\": \"ya29.a0\\u0041b\\/c\",\n"
+        + "    \"id_token\": null,\n"
+        + "    \"scopes\": [\"openid\", {\"nested\": [1, 2.5e3, true]}],\n"
+        + "    \"token_expiry\": \"2026-10-19T12:34:56Z\"\n"
+        + "  },\n"
+        + "  \"sentinels\": {}\n"
+        + "}\n");
+    Assert.assertEquals("ya29.a0Ab/c", output.accessToken);
+    Assert.assertEquals(millis("2026-10-19T12:34:56Z"), output.expiryMillis);
+  }
+
+  @Test
+  public void testParseTimestamp() throws Exception {
+    for (String s : new String[] {"1970-01-01T00:00:00Z", "2000-02-29T23:59:59Z",
+        "2024-03-01T00:00:01Z", "2100-12-31T06:07:08Z", "1969-12-31T23:59:59Z"}) {
+      Assert.assertEquals(s, millis(s), GcloudOutput.parseTimestamp(s));
+    }
+  }
+
+  @Test
+  public void testErrors() {
+    assertFails("{}", "No credential returned from gcloud");
+    assertFails("{\"credential\": null}", "No credential returned from gcloud");
+    assertFails("{\"credential\": {\"access_token\": \"t\"}}", "Malformed response from gcloud");
+    assertFails("{\"credential\": {\"access_token\": \"t\"", "Malformed response from gcloud");
+    assertFails("{\"credential\": {}} trailing", "Malformed response from gcloud");
+    assertFails("", "Malformed response from gcloud");
+    assertFails("{\"credential\": {\"access_token\": \"t\", \"token_expiry\": \"2026-10-19\"}}",
+        "Failed to parse timestamp from gcloud output");
+    assertFails("{\"credential\": {\"access_token\": \"t\","
+        + " \"token_expiry\": \"2026-13-19T00:00:00Z\"}}",
+        "Failed to parse timestamp from gcloud output");
+  }
+
+  private static void assertFails(String json, String message) {
+    try {
+      GcloudOutput.parse(json);
+      Assert.fail("Expected an error for " + json);
+    } catch (IOException e) {
+      Assert.assertEquals(json, message, e.getMessage());
+    }
+  }
+
+  // The result of the date format the output used to be parsed with.
+  private static long millis(String s) throws Exception {
+    SimpleDateFormat df = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss'Z'");
+    df.setTimeZone(TimeZone.getTimeZone("UTC"));
+    return df.parse(s).getTime();
+  }
+}
@@ -0,0 +1,86 @@
+/*
+ * Copyright 2026 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.cloud.artifactregistry.auth;
+
+import io.opentelemetry.api.trace.SpanKind;
+import io.opentelemetry.api.trace.StatusCode;
+import io.opentelemetry.api.trace.propagation.W3CTraceContextPropagator;
+import io.opentelemetry.context.propagation.ContextPropagators;
+import io.opentelemetry.sdk.OpenTelemetrySdk;
+import io.opentelemetry.sdk.testing.exporter.InMemorySpanExporter;
+import io.opentelemetry.sdk.trace.SdkTracerProvider;
+import io.opentelemetry.sdk.trace.data.SpanData;
+import io.opentelemetry.sdk.trace.export.SimpleSpanProcessor;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+public class OpenTelemetryTracerTest {
+
+  private final InMemorySpanExporter exporter = InMemorySpanExporter.create();
+  private OpenTelemetryTracer tracer;
+
+  @Before
+  public void setUp() {
+    OpenTelemetrySdk sdk = OpenTelemetrySdk.builder()
+        .setTracerProvider(SdkTracerProvider.builder()
+            .addSpanProcessor(SimpleSpanProcessor.create(exporter))
+            .build())
+        .setPropagators(ContextPropagators.create(W3CTraceContextPropagator.getInstance()))
+        .build();
+    tracer = new OpenTelemetryTracer(sdk);
+  }
+
+  @Test
+  public void testClientSpan() {
+    Map<String, String> headers = new HashMap<>();
+    try (Tracing.Span build = tracer.start("build")) {
+      try (Tracing.Span get = tracer.start("GET", Tracing.Kind.CLIENT)) {
+        get.setAttribute("http.response.status_code", 200L);
+        get.addEvent("retry");
+        get.inject(headers::put);
+      }
+    }
+    List<SpanData> spans = exporter.getFinishedSpanItems();
+    Assert.assertEquals(2, spans.size());
+    SpanData get = spans.get(0);
+    SpanData build = spans.get(1);
+    Assert.assertEquals("GET", get.getName());
+    Assert.assertEquals(SpanKind.CLIENT, get.getKind());
+    Assert.assertEquals(SpanKind.INTERNAL, build.getKind());
+    Assert.assertEquals(build.getSpanId(), get.getParentSpanId());
+    Assert.assertEquals("retry", get.getEvents().get(0).getName());
+    Assert.assertEquals(
+        "00-" + get.getTraceId() + "-" + get.getSpanId() + "-01", headers.get("traceparent"));
+  }
+
+  @Test
+  public void testFailedSpan() {
+    try (Tracing.Span span = tracer.start("artifactregistry.gcloud")) {
+      span.recordException(new IOException("gcloud not found"));
+    }
+    SpanData span = exporter.getFinishedSpanItems().get(0);
+    Assert.assertEquals(StatusCode.ERROR, span.getStatus().getStatusCode());
+    Assert.assertEquals("exception", span.getEvents().get(0).getName());
+  }
+}
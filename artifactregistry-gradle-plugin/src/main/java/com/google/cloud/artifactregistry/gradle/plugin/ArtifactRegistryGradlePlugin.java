@@ -21,10 +21,18 @@ import com.google.auth.oauth2.GoogleCredentials;
 import com.google.cloud.artifactregistry.auth.CommandExecutor;
 import com.google.cloud.artifactregistry.auth.CredentialProvider;
 import com.google.cloud.artifactregistry.auth.DefaultCredentialProvider;
+import com.google.cloud.artifactregistry.auth.EndpointSelector;
+import com.google.cloud.artifactregistry.auth.Tracing;
 import java.io.IOException;
 import java.lang.reflect.Method;
 import java.net.URI;
 import java.net.URISyntaxException;
+import java.util.Collections;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
 import javax.annotation.Nullable;
 import org.gradle.api.Plugin;
 import org.gradle.api.Project;
@@ -34,16 +42,17 @@ import org.gradle.api.artifacts.repositories.ArtifactRepository;
 import org.gradle.api.artifacts.repositories.PasswordCredentials;
 import org.gradle.api.credentials.Credentials;
 import org.gradle.api.initialization.Settings;
-import org.gradle.api.initialization.dsl.ScriptHandler;
 import org.gradle.api.initialization.resolve.DependencyResolutionManagement;
 import org.gradle.api.internal.artifacts.repositories.DefaultMavenArtifactRepository;
 import org.gradle.api.invocation.Gradle;
 import org.gradle.api.provider.Property;
 import org.gradle.api.provider.ProviderFactory;
 import org.gradle.api.publish.PublishingExtension;
+import org.gradle.api.publish.plugins.PublishingPlugin;
 import org.gradle.api.tasks.Input;
 import org.gradle.internal.authentication.DefaultBasicAuthentication;
 import org.gradle.plugin.management.PluginManagementSpec;
+import org.gradle.util.GradleVersion;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -85,33 +94,109 @@ public class ArtifactRegistryGradlePlugin implements Plugin<Object> {
     }
   }
 
+  // The access token of a build, shared by its settings and every one of its projects, each of
+  // which applies the plugin separately. It is looked up once per build, when its first Artifact
+  // Registry repository is configured, with the command executor of whichever applied the plugin
+  // first.
+  static final class PendingCredentials {
+    private static final Map<Gradle, PendingCredentials> BUILDS =
+        Collections.synchronizedMap(new WeakHashMap<>());
+
+    private final CredentialProvider credentialProvider;
+    private final CommandExecutor commandExecutor;
+    private CompletableFuture<ArtifactRegistryPasswordCredentials> lookup;
+    private boolean logged;
+
+    private PendingCredentials(
+        CredentialProvider credentialProvider, CommandExecutor commandExecutor) {
+      this.credentialProvider = credentialProvider;
+      this.commandExecutor = commandExecutor;
+    }
+
+    static PendingCredentials forBuild(
+        Gradle gradle, CredentialProvider credentialProvider, CommandExecutor commandExecutor) {
+      return BUILDS.computeIfAbsent(
+          gradle, g -> new PendingCredentials(credentialProvider, commandExecutor));
+    }
+
+    private CompletableFuture<ArtifactRegistryPasswordCredentials> start() {
+      return credentialProvider.getCredentialAsync(commandExecutor).thenApply(c -> {
+        try {
+          GoogleCredentials credentials = (GoogleCredentials) c;
+          credentials.refreshIfExpired();
+          AccessToken accessToken = credentials.getAccessToken();
+          String token = accessToken.getTokenValue();
+          return new ArtifactRegistryPasswordCredentials("oauth2accesstoken", token, commandExecutor);
+        } catch (IOException e) {
+          throw new CompletionException(e);
+        }
+      });
+    }
+
+    // Returns the credentials, or null if none could be found.
+    @Nullable
+    synchronized ArtifactRegistryPasswordCredentials get() {
+      if (lookup == null) {
+        lookup = start();
+      }
+      if (!lookup.isDone()) {
+        try (Tracing.Span span = Tracing.start("artifactregistry.credentials.wait")) {
+          return await();
+        }
+      }
+      return await();
+    }
+
+    @Nullable
+    private ArtifactRegistryPasswordCredentials await() {
+      try {
+        return lookup.get();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        return null;
+      } catch (ExecutionException e) {
+        if (!(e.getCause() instanceof IOException)) {
+          throw new IllegalStateException(e.getCause());
+        }
+        if (!logged) {
+          logger.info("Failed to get access token from gcloud or Application Default Credentials",
+              e.getCause());
+          logged = true;
+        }
+        return null;
+      }
+    }
+  }
+
   private final CredentialProvider credentialProvider = DefaultCredentialProvider.getInstance();
 
   @Override
   public void apply(Object o) {
-    ArtifactRegistryPasswordCredentials crd = null;
-    try {
-      ProviderFactory providerFactory;
-      if (o instanceof Project) {
-        providerFactory = ((Project) o).getProviders();
-      } else if (o instanceof Gradle) {
-        providerFactory = ((Gradle) o).getRootProject().getProviders();
-      } else if (o instanceof Settings) {
-        providerFactory = ((Settings) o).getProviders();
-      } else {
-        logger.info("Failed to get access token from gcloud or Application Default Credentials due to unknown script type " + o);
-        return;
-      }
-      CommandExecutor commandExecutor = new ProviderFactoryCommandExecutor(providerFactory);
+    try (Tracing.Span span = Tracing.start("artifactregistry.gradle.apply")) {
+      span.setAttribute("artifactregistry.gradle.target", o.getClass().getSimpleName());
+      applyTo(o);
+    }
+  }
 
-      GoogleCredentials credentials = (GoogleCredentials)credentialProvider.getCredential(commandExecutor);
-      credentials.refreshIfExpired();
-      AccessToken accessToken = credentials.getAccessToken();
-      String token = accessToken.getTokenValue();
-      crd = new ArtifactRegistryPasswordCredentials("oauth2accesstoken", token, commandExecutor);
-    } catch (IOException e) {
-      logger.info("Failed to get access token from gcloud or Application Default Credentials", e);
+  private void applyTo(Object o) {
+    ProviderFactory providerFactory;
+    Gradle gradle;
+    if (o instanceof Project) {
+      providerFactory = ((Project) o).getProviders();
+      gradle = ((Project) o).getGradle();
+    } else if (o instanceof Gradle) {
+      providerFactory = ((Gradle) o).getRootProject().getProviders();
+      gradle = (Gradle) o;
+    } else if (o instanceof Settings) {
+      providerFactory = ((Settings) o).getProviders();
+      gradle = ((Settings) o).getGradle();
+    } else {
+      logger.info("Failed to get access token from gcloud or Application Default Credentials due to unknown script type " + o);
+      return;
     }
+    CommandExecutor commandExecutor = new ProviderFactoryCommandExecutor(providerFactory);
+    PendingCredentials crd =
+        PendingCredentials.forBuild(gradle, credentialProvider, commandExecutor);
 
     if (o instanceof Project) {
       applyProject((Project) o, crd);
@@ -123,46 +208,58 @@ public class ArtifactRegistryGradlePlugin implements Plugin<Object> {
   }
 
   // The plugin for Gradle will apply Artifact Registry repo settings inside settings.gradle and build.gradle.
-  private void applyGradle(Gradle gradle, @Nullable ArtifactRegistryPasswordCredentials crd) {
+  private void applyGradle(Gradle gradle, PendingCredentials crd) {
     gradle.settingsEvaluated(s -> modifySettings(s, crd));
-    gradle.projectsLoaded(g -> g.allprojects(p -> modifyProjectBuildscript(p, crd)));
-    gradle.projectsEvaluated(g -> g.allprojects(p -> modifyProject(p, crd)));
+    applyToEachProject(gradle);
   }
 
   // The plugin for settings will apply Artifact Registry repo settings inside settings.gradle and build.gradle.
-  private void applySettings(Settings settings, @Nullable ArtifactRegistryPasswordCredentials crd) {
+  private void applySettings(Settings settings, PendingCredentials crd) {
     applyGradle(settings.getGradle(), crd);
   }
 
+  // Applies the plugin to every project, where it configures only that project. Reaching into
+  // other projects from here would break Isolated Projects and parallel configuration.
+  private static void applyToEachProject(Gradle gradle) {
+    if (GradleVersion.current().compareTo(GradleVersion.version("8.8")) >= 0) {
+      gradle.getLifecycle().beforeProject(
+          p -> p.getPluginManager().apply(ArtifactRegistryGradlePlugin.class));
+    } else {
+      gradle.beforeProject(p -> p.getPluginManager().apply(ArtifactRegistryGradlePlugin.class));
+    }
+  }
+
   // The plugin for projects will only apply Artifact Registry repo settings inside build.gradle.
-  private void applyProject(Project project, @Nullable ArtifactRegistryPasswordCredentials crd) {
+  private void applyProject(Project project, PendingCredentials crd) {
+    // Repositories are configured as they are added, which happens after their URL is set.
+    project.getBuildscript().getRepositories()
+        .configureEach(r -> configureArtifactRegistryRepository(r, crd, true));
+    project.getRepositories().configureEach(r -> configureArtifactRegistryRepository(r, crd, true));
+    project.getPlugins().withType(PublishingPlugin.class, plugin -> project.getExtensions()
+        .getByType(PublishingExtension.class).getRepositories()
+        .configureEach(r -> configureArtifactRegistryRepository(r, crd, false)));
+    // Catch URLs that were changed after their repository was added.
     project.afterEvaluate(p -> modifyProject(p, crd));
   }
 
-  private void modifyProject(Project p, @Nullable ArtifactRegistryPasswordCredentials crd) {
-    p.getRepositories().forEach(r -> configureArtifactRegistryRepository(r, crd));
+  private void modifyProject(Project p, PendingCredentials crd) {
+    p.getRepositories().forEach(r -> configureArtifactRegistryRepository(r, crd, true));
     final PublishingExtension publishingExtension = p.getExtensions().findByType(PublishingExtension.class);
     if (publishingExtension != null) {
-      publishingExtension.getRepositories().forEach(r -> configureArtifactRegistryRepository(r, crd));
+      publishingExtension.getRepositories().forEach(r -> configureArtifactRegistryRepository(r, crd, false));
     }
   }
 
-  // Not sure this knows which repositories already exist, so register a callback to modify the repos
-  // as they are added to the buildscript
-  private void modifyProjectBuildscript(Project p, @Nullable ArtifactRegistryPasswordCredentials crd) {
-    final ScriptHandler buildscript = p.getBuildscript();
-    if (buildscript != null) {
-      buildscript.getRepositories().whenObjectAdded(r -> configureArtifactRegistryRepository(r, crd));
-    }
-  }
-
-  private void modifySettings(Settings s, @Nullable ArtifactRegistryPasswordCredentials crd) {
-    s.getPluginManagement().getRepositories().forEach(r -> configureArtifactRegistryRepository(r, crd));
-    s.getDependencyResolutionManagement().getRepositories().forEach(r -> configureArtifactRegistryRepository(r, crd));
+  private void modifySettings(Settings s, PendingCredentials crd) {
+    s.getPluginManagement().getRepositories().forEach(r -> configureArtifactRegistryRepository(r, crd, true));
+    s.getDependencyResolutionManagement().getRepositories().forEach(r -> configureArtifactRegistryRepository(r, crd, true));
   }
 
+  // Repositories used for resolution are routed to the preferred regional endpoint when
+  // artifactregistry.endpoints lists several for them. Publishing repositories are not, as the
+  // other regions may be read-only.
   private void configureArtifactRegistryRepository(
-      ArtifactRepository repo, @Nullable ArtifactRegistryPasswordCredentials crd)
+      ArtifactRepository repo, PendingCredentials crd, boolean routed)
       throws ProjectConfigurationException, UncheckedIOException {
     if (!(repo instanceof DefaultMavenArtifactRepository)) {
       return;
@@ -170,15 +267,26 @@ public class ArtifactRegistryGradlePlugin implements Plugin<Object> {
     final DefaultMavenArtifactRepository arRepo = (DefaultMavenArtifactRepository) repo;
     final URI u = arRepo.getUrl();
     if (u != null && u.getScheme() != null && u.getScheme().equals("artifactregistry")) {
+      String host = u.getHost();
+      String path = u.getPath();
+      if (routed) {
+        String endpoint = EndpointSelector.getInstance().select(host + path);
+        int slash = endpoint.indexOf('/');
+        if (slash > 0) {
+          host = endpoint.substring(0, slash);
+          path = endpoint.substring(slash);
+        }
+      }
       try {
-        arRepo.setUrl(new URI("https", u.getHost(), u.getPath(), u.getFragment()));
+        arRepo.setUrl(new URI("https", host, path, u.getFragment()));
       } catch (URISyntaxException e) {
         throw new ProjectConfigurationException(
             String.format("Invalid repository URL %s", u.toString()), e);
       }
 
-      if (crd != null && shouldStoreCredentials(arRepo)) {
-        arRepo.setConfiguredCredentials(crd);
+      ArtifactRegistryPasswordCredentials credentials = crd.get();
+      if (credentials != null && shouldStoreCredentials(arRepo)) {
+        arRepo.setConfiguredCredentials(credentials);
         arRepo.authentication(authenticationContainer -> authenticationContainer
             .add(new DefaultBasicAuthentication("basic")));
       }
@@ -0,0 +1,124 @@
+/*
+ * Copyright 2026 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.cloud.artifactregistry.gradle.plugin;
+
+import com.google.cloud.artifactregistry.auth.CredentialProvider;
+import com.google.cloud.artifactregistry.gradle.plugin.ArtifactRegistryGradlePlugin.PendingCredentials;
+import java.io.File;
+import java.io.IOException;
+import java.lang.reflect.Proxy;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.gradle.api.invocation.Gradle;
+import org.gradle.testkit.runner.BuildResult;
+import org.gradle.testkit.runner.GradleRunner;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+public class ArtifactRegistryGradlePluginTest {
+
+  @Rule
+  public TemporaryFolder tmp = new TemporaryFolder();
+
+  private static final String REPO_URL =
+      "artifactregistry://us-west1-maven.pkg.dev/my-project/my-repo";
+
+  @Test
+  public void testSettingsPluginWithIsolatedProjects() throws IOException {
+    File root = tmp.getRoot();
+    write(new File(root, "settings.gradle"),
+        "plugins {\n"
+            + "  id 'com.google.cloud.artifactregistry.gradle-plugin'\n"
+            + "}\n"
+            + "include 'a', 'b'\n");
+    for (String name : new String[] {"a", "b"}) {
+      write(new File(root, name + "/build.gradle"),
+          "plugins {\n"
+              + "  id 'maven-publish'\n"
+              + "}\n"
+              + "repositories {\n"
+              + "  maven { url '" + REPO_URL + "' }\n"
+              + "}\n"
+              + "publishing {\n"
+              + "  repositories {\n"
+              + "    maven { url '" + REPO_URL + "' }\n"
+              + "  }\n"
+              + "}\n"
+              + "def urls = (repositories + publishing.repositories).collect { it.url.toString() }\n"
+              + "tasks.register('printUrls') {\n"
+              + "  doLast { urls.each { println \"url: $it\" } }\n"
+              + "}\n");
+    }
+
+    BuildResult result = GradleRunner.create()
+        .withProjectDir(root)
+        .withPluginClasspath()
+        .withArguments("printUrls", "-Dorg.gradle.unsafe.isolated-projects=true",
+            "-Dartifactregistry.credentialSources=")
+        .build();
+
+    String output = result.getOutput();
+    Assert.assertFalse(output, output.contains("url: artifactregistry://"));
+    Assert.assertEquals(output, 4,
+        output.split("url: https://us-west1-maven.pkg.dev/my-project/my-repo", -1).length - 1);
+  }
+
+  @Test
+  public void testCredentialsAreLookedUpOncePerBuild() {
+    AtomicInteger lookups = new AtomicInteger();
+    CredentialProvider provider = commandExecutor -> {
+      lookups.incrementAndGet();
+      throw new IOException("no credentials");
+    };
+    Gradle build = newGradle();
+    PendingCredentials first = PendingCredentials.forBuild(build, provider, null);
+    PendingCredentials second = PendingCredentials.forBuild(build, provider, null);
+    Assert.assertSame(first, second);
+    Assert.assertEquals(0, lookups.get());
+
+    Assert.assertNull(first.get());
+    Assert.assertNull(second.get());
+    Assert.assertEquals(1, lookups.get());
+
+    Assert.assertNull(PendingCredentials.forBuild(newGradle(), provider, null).get());
+    Assert.assertEquals(2, lookups.get());
+  }
+
+  private static Gradle newGradle() {
+    return (Gradle) Proxy.newProxyInstance(Gradle.class.getClassLoader(),
+        new Class<?>[] {Gradle.class}, (proxy, method, args) -> {
+          switch (method.getName()) {
+            case "hashCode":
+              return System.identityHashCode(proxy);
+            case "equals":
+              return proxy == args[0];
+            default:
+              throw new UnsupportedOperationException(method.getName());
+          }
+        });
+  }
+
+  private static void write(File file, String content) throws IOException {
+    file.getParentFile().mkdirs();
+    Files.write(file.toPath(), content.getBytes(StandardCharsets.UTF_8));
+  }
+}
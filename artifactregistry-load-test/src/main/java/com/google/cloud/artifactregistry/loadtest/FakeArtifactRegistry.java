@@ -0,0 +1,393 @@
+/*
+ * Copyright 2026 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.cloud.artifactregistry.loadtest;
+
+import com.google.api.client.http.HttpTransport;
+import com.google.api.client.http.javanet.NetHttpTransport;
+import com.google.auth.http.HttpTransportFactory;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * FakeArtifactRegistry is a local stand-in for an Artifact Registry Maven repository. It serves
+ * GET, HEAD and PUT requests for files kept in memory, issues access tokens from a fake token
+ * endpoint, and injects faults: added latency, throttling with {@code Retry-After}, connection
+ * resets, server errors, bodies sent a few bytes at a time, and tokens that expire before the
+ * client expects them to.
+ *
+ * <p>The server speaks plain HTTP on the loopback interface. Wagons are pointed at it with the
+ * transport returned by {@link #transportFactory}, which sends every request to the server
+ * whatever its URL, so that they can keep their {@code artifactregistry://} repository URLs.
+ */
+public final class FakeArtifactRegistry {
+
+  static final String TOKEN_PATH = "/token";
+
+  /** The faults to inject. Rates are the fraction of requests that get the fault. */
+  public static final class Faults {
+
+    long latencyMs;
+    long jitterMs;
+    double throttleRate;
+    int retryAfterSeconds = 1;
+    double resetRate;
+    double serverErrorRate;
+    double slowBodyRate;
+    int slowBodyBytesPerSecond = 16 * 1024;
+    long tokenLifetimeSeconds = -1;
+
+    /** Delays every response by {@code latencyMs} plus a uniformly random {@code jitterMs}. */
+    public Faults setLatency(long latencyMs, long jitterMs) {
+      this.latencyMs = latencyMs;
+      this.jitterMs = jitterMs;
+      return this;
+    }
+
+    /** Answers {@code 429 Too Many Requests} with a {@code Retry-After} header. */
+    public Faults setThrottle(double rate, int retryAfterSeconds) {
+      this.throttleRate = rate;
+      this.retryAfterSeconds = retryAfterSeconds;
+      return this;
+    }
+
+    /** Closes the connection without sending a response. */
+    public Faults setReset(double rate) {
+      this.resetRate = rate;
+      return this;
+    }
+
+    /** Answers {@code 503 Service Unavailable}. */
+    public Faults setServerError(double rate) {
+      this.serverErrorRate = rate;
+      return this;
+    }
+
+    /** Sends the headers at once and then the body at {@code bytesPerSecond}. */
+    public Faults setSlowBody(double rate, int bytesPerSecond) {
+      this.slowBodyRate = rate;
+      this.slowBodyBytesPerSecond = bytesPerSecond;
+      return this;
+    }
+
+    /**
+     * Requires requests to carry a token from the token endpoint, and rejects tokens older than
+     * {@code seconds} with {@code 401 Unauthorized}. Tokens claim to be valid for an hour, so
+     * clients only find out that they expired from the rejection.
+     */
+    public Faults setTokenLifetime(long seconds) {
+      this.tokenLifetimeSeconds = seconds;
+      return this;
+    }
+  }
+
+  /** Counters of what the server did, by outcome. */
+  public static final class Counters {
+
+    final ConcurrentMap<String, AtomicLong> outcomes = new ConcurrentHashMap<>();
+    final AtomicLong bytesServed = new AtomicLong();
+    final AtomicInteger tokensIssued = new AtomicInteger();
+
+    void count(String outcome) {
+      outcomes.computeIfAbsent(outcome, k -> new AtomicLong()).incrementAndGet();
+    }
+
+    /** Returns the number of requests with {@code outcome}, such as {@code 200} or {@code 429}. */
+    public long get(String outcome) {
+      AtomicLong n = outcomes.get(outcome);
+      return n == null ? 0 : n.get();
+    }
+
+    public long bytesServed() {
+      return bytesServed.get();
+    }
+
+    public int tokensIssued() {
+      return tokensIssued.get();
+    }
+
+    @Override
+    public String toString() {
+      Map<String, Long> sorted = new TreeMap<>();
+      outcomes.forEach((k, v) -> sorted.put(k, v.get()));
+      return sorted + ", " + tokensIssued + " tokens issued, " + bytesServed + " bytes served";
+    }
+  }
+
+  private final Faults faults;
+  private final Random random;
+  private final ConcurrentMap<String, byte[]> files = new ConcurrentHashMap<>();
+  // Issue times of the tokens handed out, by token.
+  private final ConcurrentMap<String, Long> tokens = new ConcurrentHashMap<>();
+  private final Counters counters = new Counters();
+  private HttpServer server;
+  private ExecutorService executor;
+
+  /**
+   * @param seed seeds the choice of requests that get a fault, so that runs can be repeated
+   */
+  public FakeArtifactRegistry(Faults faults, long seed) {
+    this.faults = faults;
+    this.random = new Random(seed);
+  }
+
+  /** Starts serving on an ephemeral port of the loopback interface. */
+  public FakeArtifactRegistry start() throws IOException {
+    server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+    // Latency and slow bodies hold a thread per request, so the pool is unbounded.
+    executor = Executors.newCachedThreadPool(r -> {
+      Thread t = new Thread(r, "fake-artifact-registry");
+      t.setDaemon(true);
+      return t;
+    });
+    server.setExecutor(executor);
+    server.createContext("/", this::handle);
+    server.start();
+    return this;
+  }
+
+  public void stop() {
+    server.stop(0);
+    executor.shutdownNow();
+  }
+
+  public int getPort() {
+    return server.getAddress().getPort();
+  }
+
+  /** Returns the URL of the token endpoint. */
+  public String tokenUrl() {
+    return "http://127.0.0.1:" + getPort() + TOKEN_PATH;
+  }
+
+  /** Stores {@code content} at {@code path}, such as {@code project/repository/com/example/...}. */
+  public void put(String path, byte[] content) {
+    files.put(path, content);
+  }
+
+  public byte[] get(String path) {
+    return files.get(path);
+  }
+
+  public Counters counters() {
+    return counters;
+  }
+
+  /**
+   * Returns a transport factory whose transports send every request to this server, keeping only
+   * the path of its URL.
+   */
+  public HttpTransportFactory transportFactory() {
+    return () -> transport();
+  }
+
+  HttpTransport transport() {
+    return new NetHttpTransport.Builder()
+        .setConnectionFactory(url -> (HttpURLConnection)
+            new URL("http", "127.0.0.1", getPort(), url.getFile()).openConnection())
+        .build();
+  }
+
+  private void handle(HttpExchange exchange) throws IOException {
+    try {
+      // The JDK server drops a kept-alive connection whose request body was never read, even when
+      // it is empty, so the body is read before anything else.
+      byte[] body = readAll(exchange.getRequestBody());
+      if (exchange.getRequestURI().getPath().equals(TOKEN_PATH)) {
+        issueToken(exchange);
+        return;
+      }
+      delay();
+      String fault = pickFault();
+      switch (fault) {
+        case "reset":
+          // Closing the exchange before sending headers drops the connection.
+          counters.count("reset");
+          return;
+        case "429":
+          counters.count("429");
+          exchange.getResponseHeaders().set("Retry-After",
+              Integer.toString(faults.retryAfterSeconds));
+          send(exchange, 429, "Too many requests.");
+          return;
+        case "503":
+          counters.count("503");
+          send(exchange, 503, "Service unavailable.");
+          return;
+        default:
+          break;
+      }
+      if (!isAuthorized(exchange)) {
+        counters.count("401");
+        exchange.getResponseHeaders().set("WWW-Authenticate", "Bearer error=\"invalid_token\"");
+        send(exchange, 401, "The access token expired.");
+        return;
+      }
+      String path = exchange.getRequestURI().getPath().substring(1);
+      switch (exchange.getRequestMethod()) {
+        case "PUT":
+          files.put(path, body);
+          counters.count("200");
+          send(exchange, 200, "");
+          return;
+        case "GET":
+        case "HEAD":
+          byte[] content = files.get(path);
+          if (content == null) {
+            counters.count("404");
+            send(exchange, 404, "Not found.");
+            return;
+          }
+          counters.count("200");
+          serve(exchange, content, fault.equals("slow"));
+          return;
+        default:
+          counters.count("405");
+          send(exchange, 405, "Method not allowed.");
+      }
+    } catch (IOException e) {
+      // The client went away, for example because it gave up on a slow body.
+      counters.count("aborted");
+    } finally {
+      exchange.close();
+    }
+  }
+
+  private void delay() {
+    long ms = faults.latencyMs;
+    if (faults.jitterMs > 0) {
+      synchronized (random) {
+        ms += (long) (random.nextDouble() * faults.jitterMs);
+      }
+    }
+    if (ms > 0) {
+      try {
+        Thread.sleep(ms);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+    }
+  }
+
+  // Picks at most one fault for a request, or returns an empty string.
+  private String pickFault() {
+    double r;
+    synchronized (random) {
+      r = random.nextDouble();
+    }
+    if ((r -= faults.resetRate) < 0) {
+      return "reset";
+    }
+    if ((r -= faults.throttleRate) < 0) {
+      return "429";
+    }
+    if ((r -= faults.serverErrorRate) < 0) {
+      return "503";
+    }
+    if ((r -= faults.slowBodyRate) < 0) {
+      return "slow";
+    }
+    return "";
+  }
+
+  private boolean isAuthorized(HttpExchange exchange) {
+    if (faults.tokenLifetimeSeconds < 0) {
+      return true;
+    }
+    String authorization = exchange.getRequestHeaders().getFirst("Authorization");
+    if (authorization == null || !authorization.startsWith("Bearer ")) {
+      return false;
+    }
+    Long issued = tokens.get(authorization.substring("Bearer ".length()));
+    return issued != null && System.nanoTime() - issued
+        < TimeUnit.SECONDS.toNanos(faults.tokenLifetimeSeconds);
+  }
+
+  private void issueToken(HttpExchange exchange) throws IOException {
+    String token = "fake-token-" + counters.tokensIssued.incrementAndGet();
+    tokens.put(token, System.nanoTime());
+    exchange.getResponseHeaders().set("Content-Type", "application/json");
+    send(exchange, 200, "{\"access_token\": \"" + token + "\", \"token_type\": \"Bearer\","
+        + " \"expires_in\": 3600}");
+  }
+
+  private void serve(HttpExchange exchange, byte[] content, boolean slow) throws IOException {
+    if (exchange.getRequestMethod().equals("HEAD")) {
+      exchange.getResponseHeaders().set("Content-Length", Integer.toString(content.length));
+      exchange.sendResponseHeaders(200, -1);
+      return;
+    }
+    exchange.sendResponseHeaders(200, content.length);
+    try (OutputStream out = exchange.getResponseBody()) {
+      if (!slow) {
+        out.write(content);
+      } else {
+        // Ten writes a second, each flushed so that the client sees the body trickle in.
+        int chunk = Math.max(1, faults.slowBodyBytesPerSecond / 10);
+        for (int off = 0; off < content.length; off += chunk) {
+          out.write(content, off, Math.min(chunk, content.length - off));
+          out.flush();
+          Thread.sleep(100);
+        }
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      return;
+    }
+    counters.bytesServed.addAndGet(content.length);
+  }
+
+  private static void send(HttpExchange exchange, int status, String body) throws IOException {
+    byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+    if (exchange.getRequestMethod().equals("HEAD") || bytes.length == 0) {
+      exchange.sendResponseHeaders(status, -1);
+      return;
+    }
+    exchange.sendResponseHeaders(status, bytes.length);
+    try (OutputStream out = exchange.getResponseBody()) {
+      out.write(bytes);
+    }
+  }
+
+  private static byte[] readAll(InputStream in) throws IOException {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    byte[] buf = new byte[8192];
+    int n;
+    while ((n = in.read(buf)) != -1) {
+      out.write(buf, 0, n);
+    }
+    return out.toByteArray();
+  }
+}
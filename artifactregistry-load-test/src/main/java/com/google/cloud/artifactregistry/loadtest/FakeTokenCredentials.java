@@ -0,0 +1,75 @@
+/*
+ * Copyright 2026 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.cloud.artifactregistry.loadtest;
+
+import com.google.auth.oauth2.AccessToken;
+import com.google.auth.oauth2.OAuth2Credentials;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * FakeTokenCredentials gets access tokens from the token endpoint of a {@link
+ * FakeArtifactRegistry}, the way real credentials get them from an OAuth server, so that wagons
+ * refresh them when the server rejects one.
+ */
+public final class FakeTokenCredentials extends OAuth2Credentials {
+
+  private static final Pattern ACCESS_TOKEN =
+      Pattern.compile("\"access_token\"\\s*:\\s*\"([^\"]+)\"");
+  private static final Pattern EXPIRES_IN = Pattern.compile("\"expires_in\"\\s*:\\s*(\\d+)");
+
+  private final String tokenUrl;
+
+  public FakeTokenCredentials(String tokenUrl) {
+    this.tokenUrl = tokenUrl;
+  }
+
+  @Override
+  public AccessToken refreshAccessToken() throws IOException {
+    HttpURLConnection connection = (HttpURLConnection) new URL(tokenUrl).openConnection();
+    connection.setRequestMethod("POST");
+    connection.setDoOutput(true);
+    connection.getOutputStream().close();
+    String body;
+    try (InputStream in = connection.getInputStream()) {
+      ByteArrayOutputStream out = new ByteArrayOutputStream();
+      byte[] buf = new byte[1024];
+      int n;
+      while ((n = in.read(buf)) != -1) {
+        out.write(buf, 0, n);
+      }
+      body = new String(out.toByteArray(), StandardCharsets.UTF_8);
+    } finally {
+      connection.disconnect();
+    }
+    Matcher token = ACCESS_TOKEN.matcher(body);
+    Matcher expiresIn = EXPIRES_IN.matcher(body);
+    if (!token.find() || !expiresIn.find()) {
+      throw new IOException("Unexpected response from the token endpoint: " + body);
+    }
+    return new AccessToken(token.group(1), new Date(System.currentTimeMillis()
+        + TimeUnit.SECONDS.toMillis(Long.parseLong(expiresIn.group(1)))));
+  }
+}
@@ -0,0 +1,304 @@
+/*
+ * Copyright 2026 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.cloud.artifactregistry.loadtest;
+
+import com.google.api.client.http.HttpResponseException;
+import com.google.auth.Credentials;
+import com.google.cloud.artifactregistry.auth.CredentialProvider;
+import com.google.cloud.artifactregistry.wagon.ArtifactRegistryWagon;
+import com.google.cloud.artifactregistry.wagon.ContentStore;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+import org.apache.maven.wagon.WagonException;
+import org.apache.maven.wagon.repository.Repository;
+
+/**
+ * LoadDriver runs many wagons at once against a {@link FakeArtifactRegistry} and reports
+ * throughput, latency percentiles and errors. Each wagon runs on its own thread, as in a parallel
+ * Maven build, and downloads randomly chosen artifacts one after the other.
+ *
+ * <p>Run it with {@code --help} for its options. Wagon features are enabled with their usual
+ * system properties, for example {@code -Dartifactregistry.hedgeRequests=true}.
+ */
+public final class LoadDriver {
+
+  private static final String USAGE = "Usage: LoadDriver [--wagons=32] [--requests=50]"
+      + " [--artifacts=100] [--size=64k] [--latency-ms=20] [--jitter-ms=20] [--throttle=RATE]"
+      + " [--retry-after=1] [--reset=RATE] [--server-errors=RATE] [--slow-body=RATE]"
+      + " [--slow-body-rate=16384] [--token-lifetime=SECONDS] [--seed=1]";
+
+  static final String REPOSITORY_URL = "artifactregistry://fake-maven.pkg.dev/load/repository";
+  private static final String REPOSITORY_PATH = "load/repository/";
+
+  /** The outcome of a run. */
+  public static final class Report {
+
+    final int requests;
+    final long nanos;
+    final long bytes;
+    // Latency of every request, successful or not, in ascending order.
+    final long[] latencies;
+    final Map<String, Long> errors;
+
+    Report(long nanos, long bytes, long[] latencies, Map<String, Long> errors) {
+      this.requests = latencies.length;
+      this.nanos = nanos;
+      this.bytes = bytes;
+      this.latencies = latencies;
+      this.errors = errors;
+    }
+
+    public long failures() {
+      return errors.values().stream().mapToLong(Long::longValue).sum();
+    }
+
+    public double errorRate() {
+      return requests == 0 ? 0 : (double) failures() / requests;
+    }
+
+    public double requestsPerSecond() {
+      return requests / (nanos / 1e9);
+    }
+
+    /** Returns the latency below which {@code percentile} percent of requests completed. */
+    public double percentileMillis(double percentile) {
+      if (latencies.length == 0) {
+        return 0;
+      }
+      int index = (int) Math.ceil(percentile / 100 * latencies.length) - 1;
+      return latencies[Math.max(0, Math.min(latencies.length - 1, index))] / 1e6;
+    }
+
+    @Override
+    public String toString() {
+      StringBuilder sb = new StringBuilder();
+      sb.append(String.format("%d requests in %.1f s: %.0f requests/s, %.1f MiB/s%n", requests,
+          nanos / 1e9, requestsPerSecond(), bytes / 1048576.0 / (nanos / 1e9)));
+      sb.append(String.format("latency p50 %.1f ms, p90 %.1f ms, p99 %.1f ms, max %.1f ms%n",
+          percentileMillis(50), percentileMillis(90), percentileMillis(99),
+          percentileMillis(100)));
+      sb.append(String.format("errors: %d (%.2f%%)%n", failures(), errorRate() * 100));
+      errors.forEach((error, n) -> sb.append(String.format("  %6d %s%n", n, error)));
+      return sb.toString();
+    }
+  }
+
+  private LoadDriver() {}
+
+  /**
+   * Stores {@code count} random artifacts of {@code size} bytes in {@code server} and returns
+   * their paths in the repository.
+   */
+  public static List<String> seed(FakeArtifactRegistry server, int count, int size, long seed) {
+    Random random = new Random(seed);
+    List<String> paths = new ArrayList<>();
+    for (int i = 0; i < count; i++) {
+      String path = "com/example/load/artifact-" + i + "/1.0/artifact-" + i + "-1.0.jar";
+      byte[] content = new byte[size];
+      random.nextBytes(content);
+      server.put(REPOSITORY_PATH + path, content);
+      paths.add(path);
+    }
+    return paths;
+  }
+
+  /**
+   * Runs {@code wagons} wagons at once, each downloading {@code requestsPerWagon} of
+   * {@code paths} from {@code server}.
+   *
+   * @param authenticate whether wagons send tokens from the server's token endpoint
+   */
+  public static Report run(FakeArtifactRegistry server, List<String> paths, int wagons,
+      int requestsPerWagon, boolean authenticate, long seed) throws Exception {
+    // Like the default credential provider, all wagons share one set of credentials.
+    Credentials credentials = new FakeTokenCredentials(server.tokenUrl());
+    CredentialProvider credentialProvider = commandExecutor -> {
+      if (!authenticate) {
+        throw new IOException("Sending requests without credentials.");
+      }
+      return credentials;
+    };
+    File directory = Files.createTempDirectory("artifactregistry-load").toFile();
+    ConcurrentMap<String, AtomicLong> errors = new ConcurrentHashMap<>();
+    AtomicLong bytes = new AtomicLong();
+    ExecutorService executor = Executors.newFixedThreadPool(wagons);
+    List<Future<long[]>> results = new ArrayList<>();
+    long start = System.nanoTime();
+    try {
+      for (int w = 0; w < wagons; w++) {
+        Random random = new Random(seed + w);
+        File destination = new File(directory, "download-" + w);
+        results.add(executor.submit(() -> {
+          ArtifactRegistryWagon wagon = new ArtifactRegistryWagon();
+          wagon.setHttpTransportFactory(server.transportFactory());
+          wagon.setCredentialProvider(credentialProvider);
+          wagon.connect(new Repository("load", REPOSITORY_URL));
+          long[] latencies = new long[requestsPerWagon];
+          for (int i = 0; i < requestsPerWagon; i++) {
+            String path = paths.get(random.nextInt(paths.size()));
+            long requestStart = System.nanoTime();
+            try {
+              wagon.get(path, destination);
+              bytes.addAndGet(destination.length());
+            } catch (WagonException e) {
+              errors.computeIfAbsent(describe(e), k -> new AtomicLong()).incrementAndGet();
+            }
+            latencies[i] = System.nanoTime() - requestStart;
+          }
+          wagon.disconnect();
+          return latencies;
+        }));
+      }
+      List<long[]> all = new ArrayList<>();
+      int total = 0;
+      for (Future<long[]> result : results) {
+        all.add(result.get());
+        total += requestsPerWagon;
+      }
+      long nanos = System.nanoTime() - start;
+      long[] latencies = new long[total];
+      int offset = 0;
+      for (long[] l : all) {
+        System.arraycopy(l, 0, latencies, offset, l.length);
+        offset += l.length;
+      }
+      Arrays.sort(latencies);
+      Map<String, Long> sortedErrors = new TreeMap<>();
+      errors.forEach((k, v) -> sortedErrors.put(k, v.get()));
+      return new Report(nanos, bytes.get(), latencies, sortedErrors);
+    } finally {
+      executor.shutdownNow();
+      for (int w = 0; w < wagons; w++) {
+        Files.deleteIfExists(new File(directory, "download-" + w).toPath());
+      }
+      Files.deleteIfExists(directory.toPath());
+    }
+  }
+
+  // Names an error by the exception and what caused it, such as an HTTP status.
+  private static String describe(WagonException e) {
+    Throwable cause = e.getCause();
+    String reason;
+    if (cause instanceof HttpResponseException) {
+      reason = "HTTP " + ((HttpResponseException) cause).getStatusCode();
+    } else if (cause != null) {
+      reason = cause.getClass().getSimpleName();
+    } else {
+      reason = e.getMessage();
+    }
+    return e.getClass().getSimpleName() + " (" + reason + ")";
+  }
+
+  public static void main(String[] args) throws Exception {
+    int wagons = 32;
+    int requests = 50;
+    int artifacts = 100;
+    long size = 64 * 1024;
+    long seed = 1;
+    long latencyMs = 20;
+    long jitterMs = 20;
+    double throttle = 0;
+    int retryAfter = 1;
+    double slowBody = 0;
+    int slowBodyRate = 16 * 1024;
+    FakeArtifactRegistry.Faults faults = new FakeArtifactRegistry.Faults();
+    for (String arg : args) {
+      int eq = arg.indexOf('=');
+      String value = eq < 0 ? "" : arg.substring(eq + 1);
+      String name = eq < 0 ? arg : arg.substring(0, eq);
+      try {
+        switch (name) {
+          case "--wagons":
+            wagons = Integer.parseInt(value);
+            break;
+          case "--requests":
+            requests = Integer.parseInt(value);
+            break;
+          case "--artifacts":
+            artifacts = Integer.parseInt(value);
+            break;
+          case "--size":
+            size = ContentStore.parseSize(value);
+            break;
+          case "--latency-ms":
+            latencyMs = Long.parseLong(value);
+            break;
+          case "--jitter-ms":
+            jitterMs = Long.parseLong(value);
+            break;
+          case "--throttle":
+            throttle = Double.parseDouble(value);
+            break;
+          case "--retry-after":
+            retryAfter = Integer.parseInt(value);
+            break;
+          case "--reset":
+            faults.setReset(Double.parseDouble(value));
+            break;
+          case "--server-errors":
+            faults.setServerError(Double.parseDouble(value));
+            break;
+          case "--slow-body":
+            slowBody = Double.parseDouble(value);
+            break;
+          case "--slow-body-rate":
+            slowBodyRate = Integer.parseInt(value);
+            break;
+          case "--token-lifetime":
+            faults.setTokenLifetime(Long.parseLong(value));
+            break;
+          case "--seed":
+            seed = Long.parseLong(value);
+            break;
+          default:
+            System.err.println(USAGE);
+            System.exit(2);
+        }
+      } catch (IllegalArgumentException e) {
+        System.err.println("Invalid value for " + name + ": " + value);
+        System.err.println(USAGE);
+        System.exit(2);
+      }
+    }
+    faults.setLatency(latencyMs, jitterMs)
+        .setThrottle(throttle, retryAfter)
+        .setSlowBody(slowBody, slowBodyRate);
+    FakeArtifactRegistry server = new FakeArtifactRegistry(faults, seed).start();
+    try {
+      List<String> paths = seed(server, artifacts, (int) size, seed);
+      Report report = run(server, paths, wagons, requests,
+          faults.tokenLifetimeSeconds >= 0, seed);
+      System.out.print(report);
+      System.out.println("server: " + server.counters());
+    } finally {
+      server.stop();
+    }
+  }
+}
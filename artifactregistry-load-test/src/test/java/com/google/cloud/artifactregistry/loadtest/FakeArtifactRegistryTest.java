@@ -0,0 +1,125 @@
+/*
+ * Copyright 2026 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.cloud.artifactregistry.loadtest;
+
+import com.google.api.client.http.HttpResponseException;
+import com.google.cloud.artifactregistry.wagon.ArtifactRegistryWagon;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Collections;
+import java.util.List;
+import org.apache.maven.wagon.TransferFailedException;
+import org.apache.maven.wagon.repository.Repository;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+public class FakeArtifactRegistryTest {
+
+  @Rule
+  public TemporaryFolder tmp = new TemporaryFolder();
+
+  private FakeArtifactRegistry server;
+
+  @After
+  public void tearDown() {
+    if (server != null) {
+      server.stop();
+    }
+  }
+
+  @Test
+  public void testServesWagon() throws Exception {
+    ArtifactRegistryWagon wagon = connect(new FakeArtifactRegistry.Faults(), false);
+    server.put("load/repository/my/resource", "test content".getBytes(StandardCharsets.UTF_8));
+    File f = tmp.newFile();
+    wagon.get("my/resource", f);
+    Assert.assertEquals("test content", new String(Files.readAllBytes(f.toPath()),
+        StandardCharsets.UTF_8));
+    Assert.assertTrue(wagon.resourceExists("my/resource"));
+    Assert.assertFalse(wagon.resourceExists("my/other"));
+    wagon.put(f, "my/uploaded");
+    Assert.assertEquals("test content",
+        new String(server.get("load/repository/my/uploaded"), StandardCharsets.UTF_8));
+  }
+
+  @Test
+  public void testThrottle() throws Exception {
+    ArtifactRegistryWagon wagon = connect(new FakeArtifactRegistry.Faults().setThrottle(1, 7),
+        false);
+    server.put("load/repository/my/resource", new byte[1]);
+    try {
+      wagon.get("my/resource", tmp.newFile());
+      Assert.fail("expected the request to be throttled");
+    } catch (TransferFailedException e) {
+      HttpResponseException cause = (HttpResponseException) e.getCause();
+      Assert.assertEquals(429, cause.getStatusCode());
+      Assert.assertEquals("7", cause.getHeaders().getFirstHeaderStringValue("Retry-After"));
+    }
+    Assert.assertEquals(1, server.counters().get("429"));
+  }
+
+  @Test
+  public void testExpiredTokenIsRefreshed() throws Exception {
+    ArtifactRegistryWagon wagon = connect(new FakeArtifactRegistry.Faults().setTokenLifetime(1),
+        true);
+    server.put("load/repository/my/resource", new byte[1]);
+    wagon.get("my/resource", tmp.newFile());
+    Thread.sleep(1100);
+    // The token is rejected, and the request is sent again with a new one.
+    wagon.get("my/resource", tmp.newFile());
+    Assert.assertEquals(2, server.counters().tokensIssued());
+    Assert.assertEquals(1, server.counters().get("401"));
+  }
+
+  @Test
+  public void testLoadDriverReport() throws Exception {
+    server = new FakeArtifactRegistry(new FakeArtifactRegistry.Faults().setServerError(0.25), 1)
+        .start();
+    List<String> paths = LoadDriver.seed(server, 5, 1024, 1);
+    LoadDriver.Report report = LoadDriver.run(server, paths, 4, 25, false, 1);
+    Assert.assertEquals(100, report.requests);
+    Assert.assertEquals(server.counters().get("503"), report.failures());
+    Assert.assertEquals(Collections.singleton("TransferFailedException (HTTP 503)"),
+        report.errors.keySet());
+    Assert.assertEquals((100 - report.failures()) * 1024, report.bytes);
+    Assert.assertTrue(report.percentileMillis(50) <= report.percentileMillis(99));
+  }
+
+  private ArtifactRegistryWagon connect(FakeArtifactRegistry.Faults faults, boolean authenticate)
+      throws Exception {
+    server = new FakeArtifactRegistry(faults, 1).start();
+    ArtifactRegistryWagon wagon = new ArtifactRegistryWagon();
+    wagon.setHttpTransportFactory(server.transportFactory());
+    FakeTokenCredentials credentials = new FakeTokenCredentials(server.tokenUrl());
+    wagon.setCredentialProvider(commandExecutor -> {
+      if (!authenticate) {
+        throw new IOException("no credentials");
+      }
+      return credentials;
+    });
+    wagon.connect(new Repository("load", LoadDriver.REPOSITORY_URL));
+    return wagon;
+  }
+}
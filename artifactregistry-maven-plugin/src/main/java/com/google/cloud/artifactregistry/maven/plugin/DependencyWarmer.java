@@ -0,0 +1,518 @@
+/*
+ * Copyright 2026 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.cloud.artifactregistry.maven.plugin;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import javax.xml.XMLConstants;
+import javax.xml.parsers.DocumentBuilder;
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.parsers.ParserConfigurationException;
+import org.w3c.dom.Element;
+import org.w3c.dom.Node;
+import org.xml.sax.SAXException;
+import org.xml.sax.helpers.DefaultHandler;
+
+/**
+ * DependencyWarmer downloads a list of artifacts, their POMs and their SHA-1 checksums into a local
+ * repository in parallel, so that a following build resolves them without going to the network.
+ * The parent POMs and imported BOMs that the POMs refer to are downloaded as well. Files that are
+ * already in the local repository are skipped.
+ */
+final class DependencyWarmer {
+
+  // The first <packaging> element, which is the project's own as it comes before any plugin
+  // configuration in a POM.
+  private static final Pattern PACKAGING =
+      Pattern.compile("<packaging>\\s*([^<\\s]+)\\s*</packaging>");
+
+  private static final Pattern PROPERTY = Pattern.compile("\\$\\{([^}]+)}");
+
+  // Scopes printed at the end of each line by "mvn dependency:list".
+  private static final Set<String> SCOPES = new HashSet<>(
+      Arrays.asList("compile", "provided", "runtime", "test", "system", "import"));
+
+  /** Downloads files from one remote repository. Called from several threads at once. */
+  interface Fetcher {
+    /** Downloads {@code path} to {@code destination}, returning false if it does not exist. */
+    boolean fetch(String path, File destination) throws IOException;
+  }
+
+  /** The coordinates of an artifact. */
+  static final class Artifact {
+    final String groupId;
+    final String artifactId;
+    final String version;
+    final String classifier;
+    final String extension;
+    // Whether the extension defaulted to jar because the line did not give one. Platforms and
+    // BOMs in a Gradle lockfile have no jar.
+    final boolean extensionInferred;
+
+    Artifact(String groupId, String artifactId, String version, String classifier,
+        String extension, boolean extensionInferred) {
+      this.groupId = groupId;
+      this.artifactId = artifactId;
+      this.version = version;
+      this.classifier = classifier;
+      this.extension = extension;
+      this.extensionInferred = extensionInferred;
+    }
+
+    String path() {
+      return directory() + artifactId + "-" + version
+          + (classifier.isEmpty() ? "" : "-" + classifier) + "." + extension;
+    }
+
+    String pomPath() {
+      return directory() + artifactId + "-" + version + ".pom";
+    }
+
+    private String directory() {
+      return groupId.replace('.', '/') + "/" + artifactId + "/" + version + "/";
+    }
+
+    @Override
+    public String toString() {
+      return groupId + ":" + artifactId + ":" + extension
+          + (classifier.isEmpty() ? "" : ":" + classifier) + ":" + version;
+    }
+  }
+
+  /** What a call to {@link #warm} did. */
+  static final class Result {
+    final int downloaded;
+    final int skipped;
+    final long bytes;
+    final List<String> failures;
+
+    Result(int downloaded, int skipped, long bytes, List<String> failures) {
+      this.downloaded = downloaded;
+      this.skipped = skipped;
+      this.bytes = bytes;
+      this.failures = failures;
+    }
+  }
+
+  private final File localRepository;
+  private final Map<String, Fetcher> repositories;
+  private final int threads;
+  private final AtomicInteger downloaded = new AtomicInteger();
+  private final AtomicInteger skipped = new AtomicInteger();
+  private final AtomicLong bytes = new AtomicLong();
+
+  /**
+   * @param repositories fetchers by repository ID, in the order in which they are tried
+   * @param threads the most files downloaded at once
+   */
+  DependencyWarmer(File localRepository, Map<String, Fetcher> repositories, int threads) {
+    this.localRepository = localRepository;
+    this.repositories = new LinkedHashMap<>(repositories);
+    this.threads = threads;
+  }
+
+  /**
+   * Reads artifact coordinates, one per line, in any of the formats {@code
+   * groupId:artifactId[:extension[:classifier]]:version}, the output of {@code mvn dependency:list}
+   * ({@code groupId:artifactId:type[:classifier]:version:scope}), written to a file or as console
+   * output with its {@code [INFO]} prefixes, or a Gradle lockfile
+   * ({@code group:name:version=configurations}). Blank lines, comments and lines without a colon
+   * are ignored.
+   */
+  static List<Artifact> parse(BufferedReader reader) throws IOException {
+    List<Artifact> artifacts = new ArrayList<>();
+    String line;
+    int number = 0;
+    while ((line = reader.readLine()) != null) {
+      number++;
+      String s = line.trim();
+      // Console output starts with the log level, as in "[INFO]    g:a:jar:1.0:compile".
+      if (s.startsWith("[") && s.indexOf(']') > 0) {
+        s = s.substring(s.indexOf(']') + 1).trim();
+      }
+      // Drop annotations such as " -- module foo" or " (optional)" and Gradle configurations.
+      int end = indexOfAny(s, " \t=");
+      if (end >= 0) {
+        s = s.substring(0, end);
+      }
+      if (s.startsWith("#") || s.indexOf(':') < 0) {
+        continue;
+      }
+      List<String> parts = new ArrayList<>(Arrays.asList(s.split(":", -1)));
+      if (parts.size() >= 5 && SCOPES.contains(parts.get(parts.size() - 1))) {
+        parts.remove(parts.size() - 1);
+      }
+      if (parts.size() < 3 || parts.size() > 5 || parts.contains("")) {
+        throw new IOException("Unrecognized artifact on line " + number + ": " + line.trim());
+      }
+      String type = parts.size() > 3 ? parts.get(2) : "jar";
+      String classifier = parts.size() > 4 ? parts.get(3) : "";
+      if (type.equals("test-jar")) {
+        type = "jar";
+        classifier = classifier.isEmpty() ? "tests" : classifier;
+      } else if (type.equals("maven-plugin") || type.equals("bundle") || type.equals("ejb")) {
+        type = "jar";
+      }
+      artifacts.add(new Artifact(parts.get(0), parts.get(1), parts.get(parts.size() - 1),
+          classifier, type, parts.size() == 3));
+    }
+    return artifacts;
+  }
+
+  /**
+   * Downloads the files of {@code artifacts} that are missing from the local repository. The POM of
+   * each artifact is downloaded first, and an artifact whose extension was not given is skipped
+   * when its POM has {@code pom} packaging. The parent and imported BOMs of every POM are then
+   * downloaded on the same threads, and so on up their own parents.
+   */
+  Result warm(List<Artifact> artifacts) throws InterruptedException {
+    Map<String, List<Artifact>> byPom = new LinkedHashMap<>();
+    for (Artifact artifact : artifacts) {
+      byPom.computeIfAbsent(artifact.pomPath(), pom -> new ArrayList<>()).add(artifact);
+    }
+    ExecutorService executor = Executors.newFixedThreadPool(threads, r -> {
+      Thread t = new Thread(r, "artifactregistry-warmup");
+      t.setDaemon(true);
+      return t;
+    });
+    try {
+      PomWalk walk = new PomWalk(executor);
+      walk.submitted.addAll(byPom.keySet());
+      for (Map.Entry<String, List<Artifact>> pom : byPom.entrySet()) {
+        walk.submit(pom.getKey(), pom.getValue());
+      }
+      List<String> failures = new ArrayList<>();
+      // Downloads add the POMs they refer to before they complete, so the queue is only empty once
+      // every download has been waited for.
+      Map.Entry<String, Future<List<String>>> download;
+      while ((download = walk.downloads.poll()) != null) {
+        try {
+          failures.addAll(download.getValue().get());
+        } catch (ExecutionException e) {
+          failures.add(download.getKey() + ": " + e.getCause().getMessage());
+        }
+      }
+      return new Result(downloaded.get(), skipped.get(), bytes.get(),
+          Collections.unmodifiableList(failures));
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  // The POM downloads of one call to warm, in the order they were started. Each POM is downloaded
+  // once, whether it is listed or referred to by others.
+  private final class PomWalk {
+    final ExecutorService executor;
+    final Set<String> submitted = ConcurrentHashMap.newKeySet();
+    final Queue<Map.Entry<String, Future<List<String>>>> downloads =
+        new ConcurrentLinkedQueue<>();
+
+    PomWalk(ExecutorService executor) {
+      this.executor = executor;
+    }
+
+    void submit(String pomPath, List<Artifact> artifacts) {
+      downloads.add(new AbstractMap.SimpleImmutableEntry<>(pomPath,
+          executor.submit(() -> downloadAll(pomPath, artifacts, this))));
+    }
+
+    // Downloads a POM referred to by another one, unless it is already being downloaded.
+    void follow(String pomPath) {
+      if (submitted.add(pomPath)) {
+        submit(pomPath, Collections.emptyList());
+      }
+    }
+  }
+
+  // Downloads a POM, the POMs it refers to, and then the artifacts described by it, returning the
+  // failures.
+  private List<String> downloadAll(String pomPath, List<Artifact> artifacts, PomWalk walk) {
+    List<String> failures = new ArrayList<>();
+    boolean pomPackaging = false;
+    try {
+      download(pomPath);
+      File pom = new File(localRepository, pomPath);
+      pomPackaging = "pom".equals(packagingOf(pom));
+      for (String reference : referencesOf(pom)) {
+        walk.follow(reference);
+      }
+    } catch (IOException e) {
+      failures.add(pomPath + ": " + e.getMessage());
+    }
+    Set<String> paths = new LinkedHashSet<>();
+    for (Artifact artifact : artifacts) {
+      if (!(artifact.extensionInferred && pomPackaging)) {
+        paths.add(artifact.path());
+      }
+    }
+    paths.remove(pomPath);
+    for (String path : paths) {
+      try {
+        download(path);
+      } catch (IOException e) {
+        failures.add(path + ": " + e.getMessage());
+      }
+    }
+    return failures;
+  }
+
+  // Returns the packaging declared by a POM, which is jar when it declares none.
+  private static String packagingOf(File pom) throws IOException {
+    String content = new String(Files.readAllBytes(pom.toPath()), StandardCharsets.UTF_8);
+    Matcher matcher = PACKAGING.matcher(content);
+    return matcher.find() ? matcher.group(1) : "jar";
+  }
+
+  /**
+   * Returns the paths of the POMs that a POM refers to: its parent, and the BOMs it imports into its
+   * dependency management. Coordinates may use the properties of the POM itself; references that
+   * need anything else, such as properties inherited from the parent, are left out, as is
+   * everything in a POM that cannot be parsed.
+   */
+  static List<String> referencesOf(File pom) throws IOException {
+    Element project;
+    try {
+      DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
+      factory.setFeature(XMLConstants.FEATURE_SECURE_PROCESSING, true);
+      factory.setFeature("http://apache.org/xml/features/disallow-doctype-decl", true);
+      DocumentBuilder builder = factory.newDocumentBuilder();
+      // Report malformed POMs by throwing only, rather than also on standard error.
+      builder.setErrorHandler(new DefaultHandler());
+      project = builder.parse(pom).getDocumentElement();
+    } catch (ParserConfigurationException | SAXException e) {
+      return Collections.emptyList();
+    }
+    Element parent = child(project, "parent");
+    Map<String, String> properties = new HashMap<>();
+    Element declared = child(project, "properties");
+    if (declared != null) {
+      for (Element property : children(declared)) {
+        properties.put(property.getTagName(), property.getTextContent().trim());
+      }
+    }
+    properties.put("project.groupId", textOr(child(project, "groupId"), text(parent, "groupId")));
+    properties.put("project.artifactId", text(project, "artifactId"));
+    properties.put("project.version", textOr(child(project, "version"), text(parent, "version")));
+    properties.put("project.parent.groupId", text(parent, "groupId"));
+    properties.put("project.parent.version", text(parent, "version"));
+
+    List<String> references = new ArrayList<>();
+    addReference(references, parent, properties);
+    Element dependencies = child(child(project, "dependencyManagement"), "dependencies");
+    for (Element dependency : children(dependencies)) {
+      if ("pom".equals(text(dependency, "type")) && "import".equals(text(dependency, "scope"))) {
+        addReference(references, dependency, properties);
+      }
+    }
+    return references;
+  }
+
+  private static void addReference(
+      List<String> references, Element coordinates, Map<String, String> properties) {
+    String groupId = interpolate(text(coordinates, "groupId"), properties);
+    String artifactId = interpolate(text(coordinates, "artifactId"), properties);
+    String version = interpolate(text(coordinates, "version"), properties);
+    if (groupId != null && artifactId != null && version != null) {
+      references.add(new Artifact(groupId, artifactId, version, "", "pom", false).pomPath());
+    }
+  }
+
+  // Replaces the properties in value, returning null if any of them is not known.
+  private static String interpolate(String value, Map<String, String> properties) {
+    // Properties may refer to other properties, but not endlessly.
+    for (int depth = 0; value != null && value.contains("${") && depth < 10; depth++) {
+      Matcher matcher = PROPERTY.matcher(value);
+      StringBuffer result = new StringBuffer();
+      while (matcher.find()) {
+        String replacement = properties.get(matcher.group(1));
+        if (replacement == null) {
+          return null;
+        }
+        matcher.appendReplacement(result, Matcher.quoteReplacement(replacement));
+      }
+      matcher.appendTail(result);
+      value = result.toString();
+    }
+    return value == null || value.isEmpty() || value.contains("${") ? null : value;
+  }
+
+  // Returns the first child element of parent called name, or null.
+  private static Element child(Element parent, String name) {
+    for (Element child : children(parent)) {
+      if (child.getTagName().equals(name)) {
+        return child;
+      }
+    }
+    return null;
+  }
+
+  private static List<Element> children(Element parent) {
+    List<Element> children = new ArrayList<>();
+    if (parent != null) {
+      for (Node node = parent.getFirstChild(); node != null; node = node.getNextSibling()) {
+        if (node instanceof Element) {
+          children.add((Element) node);
+        }
+      }
+    }
+    return children;
+  }
+
+  // Returns the trimmed text of the child element of parent called name, or null.
+  private static String text(Element parent, String name) {
+    Element child = child(parent, name);
+    return child == null ? null : child.getTextContent().trim();
+  }
+
+  // Returns the trimmed text of element, or fallback if there is no element.
+  private static String textOr(Element element, String fallback) {
+    return element == null ? fallback : element.getTextContent().trim();
+  }
+
+  private void download(String path) throws IOException {
+    File target = new File(localRepository, path);
+    if (target.isFile()) {
+      skipped.incrementAndGet();
+      return;
+    }
+    File directory = target.getParentFile();
+    if (!directory.isDirectory() && !directory.mkdirs() && !directory.isDirectory()) {
+      throw new IOException("Failed to create " + directory);
+    }
+    // Files are downloaded next to their target and moved into place once verified, so that a
+    // build never sees a partial file.
+    File file = File.createTempFile(target.getName() + "-", ".part", directory);
+    File checksum = new File(file.getPath() + ".sha1");
+    try {
+      for (Map.Entry<String, Fetcher> repository : repositories.entrySet()) {
+        Fetcher fetcher = repository.getValue();
+        if (!fetcher.fetch(path, file)) {
+          continue;
+        }
+        boolean hasChecksum = fetcher.fetch(path + ".sha1", checksum);
+        if (hasChecksum) {
+          verify(file, checksum);
+        }
+        move(file, target);
+        if (hasChecksum) {
+          move(checksum, new File(target.getPath() + ".sha1"));
+        }
+        recordOrigin(target, repository.getKey());
+        downloaded.incrementAndGet();
+        bytes.addAndGet(target.length());
+        return;
+      }
+      throw new IOException("Not found in " + String.join(", ", repositories.keySet()));
+    } finally {
+      Files.deleteIfExists(file.toPath());
+      Files.deleteIfExists(checksum.toPath());
+    }
+  }
+
+  private static void verify(File file, File checksum) throws IOException {
+    String expected = new String(Files.readAllBytes(checksum.toPath()), StandardCharsets.UTF_8)
+        .trim().split("\\s+")[0].toLowerCase(Locale.ROOT);
+    MessageDigest md;
+    try {
+      md = MessageDigest.getInstance("SHA-1");
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException("SHA-1 is not available.", e);
+    }
+    byte[] buf = new byte[0x10000];
+    try (InputStream in = new FileInputStream(file)) {
+      int n;
+      while ((n = in.read(buf)) != -1) {
+        md.update(buf, 0, n);
+      }
+    }
+    StringBuilder actual = new StringBuilder();
+    for (byte b : md.digest()) {
+      actual.append(String.format("%02x", b));
+    }
+    if (!actual.toString().equals(expected)) {
+      throw new IOException("Checksum mismatch: expected " + expected + " but was " + actual);
+    }
+  }
+
+  private static void move(File from, File to) throws IOException {
+    try {
+      Files.move(from.toPath(), to.toPath(), StandardCopyOption.ATOMIC_MOVE);
+    } catch (AtomicMoveNotSupportedException e) {
+      Files.move(from.toPath(), to.toPath(), StandardCopyOption.REPLACE_EXISTING);
+    }
+  }
+
+  // Maven only uses a downloaded file for the repositories listed next to it in
+  // _remote.repositories, in the format of its enhanced local repository manager.
+  private static synchronized void recordOrigin(File file, String repositoryId)
+      throws IOException {
+    File record = new File(file.getParentFile(), "_remote.repositories");
+    boolean exists = record.isFile();
+    try (Writer writer = new OutputStreamWriter(
+        new FileOutputStream(record, true), StandardCharsets.UTF_8)) {
+      if (!exists) {
+        writer.write("#NOTE: This is a Maven Resolver internal implementation file, its format can"
+            + " be changed without prior notice.\n");
+      }
+      writer.write(file.getName() + ">" + repositoryId + "=\n");
+    }
+  }
+
+  private static int indexOfAny(String s, String chars) {
+    for (int i = 0; i < s.length(); i++) {
+      if (chars.indexOf(s.charAt(i)) >= 0) {
+        return i;
+      }
+    }
+    return -1;
+  }
+}
@@ -0,0 +1,175 @@
+/*
+ * Copyright 2026 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.cloud.artifactregistry.maven.plugin;
+
+import com.google.cloud.artifactregistry.wagon.ArtifactRegistryWagon;
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import org.apache.maven.artifact.repository.ArtifactRepository;
+import org.apache.maven.plugin.AbstractMojo;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugin.MojoFailureException;
+import org.apache.maven.wagon.ResourceDoesNotExistException;
+import org.apache.maven.wagon.WagonException;
+import org.apache.maven.wagon.repository.Repository;
+
+/**
+ * WarmupMojo implements the {@code warmup} goal, which downloads every artifact listed in a file
+ * from Artifact Registry into the local repository in parallel. Its parameters are described in
+ * {@code META-INF/maven/plugin.xml}.
+ */
+public class WarmupMojo extends AbstractMojo {
+
+  private File file;
+  private String repositories;
+  private List<ArtifactRepository> remoteRepositories;
+  private File localRepository;
+  private int threads;
+  private boolean skip;
+
+  @Override
+  public void execute() throws MojoExecutionException, MojoFailureException {
+    if (skip) {
+      getLog().info("Skipping the warm-up.");
+      return;
+    }
+    List<DependencyWarmer.Artifact> artifacts;
+    try (BufferedReader reader = Files.newBufferedReader(file.toPath(), StandardCharsets.UTF_8)) {
+      artifacts = DependencyWarmer.parse(reader);
+    } catch (IOException e) {
+      throw new MojoExecutionException("Failed to read " + file + ": " + e.getMessage(), e);
+    }
+    Map<String, WagonFetcher> fetchers = new LinkedHashMap<>();
+    for (Repository repository : repositories()) {
+      if (fetchers.put(repository.getId(), new WagonFetcher(repository)) != null) {
+        throw new MojoFailureException("Repository " + repository.getId() + " is listed twice.");
+      }
+    }
+    if (fetchers.isEmpty()) {
+      throw new MojoFailureException("No artifactregistry:// repositories to download from. "
+          + "List them in the artifactregistry.warmup.repositories property.");
+    }
+    long start = System.nanoTime();
+    DependencyWarmer.Result result;
+    try {
+      result = new DependencyWarmer(localRepository, new LinkedHashMap<>(fetchers), threads)
+          .warm(artifacts);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new MojoExecutionException("Interrupted while downloading artifacts.", e);
+    } finally {
+      for (WagonFetcher fetcher : fetchers.values()) {
+        fetcher.close();
+      }
+    }
+    getLog().info(String.format("Downloaded %d files (%d KiB) and skipped %d in %d ms.",
+        result.downloaded, result.bytes / 1024, result.skipped,
+        TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start)));
+    for (String failure : result.failures) {
+      getLog().warn("Failed to download " + failure);
+    }
+    if (!result.failures.isEmpty()) {
+      throw new MojoFailureException(
+          "Failed to download " + result.failures.size() + " files, see above.");
+    }
+  }
+
+  // The repositories given on the command line, or otherwise the Artifact Registry repositories
+  // of the project.
+  private List<Repository> repositories() {
+    List<Repository> result = new ArrayList<>();
+    if (repositories != null && !repositories.trim().isEmpty()) {
+      // Each entry is "id::url". The ID must match the one the build uses, as Maven only uses a
+      // downloaded file for the repository it was recorded as coming from.
+      for (String entry : repositories.split(",")) {
+        String s = entry.trim();
+        int separator = s.indexOf("::");
+        if (separator > 0) {
+          result.add(new Repository(s.substring(0, separator), s.substring(separator + 2)));
+        } else if (!s.isEmpty()) {
+          result.add(new Repository("artifact-registry", s));
+        }
+      }
+    } else if (remoteRepositories != null) {
+      for (ArtifactRepository repository : remoteRepositories) {
+        if (repository.getUrl().startsWith("artifactregistry://")) {
+          result.add(new Repository(repository.getId(), repository.getUrl()));
+        }
+      }
+    }
+    return result;
+  }
+
+  // Downloads through a pool of wagons, as a wagon transfers one file at a time. The pool never
+  // grows beyond the number of threads calling it.
+  private static final class WagonFetcher implements DependencyWarmer.Fetcher {
+
+    private final Repository repository;
+    private final BlockingQueue<ArtifactRegistryWagon> idle = new LinkedBlockingQueue<>();
+
+    WagonFetcher(Repository repository) {
+      this.repository = repository;
+    }
+
+    @Override
+    public boolean fetch(String path, File destination) throws IOException {
+      ArtifactRegistryWagon wagon = idle.poll();
+      try {
+        if (wagon == null) {
+          wagon = connect();
+        }
+        wagon.get(path, destination);
+        return true;
+      } catch (ResourceDoesNotExistException e) {
+        return false;
+      } catch (WagonException e) {
+        throw new IOException(e.getMessage(), e);
+      } finally {
+        if (wagon != null) {
+          idle.offer(wagon);
+        }
+      }
+    }
+
+    private ArtifactRegistryWagon connect() throws WagonException {
+      ArtifactRegistryWagon wagon = new ArtifactRegistryWagon();
+      wagon.connect(repository);
+      return wagon;
+    }
+
+    void close() {
+      ArtifactRegistryWagon wagon;
+      while ((wagon = idle.poll()) != null) {
+        try {
+          wagon.disconnect();
+        } catch (WagonException e) {
+          // Nothing is left to transfer.
+        }
+      }
+    }
+  }
+}
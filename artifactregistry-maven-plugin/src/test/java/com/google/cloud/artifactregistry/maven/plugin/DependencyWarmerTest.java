@@ -0,0 +1,238 @@
+/*
+ * Copyright 2026 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.cloud.artifactregistry.maven.plugin;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+public class DependencyWarmerTest {
+
+  @Rule
+  public TemporaryFolder tmp = new TemporaryFolder();
+
+  @Test
+  public void testParse() throws Exception {
+    List<DependencyWarmer.Artifact> artifacts = parse(
+        "# a comment\n"
+            + "com.example:plain:1.0\n"
+            + "com.example:typed:pom:2.0\n"
+            + "com.example:classified:jar:sources:3.0\n"
+            + "\n"
+            + "The following files have been resolved:\n"
+            + "   com.example:listed:jar:4.0:compile -- module listed\n"
+            + "   com.example:tests:test-jar:5.0:test\n"
+            + "com.example:locked:6.0=compileClasspath,runtimeClasspath\n"
+            + "empty=annotationProcessor\n");
+    Assert.assertEquals(6, artifacts.size());
+    Assert.assertEquals("com/example/plain/1.0/plain-1.0.jar", artifacts.get(0).path());
+    Assert.assertEquals("com/example/typed/2.0/typed-2.0.pom", artifacts.get(1).path());
+    Assert.assertEquals("com/example/classified/3.0/classified-3.0-sources.jar",
+        artifacts.get(2).path());
+    Assert.assertEquals("com/example/classified/3.0/classified-3.0.pom",
+        artifacts.get(2).pomPath());
+    Assert.assertEquals("com/example/listed/4.0/listed-4.0.jar", artifacts.get(3).path());
+    Assert.assertEquals("com/example/tests/5.0/tests-5.0-tests.jar", artifacts.get(4).path());
+    Assert.assertEquals("com/example/locked/6.0/locked-6.0.jar", artifacts.get(5).path());
+  }
+
+  @Test
+  public void testParseConsoleOutput() throws Exception {
+    List<DependencyWarmer.Artifact> artifacts = parse(
+        "[INFO] Scanning for projects...\n"
+            + "[INFO] --- dependency:3.6.1:list (default-cli) @ app ---\n"
+            + "[INFO] \n"
+            + "[INFO] The following files have been resolved:\n"
+            + "[INFO]    com.example:listed:jar:4.0:compile -- module listed\n"
+            + "[INFO]    com.example:bom:pom:5.0:import\n"
+            + "[INFO] Finished at: 2026-10-19T10:00:00Z\n");
+    Assert.assertEquals(2, artifacts.size());
+    Assert.assertEquals("com/example/listed/4.0/listed-4.0.jar", artifacts.get(0).path());
+    Assert.assertEquals("com/example/bom/5.0/bom-5.0.pom", artifacts.get(1).path());
+  }
+
+  @Test(expected = IOException.class)
+  public void testParseRejectsMalformedLines() throws Exception {
+    parse("com.example:only-two\n");
+  }
+
+  @Test
+  public void testWarm() throws Exception {
+    Map<String, String> remote = new HashMap<>();
+    remote.put("com/example/a/1.0/a-1.0.jar", "jar");
+    remote.put("com/example/a/1.0/a-1.0.jar.sha1", "f92e777f4341930bad9b2422283c4680d00dbc06\n");
+    remote.put("com/example/a/1.0/a-1.0.pom", "pom");
+    File local = tmp.newFolder("repository");
+    File existing = new File(local, "com/example/b/1.0/b-1.0.pom");
+    existing.getParentFile().mkdirs();
+    Files.write(existing.toPath(), "old".getBytes(StandardCharsets.UTF_8));
+    Map<String, String> mirror = new HashMap<>();
+    mirror.put("com/example/b/1.0/b-1.0.jar", "b");
+
+    Map<String, DependencyWarmer.Fetcher> repositories = new LinkedHashMap<>();
+    repositories.put("remote", fetcher(remote));
+    repositories.put("mirror", fetcher(mirror));
+    DependencyWarmer.Result result = new DependencyWarmer(local, repositories, 4)
+        .warm(parse("com.example:a:1.0\ncom.example:b:1.0\n"));
+
+    Assert.assertEquals(Collections.emptyList(), result.failures);
+    Assert.assertEquals(3, result.downloaded);
+    Assert.assertEquals(1, result.skipped);
+    Assert.assertEquals("jar", read(new File(local, "com/example/a/1.0/a-1.0.jar")));
+    Assert.assertTrue(new File(local, "com/example/a/1.0/a-1.0.jar.sha1").isFile());
+    Assert.assertEquals("old", read(existing));
+    Assert.assertTrue(read(new File(local, "com/example/a/1.0/_remote.repositories"))
+        .contains("a-1.0.jar>remote=\n"));
+    Assert.assertTrue(read(new File(local, "com/example/b/1.0/_remote.repositories"))
+        .contains("b-1.0.jar>mirror=\n"));
+  }
+
+  @Test
+  public void testWarmReportsFailures() throws Exception {
+    Map<String, String> remote = new HashMap<>();
+    remote.put("com/example/a/1.0/a-1.0.jar", "tampered");
+    remote.put("com/example/a/1.0/a-1.0.jar.sha1", "f92e777f4341930bad9b2422283c4680d00dbc06");
+    File local = tmp.newFolder("repository");
+
+    DependencyWarmer.Result result =
+        new DependencyWarmer(local, Collections.singletonMap("remote", fetcher(remote)), 2)
+            .warm(parse("com.example:a:1.0\n"));
+
+    Assert.assertEquals(2, result.failures.size());
+    Assert.assertTrue(result.failures.get(0),
+        result.failures.get(0).startsWith("com/example/a/1.0/a-1.0.pom: Not found"));
+    Assert.assertTrue(result.failures.get(1),
+        result.failures.get(1).contains("Checksum mismatch"));
+    // Nothing is left behind for a build to pick up.
+    Assert.assertEquals(0, new File(local, "com/example/a/1.0").list().length);
+  }
+
+  @Test
+  public void testWarmSkipsJarOfPomPackaging() throws Exception {
+    Map<String, String> remote = new HashMap<>();
+    remote.put("com/example/platform/1.0/platform-1.0.pom",
+        "<project><packaging> pom </packaging></project>");
+    remote.put("com/example/lib/1.0/lib-1.0.pom",
+        "<project><packaging>bundle</packaging></project>");
+    remote.put("com/example/lib/1.0/lib-1.0.jar", "jar");
+    File local = tmp.newFolder("repository");
+
+    DependencyWarmer.Result result =
+        new DependencyWarmer(local, Collections.singletonMap("remote", fetcher(remote)), 2)
+            .warm(parse("com.example:platform:1.0=compileClasspath\n"
+                + "com.example:lib:1.0=compileClasspath\n"));
+
+    Assert.assertEquals(Collections.emptyList(), result.failures);
+    Assert.assertEquals(3, result.downloaded);
+    Assert.assertFalse(new File(local, "com/example/platform/1.0/platform-1.0.jar").exists());
+    Assert.assertEquals("jar", read(new File(local, "com/example/lib/1.0/lib-1.0.jar")));
+  }
+
+  @Test
+  public void testWarmFollowsParentsAndImportedBoms() throws Exception {
+    Map<String, String> remote = new HashMap<>();
+    remote.put("com/example/app/1.0/app-1.0.pom", "<project>\n"
+        + "  <parent>\n"
+        + "    <groupId>com.example</groupId><artifactId>parent</artifactId><version>1.0</version>\n"
+        + "  </parent>\n"
+        + "  <artifactId>app</artifactId>\n"
+        + "  <properties><bom.version>2.0</bom.version></properties>\n"
+        + "  <dependencyManagement><dependencies>\n"
+        + "    <dependency>\n"
+        + "      <groupId>${project.groupId}</groupId><artifactId>bom</artifactId>\n"
+        + "      <version>${bom.version}</version><type>pom</type><scope>import</scope>\n"
+        + "    </dependency>\n"
+        + "    <dependency>\n"
+        + "      <groupId>com.example</groupId><artifactId>inherited</artifactId>\n"
+        + "      <version>${inherited.version}</version><type>pom</type><scope>import</scope>\n"
+        + "    </dependency>\n"
+        + "    <dependency>\n"
+        + "      <groupId>com.example</groupId><artifactId>managed</artifactId>\n"
+        + "      <version>3.0</version>\n"
+        + "    </dependency>\n"
+        + "  </dependencies></dependencyManagement>\n"
+        + "</project>");
+    remote.put("com/example/app/1.0/app-1.0.jar", "jar");
+    remote.put("com/example/parent/1.0/parent-1.0.pom", "<project><parent>"
+        + "<groupId>com.example</groupId><artifactId>root</artifactId><version>1</version>"
+        + "</parent></project>");
+    remote.put("com/example/root/1/root-1.pom", "<project/>");
+    remote.put("com/example/bom/2.0/bom-2.0.pom", "<project><parent>"
+        + "<groupId>com.example</groupId><artifactId>root</artifactId><version>1</version>"
+        + "</parent></project>");
+    File local = tmp.newFolder("repository");
+
+    DependencyWarmer.Result result =
+        new DependencyWarmer(local, Collections.singletonMap("remote", fetcher(remote)), 2)
+            .warm(parse("com.example:app:1.0\n"));
+
+    Assert.assertEquals(Collections.emptyList(), result.failures);
+    Assert.assertEquals(5, result.downloaded);
+    Assert.assertTrue(new File(local, "com/example/parent/1.0/parent-1.0.pom").isFile());
+    Assert.assertTrue(new File(local, "com/example/root/1/root-1.pom").isFile());
+    Assert.assertTrue(new File(local, "com/example/bom/2.0/bom-2.0.pom").isFile());
+  }
+
+  @Test
+  public void testWarmKeepsExplicitExtension() throws Exception {
+    Map<String, String> remote = new HashMap<>();
+    remote.put("com/example/a/1.0/a-1.0.pom", "<project><packaging>pom</packaging></project>");
+    File local = tmp.newFolder("repository");
+
+    DependencyWarmer.Result result =
+        new DependencyWarmer(local, Collections.singletonMap("remote", fetcher(remote)), 2)
+            .warm(parse("com.example:a:jar:1.0\n"));
+
+    Assert.assertEquals(1, result.failures.size());
+    Assert.assertTrue(result.failures.get(0),
+        result.failures.get(0).startsWith("com/example/a/1.0/a-1.0.jar: Not found"));
+  }
+
+  private static List<DependencyWarmer.Artifact> parse(String s) throws IOException {
+    return DependencyWarmer.parse(new BufferedReader(new StringReader(s)));
+  }
+
+  private static DependencyWarmer.Fetcher fetcher(Map<String, String> files) {
+    return (path, destination) -> {
+      String content = files.get(path);
+      if (content == null) {
+        return false;
+      }
+      Files.write(destination.toPath(), content.getBytes(StandardCharsets.UTF_8));
+      return true;
+    };
+  }
+
+  private static String read(File file) throws IOException {
+    return new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8);
+  }
+}
@@ -0,0 +1,398 @@
+/*
+ * Copyright 2026 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.cloud.artifactregistry.proxy;
+
+import com.google.cloud.artifactregistry.wagon.ArtifactRegistryWagon;
+import com.google.cloud.artifactregistry.wagon.ContentStore;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import org.apache.maven.wagon.ResourceDoesNotExistException;
+import org.apache.maven.wagon.WagonException;
+import org.apache.maven.wagon.authorization.AuthorizationException;
+import org.apache.maven.wagon.repository.Repository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * ArtifactRegistryProxy is a read-through cache for Artifact Registry Maven repositories. It serves
+ * {@code http://localhost:PORT/HOST/PROJECT/REPOSITORY/...} from a content-addressed on-disk cache
+ * and fetches misses from {@code https://HOST/PROJECT/REPOSITORY/...} with the credentials of the
+ * host it runs on, so that many builds on one machine share one cache and one access token.
+ */
+public final class ArtifactRegistryProxy {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(ArtifactRegistryProxy.class);
+
+  private static final String USAGE = "Usage: ArtifactRegistryProxy [--port=8080] "
+      + "[--cache-dir=DIR] [--max-size=10g] [--metadata-ttl=60] [--threads=32] "
+      + "[--allowed-hosts=HOST,...]";
+
+  // Upstream hosts are Artifact Registry hosts such as us-west1-maven.pkg.dev unless configured.
+  private static final String REGISTRY_DOMAIN = ".pkg.dev";
+
+  private final ContentStore store;
+  private final Path index;
+  private final long metadataTtlMs;
+  private final Upstream upstream;
+  private Set<String> allowedHosts = Collections.emptySet();
+  private HttpServer server;
+  private ExecutorService executor;
+
+  /**
+   * Creates a proxy whose cache lives in {@code cacheDir}.
+   *
+   * @param maxBytes the cache size above which least recently used bodies are evicted, or 0 for no
+   *     limit
+   * @param metadataTtl how long {@code maven-metadata.xml} files and snapshots are served from the
+   *     cache before they are fetched again
+   */
+  public ArtifactRegistryProxy(Path cacheDir, long maxBytes, Duration metadataTtl)
+      throws IOException {
+    this(cacheDir, maxBytes, metadataTtl, new WagonUpstream());
+  }
+
+  ArtifactRegistryProxy(Path cacheDir, long maxBytes, Duration metadataTtl, Upstream upstream)
+      throws IOException {
+    this.store = new ContentStore(cacheDir.resolve("content"), maxBytes);
+    this.index = cacheDir.resolve("paths");
+    this.metadataTtlMs = metadataTtl.toMillis();
+    this.upstream = upstream;
+  }
+
+  /** Fetches files from the upstream repositories. Called from several threads at once. */
+  interface Upstream {
+    /** Downloads {@code artifactPath} of {@code repositoryUrl} to {@code destination}. */
+    void get(String repositoryUrl, String artifactPath, File destination) throws WagonException;
+  }
+
+  /**
+   * Allows fetching from {@code hosts} in addition to Artifact Registry hosts, which end in
+   * {@code .pkg.dev}. The proxy sends the access token of the machine to every upstream host, so
+   * only hosts that are trusted with it may be listed.
+   */
+  public void setAllowedHosts(Collection<String> hosts) {
+    Set<String> allowed = new HashSet<>();
+    for (String host : hosts) {
+      allowed.add(host.trim().toLowerCase(Locale.ROOT));
+    }
+    this.allowedHosts = allowed;
+  }
+
+  /** Starts serving on {@code port} of the loopback interface. */
+  public void start(int port, int threads) throws IOException {
+    server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+    executor = Executors.newFixedThreadPool(threads);
+    server.setExecutor(executor);
+    server.createContext("/", this::handle);
+    server.start();
+    LOGGER.info("Serving Artifact Registry proxy on {}", server.getAddress());
+  }
+
+  /** Returns the port the proxy is listening on. */
+  public int getPort() {
+    return server.getAddress().getPort();
+  }
+
+  public void stop() {
+    server.stop(0);
+    executor.shutdownNow();
+  }
+
+  private void handle(HttpExchange exchange) throws IOException {
+    try {
+      String method = exchange.getRequestMethod();
+      if (!method.equals("GET") && !method.equals("HEAD")) {
+        sendError(exchange, 405, "Only GET and HEAD are supported.");
+        return;
+      }
+      // A web page that rebinds its own host name to the loopback address can reach the proxy,
+      // but still sends its own name in the Host header.
+      if (!isLoopback(exchange.getRequestHeaders().getFirst("Host"))) {
+        sendError(exchange, 403, "Requests must be addressed to localhost.");
+        return;
+      }
+      String[] segments = exchange.getRequestURI().getPath().split("/", 5);
+      if (segments.length < 5 || !isValidPath(segments)) {
+        sendError(exchange, 404, "Expected a path of the form /HOST/PROJECT/REPOSITORY/ARTIFACT.");
+        return;
+      }
+      if (!isAllowedHost(segments[1])) {
+        sendError(exchange, 403, "Fetching from " + segments[1] + " is not allowed.");
+        return;
+      }
+      String repositoryUrl = "artifactregistry://" + segments[1] + "/" + segments[2] + "/"
+          + segments[3];
+      String artifactPath = segments[4];
+      Path pointer = index.resolve(segments[1]).resolve(segments[2]).resolve(segments[3])
+          .resolve(artifactPath);
+
+      // The body is opened once and served from that handle, so that evicting it from the cache
+      // meanwhile cannot change or cut short the response. One evicted before it was opened is
+      // fetched again.
+      FileChannel body = open(lookup(pointer, artifactPath));
+      if (body == null) {
+        try {
+          body = FileChannel.open(fetch(repositoryUrl, artifactPath, pointer),
+              StandardOpenOption.READ);
+        } catch (ResourceDoesNotExistException e) {
+          sendError(exchange, 404, e.getMessage());
+          return;
+        } catch (AuthorizationException e) {
+          sendError(exchange, 403, e.getMessage());
+          return;
+        } catch (WagonException e) {
+          LOGGER.warn("Failed to fetch {}/{}", repositoryUrl, artifactPath, e);
+          sendError(exchange, 502, e.getMessage());
+          return;
+        }
+      }
+
+      try (FileChannel in = body) {
+        long size = in.size();
+        if (method.equals("HEAD")) {
+          exchange.getResponseHeaders().set("Content-Length", Long.toString(size));
+          exchange.sendResponseHeaders(200, -1);
+        } else {
+          exchange.sendResponseHeaders(200, size);
+          try (OutputStream out = exchange.getResponseBody()) {
+            copy(in, size, out);
+          }
+        }
+      }
+    } catch (IOException | RuntimeException e) {
+      LOGGER.warn("Failed to serve {}", exchange.getRequestURI(), e);
+      throw e;
+    } finally {
+      exchange.close();
+    }
+  }
+
+  // Opens a cached body for reading, returning null if there is none or it is already gone.
+  private static FileChannel open(Path body) throws IOException {
+    if (body == null) {
+      return null;
+    }
+    try {
+      return FileChannel.open(body, StandardOpenOption.READ);
+    } catch (NoSuchFileException e) {
+      return null;
+    }
+  }
+
+  private static void copy(FileChannel in, long size, OutputStream out) throws IOException {
+    WritableByteChannel target = Channels.newChannel(out);
+    long position = 0;
+    while (position < size) {
+      long n = in.transferTo(position, size - position, target);
+      if (n <= 0) {
+        throw new EOFException("Cached body ended after " + position + " of " + size + " bytes.");
+      }
+      position += n;
+    }
+  }
+
+  // Returns the cached body for the artifact, or null if it has to be fetched.
+  private Path lookup(Path pointer, String artifactPath) throws IOException {
+    if (!Files.exists(pointer)) {
+      return null;
+    }
+    if (isMutable(artifactPath)
+        && Files.getLastModifiedTime(pointer).toMillis() + metadataTtlMs
+        < System.currentTimeMillis()) {
+      return null;
+    }
+    String digest = new String(Files.readAllBytes(pointer), StandardCharsets.US_ASCII).trim();
+    return store.get(digest);
+  }
+
+  private Path fetch(String repositoryUrl, String artifactPath, Path pointer)
+      throws IOException, WagonException {
+    Path download = store.newTempFile();
+    try {
+      upstream.get(repositoryUrl, artifactPath, download.toFile());
+    } catch (WagonException e) {
+      Files.deleteIfExists(download);
+      throw e;
+    }
+    String digest = store.put(download);
+
+    Files.createDirectories(pointer.getParent());
+    Path tmpPointer = Files.createTempFile(pointer.getParent(), ".pointer-", ".tmp");
+    Files.write(tmpPointer, digest.getBytes(StandardCharsets.US_ASCII));
+    Files.move(tmpPointer, pointer, StandardCopyOption.REPLACE_EXISTING,
+        StandardCopyOption.ATOMIC_MOVE);
+
+    Path body = store.get(digest);
+    if (body == null) {
+      throw new IOException("Content for " + artifactPath + " was evicted before it was served.");
+    }
+    return body;
+  }
+
+  // Fetches through the wagon. Wagons are not thread-safe, so each handler thread keeps one per
+  // upstream repository.
+  private static final class WagonUpstream implements Upstream {
+
+    private final ThreadLocal<Map<String, ArtifactRegistryWagon>> wagons =
+        ThreadLocal.withInitial(HashMap::new);
+
+    @Override
+    public void get(String repositoryUrl, String artifactPath, File destination)
+        throws WagonException {
+      Map<String, ArtifactRegistryWagon> threadWagons = wagons.get();
+      ArtifactRegistryWagon wagon = threadWagons.get(repositoryUrl);
+      if (wagon == null) {
+        wagon = new ArtifactRegistryWagon();
+        wagon.setCoalesceRequests(true);
+        wagon.connect(new Repository(repositoryUrl, repositoryUrl));
+        threadWagons.put(repositoryUrl, wagon);
+      }
+      wagon.get(artifactPath, destination);
+    }
+  }
+
+  private boolean isAllowedHost(String host) {
+    String h = host.toLowerCase(Locale.ROOT);
+    // Only a plain host name, so that no port or user information can be smuggled into the URL.
+    for (int i = 0; i < h.length(); i++) {
+      char c = h.charAt(i);
+      if (!(c >= 'a' && c <= 'z') && !(c >= '0' && c <= '9') && c != '-' && c != '.') {
+        return false;
+      }
+    }
+    return (h.endsWith(REGISTRY_DOMAIN) && h.length() > REGISTRY_DOMAIN.length())
+        || allowedHosts.contains(h);
+  }
+
+  // Returns whether a Host header names the loopback interface, with or without a port.
+  private static boolean isLoopback(String host) {
+    if (host == null) {
+      return false;
+    }
+    String h = host.trim().toLowerCase(Locale.ROOT);
+    int colon = h.lastIndexOf(':');
+    if (colon >= 0 && h.indexOf(']') < colon) {
+      h = h.substring(0, colon);
+    }
+    return h.equals("localhost") || h.equals("[::1]")
+        || (h.startsWith("127.") && h.chars().allMatch(c -> c == '.' || (c >= '0' && c <= '9')));
+  }
+
+  // Metadata and non-unique snapshots change in place, so they are only cached for a short time.
+  private static boolean isMutable(String artifactPath) {
+    String fileName = artifactPath.substring(artifactPath.lastIndexOf('/') + 1);
+    return fileName.startsWith("maven-metadata") || fileName.contains("-SNAPSHOT");
+  }
+
+  private static boolean isValidPath(String[] segments) {
+    for (int i = 1; i < segments.length; i++) {
+      for (String part : segments[i].split("/", -1)) {
+        if (part.isEmpty() || part.equals(".") || part.equals("..")) {
+          return false;
+        }
+      }
+    }
+    return true;
+  }
+
+  private static void sendError(HttpExchange exchange, int status, String message)
+      throws IOException {
+    byte[] body = (message + "\n").getBytes(StandardCharsets.UTF_8);
+    if (exchange.getRequestMethod().equals("HEAD")) {
+      exchange.sendResponseHeaders(status, -1);
+      return;
+    }
+    exchange.sendResponseHeaders(status, body.length);
+    try (OutputStream out = exchange.getResponseBody()) {
+      out.write(body);
+    }
+  }
+
+  public static void main(String[] args) throws IOException {
+    int port = 8080;
+    int threads = 32;
+    Path cacheDir = Paths.get(System.getProperty("user.home"), ".cache", "artifactregistry-proxy");
+    long maxBytes = 10L << 30;
+    Duration metadataTtl = Duration.ofSeconds(60);
+    List<String> allowedHosts = Collections.emptyList();
+    for (String arg : args) {
+      int eq = arg.indexOf('=');
+      String value = eq < 0 ? "" : arg.substring(eq + 1);
+      String name = eq < 0 ? arg : arg.substring(0, eq);
+      try {
+        switch (name) {
+          case "--port":
+            port = Integer.parseInt(value);
+            break;
+          case "--threads":
+            threads = Integer.parseInt(value);
+            break;
+          case "--cache-dir":
+            cacheDir = Paths.get(value);
+            break;
+          case "--max-size":
+            maxBytes = ContentStore.parseSize(value);
+            break;
+          case "--metadata-ttl":
+            metadataTtl = Duration.ofSeconds(Long.parseLong(value));
+            break;
+          case "--allowed-hosts":
+            allowedHosts = Arrays.asList(value.split(","));
+            break;
+          default:
+            System.err.println(USAGE);
+            System.exit(2);
+        }
+      } catch (NumberFormatException e) {
+        System.err.println("Invalid value for " + name + ": " + value);
+        System.err.println(USAGE);
+        System.exit(2);
+      }
+    }
+    ArtifactRegistryProxy proxy = new ArtifactRegistryProxy(cacheDir, maxBytes, metadataTtl);
+    proxy.setAllowedHosts(allowedHosts);
+    proxy.start(port, threads);
+  }
+}
@@ -0,0 +1,223 @@
+/*
+ * Copyright 2026 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.cloud.artifactregistry.proxy;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import org.apache.maven.wagon.ResourceDoesNotExistException;
+import org.apache.maven.wagon.TransferFailedException;
+import org.apache.maven.wagon.authorization.AuthorizationException;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+public class ArtifactRegistryProxyTest {
+
+  private static final String REPO = "/us-maven.pkg.dev/project/repo/";
+
+  @Rule
+  public TemporaryFolder tmp = new TemporaryFolder();
+
+  private final Map<String, String> files = new HashMap<>();
+  private final List<String> fetched = Collections.synchronizedList(new ArrayList<>());
+  private ArtifactRegistryProxy proxy;
+
+  @After
+  public void stop() {
+    if (proxy != null) {
+      proxy.stop();
+    }
+  }
+
+  @Test
+  public void testServesFromCache() throws Exception {
+    files.put("com/example/a/1.0/a-1.0.jar", "jar");
+    start(Duration.ofHours(1));
+    Assert.assertEquals("200 jar", get(REPO + "com/example/a/1.0/a-1.0.jar"));
+    Assert.assertEquals("200 jar", get(REPO + "com/example/a/1.0/a-1.0.jar"));
+    Assert.assertEquals(
+        Collections.singletonList("artifactregistry://us-maven.pkg.dev/project/repo "
+            + "com/example/a/1.0/a-1.0.jar"),
+        fetched);
+  }
+
+  @Test
+  public void testEvictedBodyIsFetchedAgain() throws Exception {
+    files.put("com/example/a/1.0/a-1.0.jar", "jar");
+    Path cacheDir = start(Duration.ofHours(1));
+    Assert.assertEquals("200 jar", get(REPO + "com/example/a/1.0/a-1.0.jar"));
+    try (Stream<Path> bodies = Files.walk(cacheDir.resolve("content/sha256"))) {
+      for (Path body : bodies.filter(Files::isRegularFile).collect(Collectors.toList())) {
+        Files.delete(body);
+      }
+    }
+    Assert.assertEquals("200 jar", get(REPO + "com/example/a/1.0/a-1.0.jar"));
+    Assert.assertEquals(2, fetched.size());
+  }
+
+  @Test
+  public void testRejectsInvalidPaths() throws Exception {
+    start(Duration.ofHours(1));
+    Assert.assertEquals(404, status(get("/us-maven.pkg.dev/project/repo")));
+    Assert.assertEquals(404, status(get(REPO + "com/../../../etc/passwd")));
+    Assert.assertEquals(404, status(get("/us-maven.pkg.dev//repo/a.jar")));
+    Assert.assertEquals(Collections.emptyList(), fetched);
+  }
+
+  @Test
+  public void testRejectsHostsThatAreNotAllowed() throws Exception {
+    files.put("a.jar", "jar");
+    start(Duration.ofHours(1));
+    Assert.assertEquals(403, status(get("/evil.example/project/repo/a.jar")));
+    Assert.assertEquals(403, status(get("/pkg.dev.evil.example/project/repo/a.jar")));
+    Assert.assertEquals(403, status(get("/evil.example:443@us-maven.pkg.dev/project/repo/a.jar")));
+    Assert.assertEquals(403, status(get("/.pkg.dev/project/repo/a.jar")));
+    Assert.assertEquals(Collections.emptyList(), fetched);
+
+    proxy.setAllowedHosts(Collections.singletonList("Repo.Example.com"));
+    Assert.assertEquals("200 jar", get("/repo.example.com/project/repo/a.jar"));
+  }
+
+  @Test
+  public void testRejectsRequestsForOtherHosts() throws Exception {
+    files.put("a.jar", "jar");
+    start(Duration.ofHours(1));
+    Assert.assertTrue(rawGet("evil.example").startsWith("HTTP/1.1 403 "));
+    Assert.assertTrue(rawGet("127.0.0.1.evil.example").startsWith("HTTP/1.1 403 "));
+    Assert.assertTrue(rawGet("localhost:" + proxy.getPort()).startsWith("HTTP/1.1 200 "));
+    Assert.assertEquals(1, fetched.size());
+  }
+
+  @Test
+  public void testMapsUpstreamErrors() throws Exception {
+    start(Duration.ofHours(1));
+    Assert.assertEquals(404, status(get(REPO + "missing.jar")));
+    Assert.assertEquals(403, status(get(REPO + "denied.jar")));
+    Assert.assertEquals(502, status(get(REPO + "failing.jar")));
+  }
+
+  @Test
+  public void testMetadataExpires() throws Exception {
+    files.put("com/example/a/maven-metadata.xml", "v1");
+    files.put("com/example/a/1.0/a-1.0.jar", "jar");
+    Path cacheDir = start(Duration.ofMinutes(1));
+    Assert.assertEquals("200 v1", get(REPO + "com/example/a/maven-metadata.xml"));
+    Assert.assertEquals("200 jar", get(REPO + "com/example/a/1.0/a-1.0.jar"));
+    files.put("com/example/a/maven-metadata.xml", "v2");
+    Assert.assertEquals("200 v1", get(REPO + "com/example/a/maven-metadata.xml"));
+
+    // Both pointers age past the TTL; only the metadata is fetched again.
+    FileTime old = FileTime.fromMillis(System.currentTimeMillis() - 120_000);
+    Path paths = cacheDir.resolve("paths/us-maven.pkg.dev/project/repo/com/example/a");
+    Files.setLastModifiedTime(paths.resolve("maven-metadata.xml"), old);
+    Files.setLastModifiedTime(paths.resolve("1.0/a-1.0.jar"), old);
+    Assert.assertEquals("200 v2", get(REPO + "com/example/a/maven-metadata.xml"));
+    Assert.assertEquals("200 jar", get(REPO + "com/example/a/1.0/a-1.0.jar"));
+    Assert.assertEquals(3, fetched.size());
+  }
+
+  private Path start(Duration metadataTtl) throws IOException {
+    Path cacheDir = tmp.newFolder("cache").toPath();
+    proxy = new ArtifactRegistryProxy(cacheDir, 0, metadataTtl, this::fetch);
+    proxy.start(0, 4);
+    return cacheDir;
+  }
+
+  private void fetch(String repositoryUrl, String artifactPath, File destination)
+      throws ResourceDoesNotExistException, AuthorizationException, TransferFailedException {
+    fetched.add(repositoryUrl + " " + artifactPath);
+    if (artifactPath.equals("denied.jar")) {
+      throw new AuthorizationException("Permission denied");
+    }
+    if (artifactPath.equals("failing.jar")) {
+      throw new TransferFailedException("Server error");
+    }
+    String content = files.get(artifactPath);
+    if (content == null) {
+      throw new ResourceDoesNotExistException("Not found");
+    }
+    try {
+      Files.write(destination.toPath(), content.getBytes(StandardCharsets.UTF_8));
+    } catch (IOException e) {
+      throw new TransferFailedException(e.getMessage(), e);
+    }
+  }
+
+  // Returns the status code and body of a GET request, separated by a space.
+  private String get(String path) throws IOException {
+    HttpURLConnection connection = (HttpURLConnection)
+        new URL("http", "127.0.0.1", proxy.getPort(), path).openConnection();
+    int status = connection.getResponseCode();
+    InputStream in = status < 400 ? connection.getInputStream() : connection.getErrorStream();
+    return status + " " + read(in);
+  }
+
+  // Sends a GET request with the given Host header, which HttpURLConnection does not allow to
+  // set, and returns the response.
+  private String rawGet(String host) throws IOException {
+    try (Socket socket = new Socket(InetAddress.getLoopbackAddress(), proxy.getPort())) {
+      OutputStream out = socket.getOutputStream();
+      out.write(("GET " + REPO + "a.jar HTTP/1.1\r\nHost: " + host
+          + "\r\nConnection: close\r\n\r\n").getBytes(StandardCharsets.US_ASCII));
+      out.flush();
+      return read(socket.getInputStream());
+    }
+  }
+
+  private static int status(String response) {
+    return Integer.parseInt(response.substring(0, 3));
+  }
+
+  private static String read(InputStream in) throws IOException {
+    if (in == null) {
+      return "";
+    }
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    byte[] buf = new byte[4096];
+    int n;
+    try (InputStream input = in) {
+      while ((n = input.read(buf)) != -1) {
+        out.write(buf, 0, n);
+      }
+    }
+    return new String(out.toByteArray(), StandardCharsets.UTF_8);
+  }
+}
@@ -0,0 +1,516 @@
+/*
+ * Copyright 2026 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.cloud.artifactregistry.wagon;
+
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * ArtifactBundle is a single read-only file holding many repository files, for builds that must
+ * not touch the network. Files are looked up by path in a sorted table of contents that is memory
+ * mapped, and read in place without unpacking anything.
+ *
+ * <p>The file is a header, the file bodies one after the other, the table of contents and a
+ * trailer. The table of contents has one fixed-size record per file (body offset, body length,
+ * name offset, name length) sorted by the UTF-8 bytes of the name, followed by the names. The
+ * trailer holds the offset of the table, the number of records and the length of the names.
+ *
+ * <p>Running {@link #main} with {@code create}, {@code list} or {@code extract} builds a bundle
+ * from a directory, prints its contents or writes its files back to a directory.
+ */
+public final class ArtifactBundle implements Closeable {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(ArtifactBundle.class);
+
+  private static final byte[] MAGIC = "ARBUNDL1".getBytes(StandardCharsets.US_ASCII);
+  private static final int RECORD_SIZE = 24;
+  private static final int TRAILER_SIZE = 16 + MAGIC.length;
+
+  private static final ConcurrentMap<Path, ArtifactBundle> OPEN = new ConcurrentHashMap<>();
+  // How long a recorded bundle is kept open after the last wagon recording into it disconnects.
+  private static final long FINISH_DELAY_MS = 2000;
+
+  // Guarded by RECORDING.
+  private static final Map<Path, Recording> RECORDING = new HashMap<>();
+  private static ScheduledExecutorService finisher;
+  private static boolean shutdownHookAdded;
+
+  /** A writer shared by the wagons recording into one file. */
+  private static final class Recording {
+
+    final Path key;
+    final Writer writer;
+    int users;
+    ScheduledFuture<?> finish;
+
+    Recording(Path key, Writer writer) {
+      this.key = key;
+      this.writer = writer;
+    }
+  }
+
+  /** The location of a file in the bundle. */
+  static final class Entry {
+
+    final long offset;
+    final long length;
+
+    Entry(long offset, long length) {
+      this.offset = offset;
+      this.length = length;
+    }
+  }
+
+  private final Path file;
+  private final FileChannel channel;
+  private final ByteBuffer records;
+  private final ByteBuffer names;
+  private final int count;
+
+  private ArtifactBundle(Path file) throws IOException {
+    this.file = file;
+    this.channel = FileChannel.open(file, StandardOpenOption.READ);
+    try {
+      long size = channel.size();
+      ByteBuffer trailer = ByteBuffer.allocate(TRAILER_SIZE);
+      if (size < MAGIC.length + TRAILER_SIZE || channel.read(trailer, size - TRAILER_SIZE)
+          != TRAILER_SIZE) {
+        throw new IOException(file + " is not an artifact bundle.");
+      }
+      trailer.flip();
+      long tableOffset = trailer.getLong();
+      count = trailer.getInt();
+      int namesLength = trailer.getInt();
+      byte[] magic = new byte[MAGIC.length];
+      trailer.get(magic);
+      long tableLength = (long) count * RECORD_SIZE + namesLength;
+      if (!Arrays.equals(magic, MAGIC) || count < 0 || namesLength < 0
+          || tableOffset + tableLength != size - TRAILER_SIZE) {
+        throw new IOException(file + " is not an artifact bundle, or is truncated.");
+      }
+      ByteBuffer table = channel.map(FileChannel.MapMode.READ_ONLY, tableOffset, tableLength);
+      table.limit(count * RECORD_SIZE);
+      records = table.slice().order(ByteOrder.BIG_ENDIAN);
+      table.limit((int) tableLength).position(count * RECORD_SIZE);
+      names = table.slice();
+    } catch (IOException | RuntimeException e) {
+      channel.close();
+      throw e;
+    }
+  }
+
+  /** Opens the bundle in {@code file}. */
+  static ArtifactBundle open(Path file) throws IOException {
+    return new ArtifactBundle(file);
+  }
+
+  /** Returns the bundle in {@code file}, shared by all wagons in this JVM. */
+  static ArtifactBundle forFile(Path file) throws IOException {
+    Path key = file.toAbsolutePath().normalize();
+    ArtifactBundle bundle = OPEN.get(key);
+    if (bundle == null) {
+      ArtifactBundle opened = new ArtifactBundle(key);
+      bundle = OPEN.putIfAbsent(key, opened);
+      if (bundle == null) {
+        bundle = opened;
+      } else {
+        opened.close();
+      }
+    }
+    return bundle;
+  }
+
+  /**
+   * Returns the writer recording into {@code file}, shared by all wagons in this JVM. Each call must
+   * be matched by a call to {@link #release}; the bundle is written once the writer has been
+   * released by every wagon and has stayed unused for a short while, or when the JVM exits.
+   */
+  static Writer recordingTo(Path file) throws IOException {
+    Path key = file.toAbsolutePath().normalize();
+    synchronized (RECORDING) {
+      Recording recording = RECORDING.get(key);
+      if (recording == null) {
+        recording = new Recording(key, new Writer(key));
+        RECORDING.put(key, recording);
+        if (!shutdownHookAdded) {
+          Runtime.getRuntime().addShutdownHook(new Thread(ArtifactBundle::finishRecordings));
+          shutdownHookAdded = true;
+        }
+      }
+      recording.users++;
+      if (recording.finish != null) {
+        recording.finish.cancel(false);
+        recording.finish = null;
+      }
+      return recording.writer;
+    }
+  }
+
+  /** Releases a writer returned by {@link #recordingTo}. */
+  static void release(Writer writer) {
+    release(writer, FINISH_DELAY_MS);
+  }
+
+  static void release(Writer writer, long delayMs) {
+    synchronized (RECORDING) {
+      Recording recording = RECORDING.get(writer.target);
+      if (recording == null || recording.writer != writer || --recording.users > 0) {
+        return;
+      }
+      // Connections come and go many times during one build, so the bundle is only written once
+      // none has been open for a while rather than each time the last one closes.
+      recording.finish = finisher().schedule(() -> finish(recording), delayMs,
+          TimeUnit.MILLISECONDS);
+    }
+  }
+
+  private static ScheduledExecutorService finisher() {
+    if (finisher == null) {
+      finisher = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "artifactregistry-bundle");
+        t.setDaemon(true);
+        return t;
+      });
+    }
+    return finisher;
+  }
+
+  private static void finish(Recording recording) {
+    synchronized (RECORDING) {
+      if (recording.users > 0 || !RECORDING.remove(recording.key, recording)) {
+        return;
+      }
+    }
+    try {
+      recording.writer.close();
+      LOGGER.info("Recorded " + recording.writer.size() + " files in " + recording.key + ".");
+    } catch (IOException e) {
+      LOGGER.warn("Failed to write the bundle " + recording.key + ".", e);
+    }
+  }
+
+  // Writes the bundles still being recorded when the JVM exits. Logging may already be shut down,
+  // so failures are reported on stderr.
+  private static void finishRecordings() {
+    List<Recording> recordings;
+    synchronized (RECORDING) {
+      recordings = new ArrayList<>(RECORDING.values());
+      RECORDING.clear();
+    }
+    for (Recording recording : recordings) {
+      try {
+        recording.writer.close();
+      } catch (IOException e) {
+        System.err.println("Failed to write the bundle " + recording.key + ": " + e);
+      }
+    }
+  }
+
+  /** Returns the number of files in the bundle. */
+  int size() {
+    return count;
+  }
+
+  /** Returns the location of {@code path}, or null if it is not in the bundle. */
+  Entry find(String path) {
+    byte[] key = path.getBytes(StandardCharsets.UTF_8);
+    int low = 0;
+    int high = count - 1;
+    while (low <= high) {
+      int mid = (low + high) >>> 1;
+      int c = compareName(mid, key);
+      if (c < 0) {
+        low = mid + 1;
+      } else if (c > 0) {
+        high = mid - 1;
+      } else {
+        return entry(mid);
+      }
+    }
+    return null;
+  }
+
+  /** Returns a stream of the body of {@code entry}. */
+  InputStream openStream(Entry entry) {
+    return new EntryStream(entry);
+  }
+
+  /** Returns the path of the file at position {@code index} of the table of contents. */
+  String name(int index) {
+    int offset = records.getInt(index * RECORD_SIZE + 16);
+    byte[] name = new byte[records.getInt(index * RECORD_SIZE + 20)];
+    ByteBuffer b = names.duplicate();
+    b.position(offset);
+    b.get(name);
+    return new String(name, StandardCharsets.UTF_8);
+  }
+
+  Entry entry(int index) {
+    return new Entry(records.getLong(index * RECORD_SIZE),
+        records.getLong(index * RECORD_SIZE + 8));
+  }
+
+  @Override
+  public void close() throws IOException {
+    channel.close();
+  }
+
+  private int compareName(int index, byte[] key) {
+    int offset = records.getInt(index * RECORD_SIZE + 16);
+    int length = records.getInt(index * RECORD_SIZE + 20);
+    int n = Math.min(length, key.length);
+    for (int i = 0; i < n; i++) {
+      int c = (names.get(offset + i) & 0xff) - (key[i] & 0xff);
+      if (c != 0) {
+        return c;
+      }
+    }
+    return length - key.length;
+  }
+
+  // Reads a body with positional reads, so that any number of streams can share the channel.
+  private final class EntryStream extends InputStream {
+
+    private long position;
+    private final long end;
+
+    EntryStream(Entry entry) {
+      this.position = entry.offset;
+      this.end = entry.offset + entry.length;
+    }
+
+    @Override
+    public int read() throws IOException {
+      byte[] b = new byte[1];
+      return read(b, 0, 1) < 0 ? -1 : b[0] & 0xff;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+      if (position >= end) {
+        return -1;
+      }
+      int n = channel.read(ByteBuffer.wrap(b, off, (int) Math.min(len, end - position)), position);
+      if (n < 0) {
+        throw new EOFException(file + " is truncated.");
+      }
+      position += n;
+      return n;
+    }
+
+    @Override
+    public int available() {
+      return (int) Math.min(Integer.MAX_VALUE, end - position);
+    }
+  }
+
+  /**
+   * Writer builds a bundle. Files are appended as they are added, and the table of contents is
+   * written on {@link #close}, when the bundle is moved into place.
+   */
+  static final class Writer implements Closeable {
+
+    private final Path target;
+    private final Path tmp;
+    private final FileChannel channel;
+    private final Set<String> added = new HashSet<>();
+    private final List<Record> records = new ArrayList<>();
+    private boolean closed;
+
+    private static final class Record {
+
+      final byte[] name;
+      final long offset;
+      final long length;
+
+      Record(byte[] name, long offset, long length) {
+        this.name = name;
+        this.offset = offset;
+        this.length = length;
+      }
+    }
+
+    Writer(Path target) throws IOException {
+      this.target = target;
+      Path parent = target.toAbsolutePath().getParent();
+      Files.createDirectories(parent);
+      this.tmp = Files.createTempFile(parent, target.getFileName() + "-", ".tmp");
+      this.channel = FileChannel.open(tmp, StandardOpenOption.WRITE);
+      channel.write(ByteBuffer.wrap(MAGIC));
+    }
+
+    /** Adds the contents of {@code file} as {@code path}, unless the path was already added. */
+    synchronized boolean add(String path, Path file) throws IOException {
+      if (closed || !added.add(path)) {
+        return false;
+      }
+      long offset = channel.position();
+      try (FileChannel in = FileChannel.open(file, StandardOpenOption.READ)) {
+        long length = in.size();
+        for (long done = 0; done < length; ) {
+          done += in.transferTo(done, length - done, channel);
+        }
+        records.add(new Record(path.getBytes(StandardCharsets.UTF_8), offset, length));
+      } catch (IOException e) {
+        // Drop whatever part of the body was written.
+        channel.truncate(offset);
+        channel.position(offset);
+        added.remove(path);
+        throw e;
+      }
+      return true;
+    }
+
+    synchronized int size() {
+      return records.size();
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+      if (closed) {
+        return;
+      }
+      closed = true;
+      try {
+        records.sort((a, b) -> compare(a.name, b.name));
+        long tableOffset = channel.position();
+        ByteBuffer table = ByteBuffer.allocate(records.size() * RECORD_SIZE);
+        int nameOffset = 0;
+        for (Record record : records) {
+          table.putLong(record.offset).putLong(record.length)
+              .putInt(nameOffset).putInt(record.name.length);
+          nameOffset += record.name.length;
+        }
+        table.flip();
+        write(table);
+        for (Record record : records) {
+          write(ByteBuffer.wrap(record.name));
+        }
+        ByteBuffer trailer = ByteBuffer.allocate(TRAILER_SIZE);
+        trailer.putLong(tableOffset).putInt(records.size()).putInt(nameOffset).put(MAGIC);
+        trailer.flip();
+        write(trailer);
+        channel.force(true);
+        channel.close();
+        Files.move(tmp, target, StandardCopyOption.REPLACE_EXISTING,
+            StandardCopyOption.ATOMIC_MOVE);
+      } finally {
+        channel.close();
+        Files.deleteIfExists(tmp);
+      }
+    }
+
+    private void write(ByteBuffer buffer) throws IOException {
+      while (buffer.hasRemaining()) {
+        channel.write(buffer);
+      }
+    }
+
+    private static int compare(byte[] a, byte[] b) {
+      int n = Math.min(a.length, b.length);
+      for (int i = 0; i < n; i++) {
+        int c = (a[i] & 0xff) - (b[i] & 0xff);
+        if (c != 0) {
+          return c;
+        }
+      }
+      return a.length - b.length;
+    }
+  }
+
+  /**
+   * Manages bundles: {@code create BUNDLE DIRECTORY} bundles every file below a directory, such as
+   * a local Maven repository, {@code list BUNDLE} prints the files of a bundle and
+   * {@code extract BUNDLE DIRECTORY} writes them into a directory in one sequential pass.
+   */
+  public static void main(String[] args) throws IOException {
+    if (args.length == 3 && args[0].equals("create")) {
+      Path directory = Paths.get(args[2]);
+      try (Writer writer = new Writer(Paths.get(args[1]));
+          Stream<Path> files = Files.walk(directory)) {
+        for (Path file : (Iterable<Path>) files.filter(Files::isRegularFile).sorted()::iterator) {
+          String name = directory.relativize(file).toString().replace('\\', '/');
+          // Bookkeeping of the local repository that does not belong to any remote one.
+          if (!name.endsWith("_remote.repositories") && !name.endsWith(".lastUpdated")
+              && !name.endsWith("resolver-status.properties")) {
+            writer.add(name, file);
+          }
+        }
+        System.out.printf("%d files%n", writer.size());
+      }
+    } else if (args.length == 2 && args[0].equals("list")) {
+      try (ArtifactBundle bundle = open(Paths.get(args[1]))) {
+        for (int i = 0; i < bundle.size(); i++) {
+          System.out.printf("%12d %s%n", bundle.entry(i).length, bundle.name(i));
+        }
+      }
+    } else if (args.length == 3 && args[0].equals("extract")) {
+      Path directory = Paths.get(args[2]).toAbsolutePath().normalize();
+      try (ArtifactBundle bundle = open(Paths.get(args[1]))) {
+        Integer[] order = new Integer[bundle.size()];
+        for (int i = 0; i < order.length; i++) {
+          order[i] = i;
+        }
+        // In the order of the bodies, so that the bundle is read sequentially.
+        Arrays.sort(order, (a, b) -> Long.compare(bundle.entry(a).offset, bundle.entry(b).offset));
+        for (int i : order) {
+          Path target = directory.resolve(bundle.name(i)).normalize();
+          if (!target.startsWith(directory)) {
+            throw new IOException(
+                "Refusing to extract " + bundle.name(i) + " outside " + directory);
+          }
+          Files.createDirectories(target.getParent());
+          try (InputStream in = bundle.openStream(bundle.entry(i))) {
+            Files.copy(in, target, StandardCopyOption.REPLACE_EXISTING);
+          }
+        }
+        System.out.printf("%d files%n", order.length);
+      }
+    } else {
+      System.err.println("Usage: ArtifactBundle create BUNDLE DIRECTORY | list BUNDLE"
+          + " | extract BUNDLE DIRECTORY");
+      System.exit(2);
+    }
+  }
+}
@@ -0,0 +1,261 @@
+/*
+ * Copyright 2026 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.cloud.artifactregistry.wagon;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.DigestInputStream;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * ArtifactCache remembers downloaded artifacts by URL and ETag so that they can be revalidated
+ * with a conditional request and hard-linked into place instead of being downloaded again. Bodies
+ * are kept in a {@link ContentStore}, so identical files are stored only once no matter how many
+ * local repositories use them.
+ *
+ * <p>The index is an append-only file of {@code URL, ETag, digest} lines that is shared by every
+ * process using the cache directory. Running {@link #main} with {@code gc} compacts it and trims
+ * the store.
+ */
+public final class ArtifactCache {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(ArtifactCache.class);
+
+  private static final ConcurrentMap<Path, ArtifactCache> INSTANCES = new ConcurrentHashMap<>();
+
+  // Compact the index on open once it holds this many stale lines.
+  private static final int COMPACT_THRESHOLD = 10000;
+
+  private final ContentStore store;
+  private final Path indexFile;
+  private final ConcurrentMap<String, Entry> index = new ConcurrentHashMap<>();
+
+  /** A cached response: the ETag it was served with and the digest of its body. */
+  static final class Entry {
+
+    final String etag;
+    final String digest;
+
+    Entry(String etag, String digest) {
+      this.etag = etag;
+      this.digest = digest;
+    }
+  }
+
+  private ArtifactCache(Path directory, long maxBytes) throws IOException {
+    this.store = new ContentStore(directory.resolve("content"), maxBytes);
+    this.indexFile = directory.resolve("index");
+    int lines = load();
+    if (lines - index.size() > COMPACT_THRESHOLD) {
+      compact();
+    }
+  }
+
+  /** Returns the cache for {@code directory}, shared by all wagons in this JVM. */
+  static ArtifactCache forDirectory(Path directory, long maxBytes) throws IOException {
+    Path key = directory.toAbsolutePath().normalize();
+    ArtifactCache cache = INSTANCES.get(key);
+    if (cache == null) {
+      synchronized (INSTANCES) {
+        cache = INSTANCES.get(key);
+        if (cache == null) {
+          cache = new ArtifactCache(key, maxBytes);
+          INSTANCES.put(key, cache);
+        }
+      }
+    }
+    return cache;
+  }
+
+  /** Returns the cached response for {@code url}, or null if there is none. */
+  Entry lookup(String url) {
+    return index.get(url);
+  }
+
+  /**
+   * Replaces {@code destination} with the cached body for {@code digest}. Returns false if the body
+   * is missing or corrupt, in which case it has to be downloaded again. The body is verified with
+   * {@link ContentStore#verify} before it is linked, and a copy is verified while it is made.
+   */
+  boolean link(String digest, Path destination) throws IOException {
+    Path body = store.get(digest);
+    if (body == null || !store.verify(digest)) {
+      return false;
+    }
+    Files.createDirectories(destination.toAbsolutePath().getParent());
+    Files.deleteIfExists(destination);
+    try {
+      Files.createLink(destination, body);
+      return true;
+    } catch (IOException | UnsupportedOperationException e) {
+      // Copied below.
+    }
+    try (Body in = open(digest)) {
+      if (in != null) {
+        Files.copy(in, destination, StandardCopyOption.REPLACE_EXISTING);
+        if (in.isIntact()) {
+          return true;
+        }
+      }
+    }
+    Files.deleteIfExists(destination);
+    return false;
+  }
+
+  /**
+   * Opens the cached body for {@code digest}, or returns null if it is missing. Once the body has
+   * been read in full, {@link Body#isIntact} tells whether it matched its digest.
+   */
+  Body open(String digest) throws IOException {
+    Path body = store.get(digest);
+    if (body == null) {
+      return null;
+    }
+    try {
+      return new Body(digest, Files.newInputStream(body));
+    } catch (NoSuchFileException e) {
+      // Evicted by another process.
+      return null;
+    }
+  }
+
+  /** A cached body that is hashed as it is read. */
+  final class Body extends DigestInputStream {
+
+    private final String digest;
+    private boolean finished;
+
+    private Body(String digest, InputStream in) {
+      super(in, ContentStore.sha256());
+      this.digest = digest;
+    }
+
+    @Override
+    public int read() throws IOException {
+      int b = super.read();
+      finished |= b == -1;
+      return b;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+      int n = super.read(b, off, len);
+      finished |= n == -1;
+      return n;
+    }
+
+    /**
+     * Returns whether the body was read to the end and matched its digest. A corrupt body is
+     * removed from the cache.
+     */
+    boolean isIntact() throws IOException {
+      if (!finished) {
+        return false;
+      }
+      if (!ContentStore.toHex(getMessageDigest().digest()).equals(digest)) {
+        LOGGER.warn("Cached content {} is corrupt, removing it.", digest);
+        store.remove(digest);
+        return false;
+      }
+      return true;
+    }
+  }
+
+  /** Adds the downloaded body of {@code url} to the cache. */
+  void record(String url, String etag, Path downloaded) throws IOException {
+    String digest = store.add(downloaded);
+    Entry entry = new Entry(etag, digest);
+    index.put(url, entry);
+    append(url, entry);
+  }
+
+  private synchronized void append(String url, Entry entry) throws IOException {
+    // A single small append is atomic, so several processes can share the index.
+    byte[] line = (url + '\t' + entry.etag + '\t' + entry.digest + '\n')
+        .getBytes(StandardCharsets.UTF_8);
+    try (OutputStream out = Files.newOutputStream(indexFile, StandardOpenOption.CREATE,
+        StandardOpenOption.APPEND)) {
+      out.write(line);
+    }
+  }
+
+  // Reads the index, later lines replacing earlier ones. Returns the number of lines read.
+  private int load() throws IOException {
+    int lines = 0;
+    try (BufferedReader reader = Files.newBufferedReader(indexFile, StandardCharsets.UTF_8)) {
+      String line;
+      while ((line = reader.readLine()) != null) {
+        lines++;
+        String[] fields = line.split("\t");
+        if (fields.length == 3) {
+          index.put(fields[0], new Entry(fields[1], fields[2]));
+        }
+      }
+    } catch (NoSuchFileException e) {
+      // Empty cache.
+    }
+    return lines;
+  }
+
+  /** Rewrites the index with one line per URL, dropping entries whose body is gone. */
+  synchronized void compact() throws IOException {
+    index.values().removeIf(entry -> {
+      try {
+        return !store.contains(entry.digest);
+      } catch (IllegalArgumentException e) {
+        return true;
+      }
+    });
+    Path tmp = Files.createTempFile(indexFile.getParent(), "index-", ".tmp");
+    try (BufferedWriter writer = Files.newBufferedWriter(tmp, StandardCharsets.UTF_8)) {
+      for (Map.Entry<String, Entry> e : index.entrySet()) {
+        writer.write(e.getKey() + '\t' + e.getValue().etag + '\t' + e.getValue().digest + '\n');
+      }
+    }
+    Files.move(tmp, indexFile, StandardCopyOption.REPLACE_EXISTING,
+        StandardCopyOption.ATOMIC_MOVE);
+  }
+
+  /**
+   * Garbage-collects a cache directory: {@code gc DIRECTORY [MAX_SIZE]} evicts the least recently
+   * used bodies above {@code MAX_SIZE} (for example {@code 20g}) and compacts the index.
+   */
+  public static void main(String[] args) throws IOException {
+    if (args.length < 2 || args.length > 3 || !args[0].equals("gc")) {
+      System.err.println("Usage: ArtifactCache gc DIRECTORY [MAX_SIZE]");
+      System.exit(2);
+    }
+    long maxBytes = args.length == 3 ? ContentStore.parseSize(args[2]) : 0;
+    ArtifactCache cache = new ArtifactCache(Paths.get(args[1]), maxBytes);
+    cache.compact();
+    System.out.printf("%d entries, %d bytes%n", cache.index.size(), cache.store.size());
+  }
+}
@@ -0,0 +1,238 @@
+/*
+ * Copyright 2026 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.cloud.artifactregistry.wagon;
+
+import com.google.api.client.http.AbstractHttpContent;
+import com.google.api.client.http.GenericUrl;
+import com.google.api.client.http.HttpHeaders;
+import com.google.api.client.http.HttpRequest;
+import com.google.api.client.http.HttpRequestFactory;
+import com.google.api.client.http.HttpResponse;
+import com.google.api.client.http.HttpResponseException;
+import com.google.api.client.http.HttpStatusCodes;
+import com.google.api.client.http.HttpTransport;
+import com.google.auth.Credentials;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.net.URI;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import org.eclipse.aether.repository.RemoteRepository;
+import org.eclipse.aether.spi.connector.transport.AbstractTransporter;
+import org.eclipse.aether.spi.connector.transport.GetTask;
+import org.eclipse.aether.spi.connector.transport.PeekTask;
+import org.eclipse.aether.spi.connector.transport.PutTask;
+import org.eclipse.aether.transfer.NoTransporterException;
+import org.eclipse.aether.transfer.TransferCancelledException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * ArtifactRegistryTransporter performs Maven Resolver transfer tasks against an Artifact Registry
+ * repository. Instances are created by {@link ArtifactRegistryTransporterFactory}.
+ */
+final class ArtifactRegistryTransporter extends AbstractTransporter {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(ArtifactRegistryTransporter.class);
+
+  // Checksum headers that let the resolver skip downloading the .sha1/.md5 files.
+  private static final String[][] CHECKSUM_HEADERS = {
+      {"SHA-512", "x-checksum-sha512"},
+      {"SHA-256", "x-checksum-sha256"},
+      {"SHA-1", "x-checksum-sha1"},
+      {"MD5", "x-checksum-md5"},
+  };
+  private static final ResponseTracker RESPONSES = ResponseTracker.shared();
+
+  private final HttpTransport transport;
+  private final Future<Credentials> pendingCredentials;
+  private final int readTimeout;
+  private final String baseUrl;
+  private final String host;
+  private final TransferMetrics metrics;
+  // Created by the first request, once the credentials are available.
+  private HttpRequestFactory requestFactory;
+  private boolean skipIdenticalUploads;
+  private boolean circuitBreaker;
+
+  /**
+   * Creates a transporter whose requests are sent with the credentials of
+   * {@code pendingCredentials}, waiting for them only when the first request is made. Requests are
+   * sent without credentials if the lookup fails.
+   */
+  ArtifactRegistryTransporter(RemoteRepository repository, HttpTransport transport,
+      Future<Credentials> pendingCredentials, int readTimeout) throws NoTransporterException {
+    URI uri;
+    try {
+      uri = new URI(repository.getUrl());
+    } catch (Exception e) {
+      throw new NoTransporterException(repository, e);
+    }
+    if (uri.getHost() == null) {
+      throw new NoTransporterException(repository, "Repository URL has no host.");
+    }
+    String path = uri.getRawPath() == null ? "" : uri.getRawPath();
+    this.host = uri.getHost();
+    this.baseUrl = "https://" + host + (path.endsWith("/") ? path : path + "/");
+    this.transport = transport;
+    this.pendingCredentials = pendingCredentials;
+    this.readTimeout = readTimeout;
+    this.metrics = ArtifactRegistryWagon.transferMetrics();
+  }
+
+  /** Skips uploads whose destination already holds the same content. */
+  ArtifactRegistryTransporter setSkipIdenticalUploads(boolean skipIdenticalUploads) {
+    this.skipIdenticalUploads = skipIdenticalUploads;
+    return this;
+  }
+
+  /** Fails requests immediately while the circuit breaker for the repository host is open. */
+  ArtifactRegistryTransporter setCircuitBreaker(boolean circuitBreaker) {
+    this.circuitBreaker = circuitBreaker;
+    return this;
+  }
+
+  @Override
+  public int classify(Throwable error) {
+    if (error instanceof HttpResponseException
+        && ((HttpResponseException) error).getStatusCode()
+            == HttpStatusCodes.STATUS_CODE_NOT_FOUND) {
+      return ERROR_NOT_FOUND;
+    }
+    return ERROR_OTHER;
+  }
+
+  @Override
+  protected void implPeek(PeekTask task) throws Exception {
+    RESPONSES.release(execute(requestFactory().buildHeadRequest(url(task.getLocation()))));
+  }
+
+  @Override
+  protected void implGet(GetTask task) throws Exception {
+    HttpResponse response = execute(requestFactory().buildGetRequest(url(task.getLocation())));
+    try (InputStream content = RESPONSES.open(response)) {
+      HttpHeaders headers = response.getHeaders();
+      for (String[] checksum : CHECKSUM_HEADERS) {
+        String value = headers.getFirstHeaderStringValue(checksum[1]);
+        if (value != null && !value.isEmpty()) {
+          task.setChecksum(checksum[0], value);
+        }
+      }
+      String md5 = RemoteDigest.md5FromGoogHash(headers.getFirstHeaderStringValue("x-goog-hash"));
+      if (md5 != null && !task.getChecksums().containsKey("MD5")) {
+        task.setChecksum("MD5", md5);
+      }
+      Long length = headers.getContentLength();
+      long start = System.nanoTime();
+      utilGet(task, content, true, length == null ? -1 : length, false);
+      metrics.bodyTransferred("GET", host, task.getDataFile() != null
+          ? task.getDataFile().length() : task.getDataBytes().length, System.nanoTime() - start);
+    }
+  }
+
+  @Override
+  protected void implPut(PutTask task) throws Exception {
+    if (skipIdenticalUploads && isIdentical(task)) {
+      return;
+    }
+    AbstractHttpContent content = new AbstractHttpContent("application/octet-stream") {
+      @Override
+      public long getLength() {
+        return task.getDataLength();
+      }
+
+      @Override
+      public boolean retrySupported() {
+        return true;
+      }
+
+      @Override
+      public void writeTo(OutputStream out) throws IOException {
+        try {
+          utilPut(task, out, false);
+        } catch (TransferCancelledException e) {
+          throw new IOException(e);
+        }
+      }
+    };
+    long start = System.nanoTime();
+    RESPONSES.release(
+        execute(requestFactory().buildPutRequest(url(task.getLocation()), content)));
+    metrics.bodyTransferred("PUT", host, task.getDataLength(), System.nanoTime() - start);
+  }
+
+  private boolean isIdentical(PutTask task) throws IOException {
+    HttpResponse response;
+    try {
+      response = execute(requestFactory().buildHeadRequest(url(task.getLocation())));
+    } catch (IOException e) {
+      // Missing or not comparable, the upload goes ahead.
+      return false;
+    }
+    try {
+      RemoteDigest digest = RemoteDigest.fromHeaders(response.getHeaders());
+      return digest != null && digest.matches(task.getDataLength(), task::newInputStream);
+    } finally {
+      RESPONSES.release(response);
+    }
+  }
+
+  @Override
+  protected void implClose() {
+    // The HTTP transport is shared across transporters and is never closed.
+  }
+
+  private GenericUrl url(URI location) {
+    return new GenericUrl(baseUrl + location.toString());
+  }
+
+  private HttpResponse execute(HttpRequest request) throws IOException {
+    return MeteredRequests.execute(request, metrics, circuitBreaker);
+  }
+
+  // Returns the factory for requests to the repository, waiting for the credentials that were
+  // requested when the transporter was created the first time it is called. An interrupted wait
+  // leaves the factory unset, so that the next request waits again rather than going out without
+  // credentials.
+  private synchronized HttpRequestFactory requestFactory() throws IOException {
+    if (requestFactory != null) {
+      return requestFactory;
+    }
+    Credentials credentials = null;
+    try {
+      credentials = pendingCredentials.get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      InterruptedIOException interrupted =
+          new InterruptedIOException("Interrupted while waiting for credentials.");
+      interrupted.initCause(e);
+      throw interrupted;
+    } catch (ExecutionException e) {
+      if (e.getCause() instanceof RuntimeException) {
+        throw (RuntimeException) e.getCause();
+      }
+      LOGGER.info("Failed to get credentials, sending requests without them.", e.getCause());
+    }
+    requestFactory = credentials != null
+        ? transport.createRequestFactory(
+            new ArtifactRegistryRequestInitializer(credentials, readTimeout))
+        : transport.createRequestFactory(request -> request.setReadTimeout(readTimeout));
+    return requestFactory;
+  }
+}
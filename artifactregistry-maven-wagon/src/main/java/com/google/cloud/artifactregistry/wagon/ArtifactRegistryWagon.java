@@ -31,10 +31,27 @@ import com.google.auth.http.HttpCredentialsAdapter;
 import com.google.auth.http.HttpTransportFactory;
 import com.google.cloud.artifactregistry.auth.CredentialProvider;
 import com.google.cloud.artifactregistry.auth.DefaultCredentialProvider;
+import com.google.cloud.artifactregistry.auth.EndpointSelector;
+import java.io.ByteArrayInputStream;
 import java.io.File;
+import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.InterruptedIOException;
 import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.nio.file.Files;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
 import org.apache.maven.wagon.AbstractWagon;
 import org.apache.maven.wagon.ConnectionException;
 import org.apache.maven.wagon.ResourceDoesNotExistException;
@@ -42,26 +59,98 @@ import org.apache.maven.wagon.TransferFailedException;
 import org.apache.maven.wagon.authentication.AuthenticationException;
 import org.apache.maven.wagon.authorization.AuthorizationException;
 import org.apache.maven.wagon.events.TransferEvent;
+import org.apache.maven.wagon.events.TransferListener;
 import org.apache.maven.wagon.repository.Repository;
 import org.apache.maven.wagon.resource.Resource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 
 public final class ArtifactRegistryWagon extends AbstractWagon {
 
+  private static final Logger LOGGER = LoggerFactory.getLogger(ArtifactRegistryWagon.class);
+
+  // Requests that are in flight across all wagon instances in this JVM, keyed by URL.
+  private static final SingleFlight<String, SharedDownload> GET_FLIGHTS = new SingleFlight<>();
+  private static final SingleFlight<String, Boolean> HEAD_FLIGHTS = new SingleFlight<>();
+  private static final CompanionPrefetcher PREFETCHER = new CompanionPrefetcher(4);
+  private static final TransferMetrics DEFAULT_METRICS = defaultMetrics();
+  private static final int PRECHECK_THREADS = 8;
+  private static final ResponseTracker RESPONSES = ResponseTracker.shared();
+
   private GoogleRepository googleRepository;
   private HttpRequestFactory requestFactory;
+  private HttpTransport httpTransport;
+  private CompletableFuture<Credentials> pendingCredentials;
+  private volatile long credentialsNanos;
   private boolean hasCredentials;
-  private HttpTransportFactory httpTransportFactory = NetHttpTransport::new;
+  private HttpTransportFactory httpTransportFactory =
+      httpEngine(System.getProperty("artifactregistry.httpEngine", "default"));
   private CredentialProvider credentialProvider = DefaultCredentialProvider.getInstance();
   private Credentials credentials;
+  private boolean coalesceRequests = Boolean.getBoolean("artifactregistry.coalesceRequests");
+  private File cacheDirectory = System.getProperty("artifactregistry.cacheDir") == null
+      ? null : new File(System.getProperty("artifactregistry.cacheDir"));
+  private String cacheMaxSize = System.getProperty("artifactregistry.cacheMaxSize", "0");
+  private ArtifactCache artifactCache;
+  private boolean prefetchCompanions = Boolean.getBoolean("artifactregistry.prefetchCompanions");
+  private TransferMetrics metrics = DEFAULT_METRICS;
+  private boolean channelDownload = Boolean.getBoolean("artifactregistry.channelDownload");
+  private int transferListeners;
+  private boolean hedgeRequests = Boolean.getBoolean("artifactregistry.hedgeRequests");
+  private boolean circuitBreaker = Boolean.getBoolean("artifactregistry.circuitBreaker");
+  private boolean skipIdenticalUploads = Boolean.getBoolean("artifactregistry.skipIdenticalUploads");
+  private File bundleFile = System.getProperty("artifactregistry.bundle") == null
+      ? null : new File(System.getProperty("artifactregistry.bundle"));
+  private File bundleRecordFile = System.getProperty("artifactregistry.bundleRecord") == null
+      ? null : new File(System.getProperty("artifactregistry.bundleRecord"));
+  private ArtifactBundle bundle;
+  private ArtifactBundle.Writer bundleRecorder;
+  // Results of precheckUploads, keyed by destination, consumed by put.
+  private final Map<String, UploadCheck> uploadChecks = new ConcurrentHashMap<>();
 
   private InputStream getInputStream(Resource resource)
       throws TransferFailedException, ResourceDoesNotExistException, AuthorizationException {
+    GenericUrl url = googleRepository.constructURL(resource.getName());
+    if (!coalesceRequests) {
+      return fetch(url);
+    }
+    while (true) {
+      AtomicBoolean fetched = new AtomicBoolean();
+      SharedDownload download;
+      try {
+        download = GET_FLIGHTS.execute(url.build(), () -> {
+          fetched.set(true);
+          return SharedDownload.create(fetch(url));
+        });
+      } catch (Exception e) {
+        throw rethrowTransferException(e);
+      }
+      // The fetching caller already holds a reference. If everyone else finished with the file
+      // before we got here it is gone, so start a new flight.
+      if (fetched.get() || download.retain()) {
+        try {
+          return download.openStream();
+        } catch (IOException e) {
+          throw new TransferFailedException("Failed to read downloaded content.", e);
+        }
+      }
+    }
+  }
+
+  private InputStream fetch(GenericUrl url)
+      throws TransferFailedException, ResourceDoesNotExistException, AuthorizationException {
     try {
-      GenericUrl url = googleRepository.constructURL(resource.getName());
-      HttpRequest request = requestFactory.buildGetRequest(url);
-      HttpResponse response = request.execute();
-      return response.getContent();
+      return RESPONSES.open(executeGet(url));
+    } catch (IOException e) {
+      throw new TransferFailedException("Failed to send request to remote server.", e);
+    }
+  }
+
+  private HttpResponse executeGet(GenericUrl url)
+      throws TransferFailedException, ResourceDoesNotExistException, AuthorizationException {
+    try {
+      return executeHedged("GET", url);
     } catch (HttpResponseException e) {
       rethrowAuthorizationException(e);
       rethrowNotFoundException(e);
@@ -73,21 +162,78 @@ public final class ArtifactRegistryWagon extends AbstractWagon {
 
   @Override
   protected void openConnectionInternal() throws ConnectionException, AuthenticationException {
-    HttpTransport httpTransport = httpTransportFactory.create();
+    if (bundleFile != null) {
+      // Everything is served from the bundle, without credentials or any network access.
+      try {
+        bundle = ArtifactBundle.forFile(bundleFile.toPath());
+      } catch (IOException e) {
+        throw new ConnectionException("Failed to open the bundle " + bundleFile + ".", e);
+      }
+      return;
+    }
+    // The credentials are looked up while the rest of the connection is set up, and only waited
+    // for once the first request is made. The lookup is timed when it completes, not when the
+    // first request waits for it.
+    long lookupStart = System.nanoTime();
+    requestFactory = null;
+    pendingCredentials = credentialProvider.getCredentialAsync(new ProcessBuilderCommandExecutor())
+        .whenComplete((result, error) -> credentialsNanos = System.nanoTime() - lookupStart);
+    if (bundleRecordFile != null && bundleRecorder == null) {
+      try {
+        bundleRecorder = ArtifactBundle.recordingTo(bundleRecordFile.toPath());
+      } catch (IOException e) {
+        LOGGER.warn("Failed to record downloads in " + bundleRecordFile + ".", e);
+      }
+    }
+    httpTransport = httpTransportFactory.create();
+    googleRepository = new GoogleRepository(repository);
+    if (cacheDirectory != null) {
+      try {
+        artifactCache = ArtifactCache.forDirectory(cacheDirectory.toPath(),
+            ContentStore.parseSize(cacheMaxSize));
+      } catch (IOException | IllegalArgumentException e) {
+        LOGGER.warn("Failed to open the artifact cache in " + cacheDirectory
+            + ", downloading without it.", e);
+      }
+    }
+  }
+
+  // Returns the factory for requests to the repository, waiting for the credentials that were
+  // requested when connecting the first time it is called. An interrupted wait leaves the factory
+  // unset, so that the next request waits again rather than going out without credentials.
+  private synchronized HttpRequestFactory requestFactory() throws IOException {
+    if (requestFactory != null) {
+      return requestFactory;
+    }
     try {
-      credentials = credentialProvider.getCredential(new ProcessBuilderCommandExecutor());
+      credentials = pendingCredentials.get();
+      metrics.credentialsAcquired(credentialsNanos, true);
       HttpRequestInitializer requestInitializer = new ArtifactRegistryRequestInitializer(credentials, this.getReadTimeout());
       requestFactory = httpTransport.createRequestFactory(requestInitializer);
       hasCredentials = true;
-    } catch (IOException e) {
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      InterruptedIOException interrupted =
+          new InterruptedIOException("Interrupted while waiting for credentials.");
+      interrupted.initCause(e);
+      throw interrupted;
+    } catch (ExecutionException e) {
+      if (e.getCause() instanceof RuntimeException) {
+        throw (RuntimeException) e.getCause();
+      }
+      metrics.credentialsAcquired(credentialsNanos, false);
       requestFactory = httpTransport.createRequestFactory();
     }
-    googleRepository = new GoogleRepository(repository);
+    return requestFactory;
   }
 
   @Override
   protected void closeConnection() throws ConnectionException {
-
+    metrics.connectionClosed();
+    if (bundleRecorder != null) {
+      ArtifactBundle.release(bundleRecorder);
+      bundleRecorder = null;
+    }
   }
 
   @Override
@@ -99,10 +245,33 @@ public final class ArtifactRegistryWagon extends AbstractWagon {
   @Override
   public boolean resourceExists(String resource)
       throws TransferFailedException, AuthorizationException {
+    if (bundle != null) {
+      return findInBundle(resource) != null;
+    }
+    GenericUrl url = googleRepository.constructURL(resource);
+    if (!coalesceRequests) {
+      return head(url);
+    }
     try {
-      GenericUrl url = googleRepository.constructURL(resource);
-      HttpRequest request = requestFactory.buildHeadRequest(url);
-      return request.execute().isSuccessStatusCode();
+      return HEAD_FLIGHTS.execute(url.build(), () -> head(url));
+    } catch (TransferFailedException | AuthorizationException e) {
+      throw e;
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new TransferFailedException("Interrupted while waiting for a concurrent request.", e);
+    } catch (Exception e) {
+      throw new TransferFailedException("Failed to send request to remote server.", e);
+    }
+  }
+
+  private boolean head(GenericUrl url) throws TransferFailedException, AuthorizationException {
+    try {
+      HttpResponse response = executeHedged("HEAD", url);
+      try {
+        return response.isSuccessStatusCode();
+      } finally {
+        RESPONSES.release(response);
+      }
     } catch (HttpResponseException e) {
       if (e.getStatusCode() == HttpStatusCodes.STATUS_CODE_NOT_FOUND) {
         return false;
@@ -121,8 +290,27 @@ public final class ArtifactRegistryWagon extends AbstractWagon {
     this.fireGetInitiated(resource, destination);
     try {
       this.fireGetStarted(resource, destination);
-      InputStream input = getInputStream(resource);
-      this.getTransfer(resource, destination, input);
+      if (bundle != null) {
+        getFromBundle(resource, destination);
+        this.fireGetCompleted(resource, destination);
+        return true;
+      }
+      byte[] prefetched = null;
+      if (prefetchCompanions) {
+        prefetched = takePrefetched(resource);
+        prefetchCompanions(resource);
+      }
+      if (prefetched != null) {
+        this.getTransfer(resource, destination, new ByteArrayInputStream(prefetched));
+      } else if (artifactCache != null) {
+        getCached(resource, destination);
+      } else {
+        InputStream input = getInputStream(resource);
+        transfer(resource, destination, input);
+      }
+      if (bundleRecorder != null) {
+        record(resourceName, destination);
+      }
       this.fireGetCompleted(resource, destination);
     } catch (Exception e) {
       this.fireTransferError(resource, e, TransferEvent.REQUEST_GET);
@@ -131,18 +319,410 @@ public final class ArtifactRegistryWagon extends AbstractWagon {
     return true;
   }
 
+  // Bundles hold files under HOST/PROJECT/REPOSITORY/PATH, the layout of the caching proxy, so that
+  // one bundle can serve several repositories. Bundles made from a local repository hold files
+  // under their plain path, which is tried second.
+  private String bundlePath(String resourceName) {
+    String basedir = repository.getBasedir();
+    while (basedir.endsWith("/")) {
+      basedir = basedir.substring(0, basedir.length() - 1);
+    }
+    return repository.getHost() + basedir + "/" + resourceName;
+  }
+
+  private ArtifactBundle.Entry findInBundle(String resourceName) {
+    ArtifactBundle.Entry entry = bundle.find(bundlePath(resourceName));
+    return entry != null ? entry : bundle.find(resourceName);
+  }
+
+  private void getFromBundle(Resource resource, File destination)
+      throws TransferFailedException, ResourceDoesNotExistException {
+    ArtifactBundle.Entry entry = findInBundle(resource.getName());
+    if (entry == null) {
+      throw new ResourceDoesNotExistException(
+          resource.getName() + " is not in the bundle " + bundleFile + ".");
+    }
+    resource.setContentLength(entry.length);
+    this.getTransfer(resource, destination, bundle.openStream(entry));
+  }
+
+  private void record(String resourceName, File destination) {
+    try {
+      bundleRecorder.add(bundlePath(resourceName), destination.toPath());
+    } catch (IOException e) {
+      LOGGER.warn("Failed to record " + resourceName + " in " + bundleRecordFile + ".", e);
+    }
+  }
+
+  private HttpResponse execute(HttpRequest request) throws IOException {
+    return MeteredRequests.execute(request, metrics, circuitBreaker);
+  }
+
+  // Sends a GET or HEAD request, with a hedged copy if it is slow and hedging is enabled. If the
+  // repository has regional endpoints and this one fails, the request is sent once more to the
+  // endpoint that is preferred after the failure.
+  private HttpResponse executeHedged(String method, GenericUrl url) throws IOException {
+    try {
+      return executeHedgedAt(method, url);
+    } catch (IOException e) {
+      GenericUrl rerouted = isEndpointFailure(e) ? googleRepository.reroute(url) : null;
+      if (rerouted == null) {
+        throw e;
+      }
+      LOGGER.info("Retrying " + url + " at " + rerouted + ".");
+      return executeHedgedAt(method, rerouted);
+    }
+  }
+
+  private HttpResponse executeHedgedAt(String method, GenericUrl url) throws IOException {
+    // Hedged attempts run on pool threads and may be interrupted, so they must not be the ones to
+    // wait for the credentials.
+    HttpRequestFactory factory = requestFactory();
+    RequestHedger.Attempt attempt = () -> execute(factory.buildRequest(method, url, null));
+    if (!hedgeRequests) {
+      return attempt.execute();
+    }
+    return RequestHedger.shared().execute(method, url.getHost(), attempt, metrics);
+  }
+
+  // Failures that say nothing about the resource itself: no response, or a server error.
+  private static boolean isEndpointFailure(IOException e) {
+    return !(e instanceof HttpResponseException)
+        || ((HttpResponseException) e).getStatusCode() >= 500;
+  }
+
+  // Copies a response body into the destination, reporting the throughput to the metrics.
+  private void transfer(Resource resource, File destination, InputStream input)
+      throws TransferFailedException {
+    long start = System.nanoTime();
+    if (channelDownload) {
+      transferToChannel(resource, destination, input);
+    } else {
+      this.getTransfer(resource, destination, input);
+    }
+    metrics.bodyTransferred("GET", googleRepository.repository.getHost(), destination.length(),
+        System.nanoTime() - start);
+  }
+
+  // Writes the body through a FileChannel, reporting progress once per chunk. Listeners still see
+  // every byte, since Maven computes checksums from the progress events.
+  private void transferToChannel(Resource resource, File destination, InputStream input)
+      throws TransferFailedException {
+    this.createParentDirectories(destination);
+    ChannelDownload.Progress progress = null;
+    if (transferListeners > 0) {
+      TransferEvent event = new TransferEvent(this, resource, TransferEvent.TRANSFER_PROGRESS,
+          TransferEvent.REQUEST_GET);
+      event.setLocalFile(destination);
+      progress = (buffer, length) -> {
+        event.setTimestamp(System.currentTimeMillis());
+        this.fireTransferProgress(event, buffer, length);
+      };
+    }
+    try {
+      ChannelDownload.copy(input, destination.toPath(), progress);
+    } catch (IOException e) {
+      throw new TransferFailedException(
+          "GET request of: " + resource.getName() + " from " + repository.getName() + " failed",
+          e);
+    }
+  }
+
+  // Returns the prefetched body of the resource, or null if it has to be downloaded. A prefetch
+  // that found nothing is reported as such without asking again.
+  private byte[] takePrefetched(Resource resource) throws ResourceDoesNotExistException {
+    try {
+      return PREFETCHER.take(googleRepository.constructURL(resource.getName()).build(),
+          this.getReadTimeout());
+    } catch (FileNotFoundException e) {
+      throw new ResourceDoesNotExistException("The remote resource does not exist.", e);
+    }
+  }
+
+  private void prefetchCompanions(Resource resource) {
+    for (String companion : CompanionPrefetcher.companionsOf(resource.getName())) {
+      GenericUrl url = googleRepository.constructURL(companion);
+      PREFETCHER.prefetch(url.build(), () -> {
+        try {
+          return RESPONSES.open(executeGet(url));
+        } catch (ResourceDoesNotExistException e) {
+          FileNotFoundException missing = new FileNotFoundException(url.build());
+          missing.initCause(e);
+          throw missing;
+        }
+      });
+    }
+  }
+
+  // Revalidates a previously downloaded resource with its ETag and links the cached body into
+  // place if it has not changed. Otherwise downloads it and adds it to the cache.
+  private void getCached(Resource resource, File destination)
+      throws TransferFailedException, ResourceDoesNotExistException, AuthorizationException {
+    GenericUrl url = googleRepository.constructURL(resource.getName());
+    String key = url.build();
+    ArtifactCache.Entry cached = artifactCache.lookup(key);
+    HttpResponse response = null;
+    if (cached != null) {
+      try {
+        HttpRequest request = requestFactory().buildGetRequest(url);
+        request.getHeaders().setIfNoneMatch(cached.etag);
+        response = execute(request);
+      } catch (HttpResponseException e) {
+        if (e.getStatusCode() != HttpStatusCodes.STATUS_CODE_NOT_MODIFIED) {
+          rethrowAuthorizationException(e);
+          rethrowNotFoundException(e);
+          throw new TransferFailedException("Received an error from the remote server.", e);
+        }
+        try {
+          // Maven always registers a transfer listener, so under Maven a cached body is copied
+          // through the listeners; it is only hard-linked for callers without any.
+          boolean used = transferListeners > 0
+              ? transferCached(resource, destination, cached.digest)
+              : artifactCache.link(cached.digest, destination.toPath());
+          if (used) {
+            return;
+          }
+        } catch (IOException linkError) {
+          LOGGER.warn("Failed to use cached content for " + key + ", downloading it again.",
+              linkError);
+        }
+      } catch (IOException e) {
+        throw new TransferFailedException("Failed to send request to remote server.", e);
+      }
+    }
+    if (response == null) {
+      response = executeGet(url);
+    }
+    try (InputStream content = RESPONSES.open(response)) {
+      // The destination may be a hard link into the cache, which must not be written through.
+      Files.deleteIfExists(destination.toPath());
+      transfer(resource, destination, content);
+    } catch (IOException e) {
+      throw new TransferFailedException("Failed to send request to remote server.", e);
+    }
+    String etag = response.getHeaders().getETag();
+    if (etag != null) {
+      try {
+        artifactCache.record(key, etag, destination.toPath());
+      } catch (IOException e) {
+        LOGGER.warn("Failed to add " + key + " to the artifact cache.", e);
+      }
+    }
+  }
+
+  // Copies a cached body into place through the transfer listeners, since Maven computes the
+  // checksum of a download from its progress events. Returns false if the body is missing or
+  // corrupt.
+  private boolean transferCached(Resource resource, File destination, String digest)
+      throws IOException, TransferFailedException {
+    try (ArtifactCache.Body body = artifactCache.open(digest)) {
+      if (body != null) {
+        Files.deleteIfExists(destination.toPath());
+        this.getTransfer(resource, destination, body);
+        if (body.isIntact()) {
+          return true;
+        }
+        // The listeners start over with the download that replaces it.
+        this.fireGetStarted(resource, destination);
+      }
+    }
+    Files.deleteIfExists(destination.toPath());
+    return false;
+  }
+
   public void setHttpTransportFactory(HttpTransportFactory httpTransportFactory) {
     this.httpTransportFactory = httpTransportFactory;
   }
 
+  /**
+   * Selects the HTTP client used by this wagon. {@code default} uses {@link HttpURLConnection}.
+   * {@code jdk} uses the {@code java.net.http} client shared by every wagon in the JVM, which
+   * multiplexes concurrent transfers over HTTP/2 and runs on virtual threads on Java 21 and later;
+   * it needs Java 11 and falls back to {@code default} on older versions. Defaults to the
+   * {@code artifactregistry.httpEngine} system property.
+   */
+  public void setHttpEngine(String engine) {
+    this.httpTransportFactory = httpEngine(engine);
+  }
+
+  static HttpTransportFactory httpEngine(String engine) {
+    switch (engine) {
+      case "default":
+        return NetHttpTransport::new;
+      case "jdk":
+        return JdkHttpEngine.factory();
+      default:
+        throw new IllegalArgumentException("Unknown HTTP engine: " + engine);
+    }
+  }
+
   public void setCredentialProvider(CredentialProvider provider) {
     this.credentialProvider = provider;
   }
 
+  /**
+   * Keeps downloaded artifacts in a content-addressed cache in {@code cacheDirectory}, shared by
+   * every build that uses it. Cached artifacts are revalidated with their ETag and hard-linked into
+   * place instead of being downloaded again. Defaults to the {@code artifactregistry.cacheDir}
+   * system property; the cache is disabled if neither is set.
+   */
+  public void setCacheDirectory(File cacheDirectory) {
+    this.cacheDirectory = cacheDirectory;
+  }
+
+  /**
+   * Starts downloading the checksum and POM that Maven usually requests after an artifact as soon
+   * as the artifact download begins, and serves those requests from memory. Defaults to the
+   * {@code artifactregistry.prefetchCompanions} system property.
+   */
+  public void setPrefetchCompanions(boolean prefetchCompanions) {
+    this.prefetchCompanions = prefetchCompanions;
+  }
+
+  /**
+   * Sets the metrics that requests made by this wagon are reported to. Defaults to the metrics
+   * selected by the {@code artifactregistry.metrics} system property, see {@link TransferMetrics}.
+   */
+  public void setTransferMetrics(TransferMetrics metrics) {
+    this.metrics = metrics;
+  }
+
+  /**
+   * Writes downloads through a {@link java.nio.channels.FileChannel} in large pooled chunks and
+   * reports progress once per chunk instead of once per small buffer. Defaults to the
+   * {@code artifactregistry.channelDownload} system property.
+   */
+  public void setChannelDownload(boolean channelDownload) {
+    this.channelDownload = channelDownload;
+  }
+
+  @Override
+  public void addTransferListener(TransferListener listener) {
+    super.addTransferListener(listener);
+    if (listener != null) {
+      transferListeners++;
+    }
+  }
+
+  @Override
+  public void removeTransferListener(TransferListener listener) {
+    if (hasTransferListener(listener)) {
+      transferListeners--;
+    }
+    super.removeTransferListener(listener);
+  }
+
+  /**
+   * Sends a second copy of a GET or HEAD request that has received no response headers after a
+   * delay, and uses whichever answers first. The delay is a percentile of the last thousand or so
+   * response times, set by the {@code artifactregistry.hedgePercentile} system property (95 by
+   * default), and the {@code artifactregistry.hedgeBudget} property caps hedges at a fraction of
+   * all requests (0.1 by default, at most 1). Defaults to the
+   * {@code artifactregistry.hedgeRequests} system property.
+   */
+  public void setHedgeRequests(boolean hedgeRequests) {
+    this.hedgeRequests = hedgeRequests;
+  }
+
+  /**
+   * Serves every download and existence check from the {@link ArtifactBundle} in
+   * {@code bundleFile}, without any network access, and fails uploads. Defaults to the
+   * {@code artifactregistry.bundle} system property.
+   */
+  public void setBundle(File bundleFile) {
+    this.bundleFile = bundleFile;
+  }
+
+  /**
+   * Records every file this wagon downloads into an {@link ArtifactBundle} that is written to
+   * {@code bundleFile} when the JVM exits, shared by every wagon recording to the same file.
+   * Defaults to the {@code artifactregistry.bundleRecord} system property.
+   */
+  public void setBundleRecord(File bundleFile) {
+    this.bundleRecordFile = bundleFile;
+  }
+
+  /**
+   * Fails requests to a host immediately while most recent requests to it have failed, instead of
+   * letting each of them wait for its timeout, and lets a single request through every
+   * {@code artifactregistry.circuitBreakerOpenSeconds} (30 by default) to detect recovery. The
+   * failure share that opens the breaker is set by {@code artifactregistry.circuitBreakerThreshold}
+   * (0.5 by default). The state is shared by every wagon in the JVM. If the repository has
+   * regional endpoints, requests go to another one meanwhile. Defaults to the
+   * {@code artifactregistry.circuitBreaker} system property.
+   */
+  public void setCircuitBreaker(boolean circuitBreaker) {
+    this.circuitBreaker = circuitBreaker;
+  }
+
+  /**
+   * Skips uploads whose destination already holds the same content, as reported by the digest or
+   * ETag in the response to a HEAD request. Transfer events are still fired for skipped uploads.
+   * Defaults to the {@code artifactregistry.skipIdenticalUploads} system property.
+   */
+  public void setSkipIdenticalUploads(boolean skipIdenticalUploads) {
+    this.skipIdenticalUploads = skipIdenticalUploads;
+  }
+
+  /**
+   * Compares a batch of files with their destinations in parallel and returns the destinations
+   * that already hold the same content. When identical uploads are skipped, a later {@link #put}
+   * of one of these files uses this result instead of sending another HEAD request, as long as the
+   * file has not been modified in between.
+   *
+   * @param uploads the files to upload, keyed by destination
+   * @throws TransferFailedException if the wagon serves a bundle, which cannot be uploaded to
+   */
+  public Set<String> precheckUploads(Map<String, File> uploads) throws TransferFailedException {
+    if (bundle != null) {
+      throw new TransferFailedException("Cannot upload to the bundle " + bundleFile
+          + ", bundles are read-only.");
+    }
+    ExecutorService executor = Executors.newFixedThreadPool(
+        Math.max(1, Math.min(uploads.size(), PRECHECK_THREADS)), r -> {
+          Thread t = new Thread(r, "artifactregistry-precheck");
+          t.setDaemon(true);
+          return t;
+        });
+    try {
+      Map<String, Future<UploadCheck>> checks = new LinkedHashMap<>();
+      for (Map.Entry<String, File> upload : uploads.entrySet()) {
+        File source = upload.getValue();
+        GenericUrl url = googleRepository.constructUploadURL(upload.getKey());
+        checks.put(upload.getKey(), executor.submit(() -> checkUpload(source, url)));
+      }
+      Set<String> identical = new LinkedHashSet<>();
+      for (Map.Entry<String, Future<UploadCheck>> check : checks.entrySet()) {
+        UploadCheck result = check.getValue().get();
+        uploadChecks.put(check.getKey(), result);
+        if (result.identical) {
+          identical.add(check.getKey());
+        }
+      }
+      return identical;
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new TransferFailedException("Interrupted while checking remote resources.", e);
+    } catch (ExecutionException e) {
+      throw new TransferFailedException("Failed to check remote resources.", e.getCause());
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  /**
+   * Coalesces concurrent GET and HEAD requests for the same URL made by any wagon in this JVM, so
+   * that only one of them goes to the network. Defaults to the
+   * {@code artifactregistry.coalesceRequests} system property.
+   */
+  public void setCoalesceRequests(boolean coalesceRequests) {
+    this.coalesceRequests = coalesceRequests;
+  }
+
   private void handlePutRequest(File source, Resource resource, GenericUrl url)
       throws AuthorizationException, ResourceDoesNotExistException, TransferFailedException {
     try {
-      HttpRequest request = requestFactory.buildPutRequest(url, new HttpContent() {
+      HttpRequest request = requestFactory().buildPutRequest(url, new HttpContent() {
         @Override
         public long getLength() throws IOException {
           return source.length();
@@ -167,7 +747,9 @@ public final class ArtifactRegistryWagon extends AbstractWagon {
           }
         }
       });
-      request.execute();
+      long start = System.nanoTime();
+      RESPONSES.release(execute(request));
+      metrics.bodyTransferred("PUT", url.getHost(), source.length(), System.nanoTime() - start);
     } catch (HttpResponseException e) {
       rethrowAuthorizationException(e);
       rethrowNotFoundException(e);
@@ -191,16 +773,58 @@ public final class ArtifactRegistryWagon extends AbstractWagon {
   @Override
   public void put(File source, String destination)
       throws TransferFailedException, ResourceDoesNotExistException, AuthorizationException {
+    if (bundle != null) {
+      throw new TransferFailedException("Cannot upload " + destination + " to the bundle "
+          + bundleFile + ", bundles are read-only.");
+    }
     Resource resource = new Resource(destination);
     this.firePutInitiated(resource, source);
     resource.setContentLength(source.length());
     resource.setLastModified(source.lastModified());
-    GenericUrl url = googleRepository.constructURL(resource.getName());
+    GenericUrl url = googleRepository.constructUploadURL(resource.getName());
     this.firePutStarted(resource, source);
-    handlePutRequest(source, resource, url);
+    if (skipIdenticalUploads && isIdentical(source, destination, url)) {
+      LOGGER.info("Skipping upload of " + destination + ", the remote copy is identical.");
+    } else {
+      handlePutRequest(source, resource, url);
+    }
     this.firePutCompleted(resource, source);
   }
 
+  private boolean isIdentical(File source, String destination, GenericUrl url) {
+    UploadCheck check = uploadChecks.remove(destination);
+    if (check == null || !check.isFor(source)) {
+      check = checkUpload(source, url);
+    }
+    return check.identical;
+  }
+
+  // Compares source with the remote resource. Any failure means the file is uploaded, which
+  // reports the error if it persists.
+  private UploadCheck checkUpload(File source, GenericUrl url) {
+    UploadCheck check = new UploadCheck(source);
+    try {
+      HttpResponse response = execute(requestFactory().buildHeadRequest(url));
+      try {
+        RemoteDigest digest = RemoteDigest.fromHeaders(response.getHeaders());
+        if (digest == null) {
+          LOGGER.debug("No digest was returned for " + url + ", uploading it.");
+        } else {
+          check.identical = digest.matches(source);
+        }
+      } finally {
+        RESPONSES.release(response);
+      }
+    } catch (HttpResponseException e) {
+      if (e.getStatusCode() != HttpStatusCodes.STATUS_CODE_NOT_FOUND) {
+        LOGGER.debug("Failed to check " + url + ", uploading it: " + e.getMessage());
+      }
+    } catch (IOException e) {
+      LOGGER.debug("Failed to check " + url + ", uploading it: " + e.getMessage());
+    }
+    return check;
+  }
+
   private void rethrowAuthorizationException(HttpResponseException e)
       throws AuthorizationException {
     if (e.getStatusCode() == HttpStatusCodes.STATUS_CODE_FORBIDDEN
@@ -224,6 +848,63 @@ public final class ArtifactRegistryWagon extends AbstractWagon {
     }
   }
 
+  /** Returns the metrics configured by system properties, shared with the resolver transporter. */
+  static TransferMetrics transferMetrics() {
+    return DEFAULT_METRICS;
+  }
+
+  private static TransferMetrics defaultMetrics() {
+    String name = System.getProperty("artifactregistry.metrics");
+    if (name == null || name.isEmpty() || name.equals("none")) {
+      return TransferMetrics.NONE;
+    }
+    if (name.equals("log")) {
+      return TransferStatistics.reportingOnExit(System.getProperty("artifactregistry.metricsFile"));
+    }
+    try {
+      return (TransferMetrics) Class.forName(name).getConstructor().newInstance();
+    } catch (ReflectiveOperationException | ClassCastException e) {
+      LOGGER.warn("Failed to load transfer metrics " + name + ", metrics are disabled.", e);
+      return TransferMetrics.NONE;
+    }
+  }
+
+  // Rethrows an exception received from a coalesced request as the matching wagon exception.
+  private static TransferFailedException rethrowTransferException(Exception e)
+      throws ResourceDoesNotExistException, AuthorizationException {
+    if (e instanceof TransferFailedException) {
+      return (TransferFailedException) e;
+    } else if (e instanceof ResourceDoesNotExistException) {
+      throw (ResourceDoesNotExistException) e;
+    } else if (e instanceof AuthorizationException) {
+      throw (AuthorizationException) e;
+    } else if (e instanceof InterruptedException) {
+      Thread.currentThread().interrupt();
+      return new TransferFailedException("Interrupted while waiting for a concurrent request.", e);
+    }
+    return new TransferFailedException("Failed to send request to remote server.", e);
+  }
+
+  // The outcome of comparing a file with its destination, valid while the file is unchanged.
+  private static final class UploadCheck {
+
+    private final File source;
+    private final long length;
+    private final long lastModified;
+    private boolean identical;
+
+    UploadCheck(File source) {
+      this.source = source;
+      this.length = source.length();
+      this.lastModified = source.lastModified();
+    }
+
+    boolean isFor(File file) {
+      return file.equals(source) && file.length() == length
+          && file.lastModified() == lastModified;
+    }
+  }
+
   private static class FileTransferException extends IOException {
 
     FileTransferException(Throwable cause) {
@@ -234,19 +915,56 @@ public final class ArtifactRegistryWagon extends AbstractWagon {
   private static class GoogleRepository {
 
     private final Repository repository;
+    private final EndpointSelector endpoints = EndpointSelector.getInstance();
 
     GoogleRepository(Repository repository) {
       this.repository = repository;
     }
 
+    // Returns the URL to read artifactPath from, at the preferred regional endpoint if the
+    // repository has several.
     GenericUrl constructURL(String artifactPath) {
+      if (!endpoints.isEnabled()) {
+        return constructUploadURL(artifactPath);
+      }
+      String endpoint = endpoints.select(repository.getHost() + repository.getBasedir());
+      int slash = endpoint.indexOf('/');
+      if (slash < 0) {
+        return constructUploadURL(artifactPath);
+      }
+      return constructURL(endpoint.substring(0, slash), endpoint.substring(slash), artifactPath);
+    }
+
+    // Uploads always go to the configured repository, as other regions may be read-only.
+    GenericUrl constructUploadURL(String artifactPath) {
+      return constructURL(repository.getHost(), repository.getBasedir(), artifactPath);
+    }
+
+    private static GenericUrl constructURL(String host, String basedir, String artifactPath) {
       GenericUrl url = new GenericUrl();
       url.setScheme("https");
-      url.setHost(repository.getHost());
-      url.appendRawPath(repository.getBasedir());
+      url.setHost(host);
+      url.appendRawPath(basedir);
       url.appendRawPath("/");
       url.appendRawPath(artifactPath);
       return url;
     }
+
+    // Returns url moved to the currently preferred endpoint, or null if it was sent there.
+    GenericUrl reroute(GenericUrl url) {
+      if (!endpoints.isEnabled()) {
+        return null;
+      }
+      String s = url.build();
+      String from = endpoints.endpointOf(s);
+      if (from == null) {
+        return null;
+      }
+      String to = endpoints.select(repository.getHost() + repository.getBasedir());
+      if (to.equals(from)) {
+        return null;
+      }
+      return new GenericUrl("https://" + to + s.substring(("https://" + from).length()));
+    }
   }
 }
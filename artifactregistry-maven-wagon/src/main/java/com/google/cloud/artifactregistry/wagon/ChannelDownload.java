@@ -0,0 +1,111 @@
+/*
+ * Copyright 2026 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.cloud.artifactregistry.wagon;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * ChannelDownload writes a response body into a file through a {@link FileChannel}. Bodies are
+ * copied in large chunks from a shared pool and progress is reported once per chunk, instead of
+ * once per few kilobytes. Bodies that are already in a local file are copied by the kernel when
+ * nobody needs to see their bytes.
+ */
+final class ChannelDownload {
+
+  static final int CHUNK_SIZE = 256 * 1024;
+  private static final int POOLED_CHUNKS = 32;
+  private static final BlockingQueue<byte[]> POOL = new ArrayBlockingQueue<>(POOLED_CHUNKS);
+
+  /** Receives every chunk written to the file. */
+  interface Progress {
+
+    void chunkWritten(byte[] buffer, int length);
+  }
+
+  private ChannelDownload() {}
+
+  /**
+   * Copies {@code in} into {@code destination}, replacing its content, and closes {@code in}.
+   *
+   * @param progress notified with every chunk, or null if nobody needs the bytes
+   * @return the number of bytes written
+   */
+  static long copy(InputStream in, Path destination, Progress progress) throws IOException {
+    try (InputStream input = in;
+        FileChannel out = FileChannel.open(destination, StandardOpenOption.CREATE,
+            StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+      if (progress == null && input instanceof SharedDownload.Stream) {
+        return transfer(((SharedDownload.Stream) input).channel(), out);
+      }
+      byte[] chunk = borrow();
+      try {
+        ByteBuffer buffer = ByteBuffer.wrap(chunk);
+        long total = 0;
+        int n;
+        while ((n = fill(input, chunk)) > 0) {
+          buffer.clear();
+          buffer.limit(n);
+          while (buffer.hasRemaining()) {
+            out.write(buffer);
+          }
+          total += n;
+          if (progress != null) {
+            progress.chunkWritten(chunk, n);
+          }
+        }
+        return total;
+      } finally {
+        POOL.offer(chunk);
+      }
+    }
+  }
+
+  private static long transfer(FileChannel in, FileChannel out) throws IOException {
+    long size = in.size();
+    long position = in.position();
+    while (position < size) {
+      position += in.transferTo(position, size - position, out);
+    }
+    return size;
+  }
+
+  // Reads until the chunk is full or the stream ends, so that each chunk is written and reported
+  // once regardless of how the stream splits its reads.
+  private static int fill(InputStream in, byte[] chunk) throws IOException {
+    int filled = 0;
+    while (filled < chunk.length) {
+      int n = in.read(chunk, filled, chunk.length - filled);
+      if (n < 0) {
+        break;
+      }
+      filled += n;
+    }
+    return filled;
+  }
+
+  private static byte[] borrow() {
+    byte[] chunk = POOL.poll();
+    return chunk != null ? chunk : new byte[CHUNK_SIZE];
+  }
+}
@@ -0,0 +1,167 @@
+/*
+ * Copyright 2026 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.cloud.artifactregistry.wagon;
+
+import java.io.IOException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * CircuitBreaker stops sending requests to a host once most recent requests to it have failed, so
+ * that an outage fails a build quickly instead of every request waiting out its timeout.
+ *
+ * <p>The breaker is closed while the share of failures among the last {@code WINDOW} requests is
+ * below the threshold. When it is crossed the breaker opens and requests fail immediately. After
+ * the open interval a single trial request is let through (half-open): if it succeeds the breaker
+ * closes, otherwise it opens again. A failure is a request that got no response or a server error.
+ */
+final class CircuitBreaker {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(CircuitBreaker.class);
+
+  private static final int WINDOW = 20;
+  // The breaker does not open on the first few requests, however many of them fail.
+  private static final int MIN_REQUESTS = 10;
+
+  // Breakers shared by every wagon and transporter in the JVM, keyed by host.
+  private static final ConcurrentMap<String, CircuitBreaker> BREAKERS = new ConcurrentHashMap<>();
+
+  enum State {
+    CLOSED, OPEN, HALF_OPEN
+  }
+
+  /** Thrown instead of sending a request while the breaker for its host is open. */
+  static final class OpenException extends IOException {
+
+    OpenException(String host, long retryAfterMillis) {
+      super("Requests to " + host + " have been failing, not sending more for "
+          + TimeUnit.MILLISECONDS.toSeconds(retryAfterMillis + 999) + " seconds.");
+    }
+  }
+
+  private final String host;
+  private final double threshold;
+  private final long openMillis;
+  private final LongSupplier clock;
+  // Outcomes of the last WINDOW requests as a ring buffer, true for failures.
+  private final boolean[] outcomes = new boolean[WINDOW];
+  private int next;
+  private int recorded;
+  private int failures;
+  private State state = State.CLOSED;
+  private long openedAtMillis;
+  private boolean trialInFlight;
+
+  CircuitBreaker(String host, double threshold, long openMillis, LongSupplier clock) {
+    this.host = host;
+    this.threshold = threshold;
+    this.openMillis = openMillis;
+    this.clock = clock;
+  }
+
+  /** Returns the breaker for {@code host}, configured by system properties. */
+  static CircuitBreaker forHost(String host) {
+    return BREAKERS.computeIfAbsent(host, h -> new CircuitBreaker(h,
+        Double.parseDouble(System.getProperty("artifactregistry.circuitBreakerThreshold", "0.5")),
+        TimeUnit.SECONDS.toMillis(Long.getLong("artifactregistry.circuitBreakerOpenSeconds", 30)),
+        System::currentTimeMillis));
+  }
+
+  /**
+   * Returns normally if a request may be sent, and must then be followed by one call to
+   * {@link #succeeded}, {@link #failed} or {@link #cancelled}.
+   *
+   * @throws OpenException if the breaker is open
+   */
+  synchronized void acquire() throws OpenException {
+    if (state == State.CLOSED) {
+      return;
+    }
+    long waited = clock.getAsLong() - openedAtMillis;
+    if (state == State.OPEN && waited >= openMillis) {
+      state = State.HALF_OPEN;
+    }
+    if (state == State.HALF_OPEN && !trialInFlight) {
+      trialInFlight = true;
+      return;
+    }
+    throw new OpenException(host, Math.max(0, openMillis - waited));
+  }
+
+  synchronized void succeeded() {
+    if (state == State.HALF_OPEN) {
+      LOGGER.info("Requests to " + host + " are succeeding again.");
+      state = State.CLOSED;
+      trialInFlight = false;
+      clear();
+    }
+    record(false);
+  }
+
+  synchronized void failed() {
+    if (state == State.HALF_OPEN) {
+      open();
+      return;
+    }
+    record(true);
+    if (state == State.CLOSED && recorded >= MIN_REQUESTS
+        && failures >= threshold * recorded) {
+      LOGGER.warn(failures + " of the last " + recorded + " requests to " + host
+          + " failed, failing requests to it for "
+          + TimeUnit.MILLISECONDS.toSeconds(openMillis) + " seconds.");
+      open();
+    }
+  }
+
+  /** Releases a request that ended without telling anything about the host. */
+  synchronized void cancelled() {
+    if (state == State.HALF_OPEN) {
+      trialInFlight = false;
+    }
+  }
+
+  synchronized State state() {
+    return state;
+  }
+
+  private void open() {
+    state = State.OPEN;
+    openedAtMillis = clock.getAsLong();
+    trialInFlight = false;
+  }
+
+  private void record(boolean failure) {
+    if (recorded == WINDOW) {
+      failures -= outcomes[next] ? 1 : 0;
+    } else {
+      recorded++;
+    }
+    outcomes[next] = failure;
+    failures += failure ? 1 : 0;
+    next = (next + 1) % WINDOW;
+  }
+
+  private void clear() {
+    next = 0;
+    recorded = 0;
+    failures = 0;
+  }
+}
@@ -0,0 +1,211 @@
+/*
+ * Copyright 2026 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.cloud.artifactregistry.wagon;
+
+import java.io.ByteArrayOutputStream;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * CompanionPrefetcher speculatively downloads the files that Maven asks for right after an
+ * artifact, such as its {@code .sha1} checksum and POM, and holds them in a small in-memory buffer
+ * until they are requested. Files found not to exist are remembered as such.
+ */
+final class CompanionPrefetcher {
+
+  @FunctionalInterface
+  interface Fetch {
+
+    /** Opens the body, throwing {@link FileNotFoundException} if there is none. */
+    InputStream open() throws Exception;
+  }
+
+  private static final int MAX_ENTRIES = 128;
+  private static final int MAX_RECENT = 4096;
+  private static final int MAX_BODY_BYTES = 256 * 1024;
+  private static final long EXPIRY_MS = TimeUnit.MINUTES.toMillis(1);
+  // How long take waits for a download that is under way. Companions are small, so one that takes
+  // longer is likely stuck and is better fetched again.
+  private static final long MAX_WAIT_MS = 1000;
+
+  private final ThreadPoolExecutor executor;
+  // Prefetched bodies by URL, oldest first.
+  private final LinkedHashMap<String, Prefetch> buffer = new LinkedHashMap<>();
+  // URLs that were recently downloaded, which are not worth prefetching again.
+  private final Map<String, Boolean> recent = new LinkedHashMap<String, Boolean>() {
+    @Override
+    protected boolean removeEldestEntry(Map.Entry<String, Boolean> eldest) {
+      return size() > MAX_RECENT;
+    }
+  };
+
+  private static final class Prefetch {
+
+    final CompletableFuture<byte[]> body = new CompletableFuture<>();
+    final long createdMs = System.currentTimeMillis();
+    // Set by whichever comes first of the download starting and the prefetch being abandoned.
+    final AtomicBoolean claimed = new AtomicBoolean();
+    Runnable task;
+  }
+
+  CompanionPrefetcher(int threads) {
+    this.executor = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+        new LinkedBlockingQueue<>(), r -> {
+          Thread t = new Thread(r, "artifactregistry-prefetch");
+          t.setDaemon(true);
+          return t;
+        });
+  }
+
+  /**
+   * Returns the files Maven is likely to request after {@code resourceName}: its SHA-1 checksum
+   * and, for artifacts other than the POM, the POM of the same version and its checksum.
+   */
+  static List<String> companionsOf(String resourceName) {
+    String fileName = resourceName.substring(resourceName.lastIndexOf('/') + 1);
+    if (fileName.startsWith("maven-metadata") || isChecksumOrSignature(fileName)) {
+      return Collections.emptyList();
+    }
+    List<String> companions = new ArrayList<>();
+    companions.add(resourceName + ".sha1");
+    String[] parts = resourceName.split("/");
+    if (!fileName.endsWith(".pom") && parts.length >= 3) {
+      String base = parts[parts.length - 3] + "-" + parts[parts.length - 2];
+      if (fileName.startsWith(base + ".") || fileName.startsWith(base + "-")) {
+        String pom = resourceName.substring(0, resourceName.length() - fileName.length()) + base
+            + ".pom";
+        companions.add(pom);
+        companions.add(pom + ".sha1");
+      }
+    }
+    return companions;
+  }
+
+  private static boolean isChecksumOrSignature(String fileName) {
+    return fileName.endsWith(".sha1") || fileName.endsWith(".md5") || fileName.endsWith(".sha256")
+        || fileName.endsWith(".sha512") || fileName.endsWith(".asc");
+  }
+
+  /** Starts downloading {@code url} in the background unless it is already buffered. */
+  void prefetch(String url, Fetch fetch) {
+    Prefetch prefetch;
+    synchronized (buffer) {
+      if (buffer.containsKey(url) || recent.containsKey(url)) {
+        return;
+      }
+      prefetch = new Prefetch();
+      prefetch.task = () -> {
+        if (!prefetch.claimed.compareAndSet(false, true)) {
+          return;
+        }
+        try (InputStream in = fetch.open()) {
+          prefetch.body.complete(readBounded(in));
+        } catch (Exception e) {
+          prefetch.body.completeExceptionally(e);
+        }
+      };
+      buffer.put(url, prefetch);
+      trim();
+    }
+    executor.execute(prefetch.task);
+  }
+
+  /**
+   * Removes and returns the prefetched body of {@code url}, waiting up to {@code timeoutMs}, and at
+   * most a second, if it is still downloading. A prefetch that is still queued behind others is
+   * abandoned rather than waited for. Returns null if there is no usable body, in which case the
+   * caller has to download it itself. Either way {@code url} is not prefetched again for a while.
+   *
+   * @throws FileNotFoundException if the prefetch found that {@code url} does not exist, so that
+   *     the caller does not have to ask again
+   */
+  byte[] take(String url, long timeoutMs) throws FileNotFoundException {
+    Prefetch prefetch;
+    synchronized (buffer) {
+      prefetch = buffer.remove(url);
+      recent.put(url, true);
+    }
+    if (prefetch == null || abandon(prefetch) || isExpired(prefetch)) {
+      return null;
+    }
+    try {
+      return prefetch.body.get(Math.min(timeoutMs, MAX_WAIT_MS), TimeUnit.MILLISECONDS);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      return null;
+    } catch (ExecutionException e) {
+      if (e.getCause() instanceof FileNotFoundException) {
+        throw (FileNotFoundException) e.getCause();
+      }
+      return null;
+    } catch (Exception e) {
+      return null;
+    }
+  }
+
+  // Abandons the prefetch if its download has not started yet, returning whether it did.
+  private boolean abandon(Prefetch prefetch) {
+    if (!prefetch.claimed.compareAndSet(false, true)) {
+      return false;
+    }
+    executor.remove(prefetch.task);
+    return true;
+  }
+
+  private static boolean isExpired(Prefetch prefetch) {
+    return System.currentTimeMillis() - prefetch.createdMs > EXPIRY_MS;
+  }
+
+  private void trim() {
+    Iterator<Map.Entry<String, Prefetch>> it = buffer.entrySet().iterator();
+    while (it.hasNext()) {
+      Map.Entry<String, Prefetch> eldest = it.next();
+      if (buffer.size() <= MAX_ENTRIES && !isExpired(eldest.getValue())) {
+        return;
+      }
+      abandon(eldest.getValue());
+      it.remove();
+    }
+  }
+
+  // Reads a small body, failing for anything too large to keep in memory.
+  private static byte[] readBounded(InputStream in) throws IOException {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    byte[] buf = new byte[0x2000];
+    int n;
+    while ((n = in.read(buf)) != -1) {
+      out.write(buf, 0, n);
+      if (out.size() > MAX_BODY_BYTES) {
+        throw new IOException("Body is too large to prefetch.");
+      }
+    }
+    return out.toByteArray();
+  }
+}
@@ -0,0 +1,435 @@
+/*
+ * Copyright 2026 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.cloud.artifactregistry.wagon;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.nio.file.attribute.PosixFileAttributeView;
+import java.nio.file.attribute.PosixFilePermission;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * ContentStore is an on-disk store of file bodies addressed by their SHA-256 digest. When a
+ * maximum size is set, the least recently used bodies are evicted once the store grows past it.
+ * The store is safe to use from several threads of one process.
+ *
+ * <p>Bodies may be hard-linked into local repositories, so they are made read-only where the file
+ * system has POSIX permissions, and {@link #verify} hashes a body again whenever its size,
+ * modification time or file key differ from those it was stored with. The order in which bodies
+ * were used is kept in a journal next to them rather than in their modification times, which
+ * local repositories sharing the files would see change.
+ */
+public final class ContentStore {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(ContentStore.class);
+
+  // Rewrite the use journal on open once it holds this many lines more than there are bodies.
+  private static final int COMPACT_THRESHOLD = 10000;
+
+  private final Path blobs;
+  private final Path tmp;
+  private final Path usedFile;
+  private final long maxBytes;
+  // Digest to size, in least recently used order.
+  private final LinkedHashMap<String, Long> entries = new LinkedHashMap<>(16, 0.75f, true);
+  // The attributes of the bodies stored or verified by this store, by digest.
+  private final Map<String, Stamp> stamps = new HashMap<>();
+  private long totalBytes;
+
+  /** The attributes that change when a file is written to or replaced. */
+  private static final class Stamp {
+
+    final Object fileKey;
+    final long size;
+    final FileTime modified;
+
+    private Stamp(BasicFileAttributes attributes) {
+      this.fileKey = attributes.fileKey();
+      this.size = attributes.size();
+      this.modified = attributes.lastModifiedTime();
+    }
+
+    static Stamp of(Path file) throws IOException {
+      return new Stamp(Files.readAttributes(file, BasicFileAttributes.class));
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (!(o instanceof Stamp)) {
+        return false;
+      }
+      Stamp other = (Stamp) o;
+      return Objects.equals(fileKey, other.fileKey) && size == other.size
+          && modified.equals(other.modified);
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hash(fileKey, size, modified);
+    }
+  }
+
+  /**
+   * Opens (or creates) a store under {@code root}.
+   *
+   * @param maxBytes the size above which bodies are evicted, or 0 for no limit
+   */
+  public ContentStore(Path root, long maxBytes) throws IOException {
+    this.blobs = root.resolve("sha256");
+    this.tmp = root.resolve("tmp");
+    this.usedFile = root.resolve("used");
+    this.maxBytes = maxBytes;
+    Files.createDirectories(blobs);
+    Files.createDirectories(tmp);
+    load();
+  }
+
+  /** Returns a temporary file on the store's file system, to be passed to {@link #put(Path)}. */
+  public Path newTempFile() throws IOException {
+    return Files.createTempFile(tmp, "body-", ".tmp");
+  }
+
+  /**
+   * Moves {@code file} into the store and returns its digest. If the same content is already
+   * present, {@code file} is deleted instead.
+   */
+  public String put(Path file) throws IOException {
+    String digest = digest(file);
+    Path target = path(digest);
+    long size = Files.size(file);
+    synchronized (this) {
+      if (Files.exists(target)) {
+        Files.delete(file);
+      } else {
+        Files.createDirectories(target.getParent());
+        try {
+          Files.move(file, target, StandardCopyOption.ATOMIC_MOVE);
+          seal(digest, target);
+        } catch (FileAlreadyExistsException e) {
+          Files.delete(file);
+        }
+      }
+      if (entries.put(digest, size) == null) {
+        totalBytes += size;
+      }
+      trim(digest);
+    }
+    return digest;
+  }
+
+  /**
+   * Adds the content of {@code file} to the store without moving it and returns its digest. The
+   * body is hard-linked to {@code file} where the file system allows it, and copied otherwise; a
+   * linked {@code file} becomes read-only along with the body.
+   */
+  public String add(Path file) throws IOException {
+    String digest = digest(file);
+    Path target = path(digest);
+    long size = Files.size(file);
+    synchronized (this) {
+      if (!Files.exists(target)) {
+        Files.createDirectories(target.getParent());
+        try {
+          Files.createLink(target, file);
+          seal(digest, target);
+        } catch (FileAlreadyExistsException e) {
+          // Added concurrently by another process.
+        } catch (IOException | UnsupportedOperationException e) {
+          Path copy = newTempFile();
+          Files.copy(file, copy, StandardCopyOption.REPLACE_EXISTING);
+          try {
+            Files.move(copy, target, StandardCopyOption.ATOMIC_MOVE);
+            seal(digest, target);
+          } catch (FileAlreadyExistsException alreadyExists) {
+            Files.delete(copy);
+          }
+        }
+      }
+      if (entries.put(digest, size) == null) {
+        totalBytes += size;
+      }
+      trim(digest);
+    }
+    return digest;
+  }
+
+  /** Removes the body for {@code digest}, for example after it was found to be corrupt. */
+  public void remove(String digest) throws IOException {
+    Path target = path(digest);
+    synchronized (this) {
+      Long size = entries.remove(digest);
+      if (size != null) {
+        totalBytes -= size;
+      }
+      stamps.remove(digest);
+      Files.deleteIfExists(target);
+    }
+  }
+
+  /**
+   * Returns the stored body for {@code digest} and marks it as recently used, or returns null if it
+   * is not in the store.
+   */
+  public Path get(String digest) throws IOException {
+    Path target = path(digest);
+    synchronized (this) {
+      if (entries.get(digest) == null) {
+        return null;
+      }
+      if (!Files.exists(target)) {
+        totalBytes -= entries.remove(digest);
+        stamps.remove(digest);
+        return null;
+      }
+    }
+    markUsed(digest);
+    return target;
+  }
+
+  /**
+   * Returns whether the body for {@code digest} is present and still matches its digest. The body
+   * is only hashed again if it changed since it was stored or last verified by this store, or was
+   * stored by another process. A corrupt body is removed.
+   */
+  public boolean verify(String digest) throws IOException {
+    Path target = path(digest);
+    Stamp current;
+    try {
+      current = Stamp.of(target);
+    } catch (NoSuchFileException e) {
+      return false;
+    }
+    synchronized (this) {
+      if (current.equals(stamps.get(digest))) {
+        return true;
+      }
+    }
+    String actual;
+    try {
+      actual = digest(target);
+    } catch (NoSuchFileException e) {
+      return false;
+    }
+    if (!actual.equals(digest)) {
+      LOGGER.warn("Stored content {} is corrupt, removing it.", digest);
+      remove(digest);
+      return false;
+    }
+    synchronized (this) {
+      stamps.put(digest, current);
+    }
+    return true;
+  }
+
+  /** Returns whether the store holds {@code digest}, without marking it as recently used. */
+  public synchronized boolean contains(String digest) {
+    return entries.containsKey(digest) && Files.exists(path(digest));
+  }
+
+  /** Returns the number of bytes held by the store. */
+  public synchronized long size() {
+    return totalBytes;
+  }
+
+  /** Returns the SHA-256 digest of {@code file} as a lowercase hex string. */
+  public static String digest(Path file) throws IOException {
+    MessageDigest md = sha256();
+    byte[] buf = new byte[0x10000];
+    try (InputStream in = Files.newInputStream(file)) {
+      int n;
+      while ((n = in.read(buf)) != -1) {
+        md.update(buf, 0, n);
+      }
+    }
+    return toHex(md.digest());
+  }
+
+  /** Parses a size in bytes with an optional {@code k}, {@code m} or {@code g} suffix. */
+  public static long parseSize(String value) {
+    String s = value.trim().toLowerCase();
+    long multiplier = 1;
+    if (s.endsWith("k")) {
+      multiplier = 1L << 10;
+    } else if (s.endsWith("m")) {
+      multiplier = 1L << 20;
+    } else if (s.endsWith("g")) {
+      multiplier = 1L << 30;
+    }
+    if (multiplier != 1) {
+      s = s.substring(0, s.length() - 1);
+    }
+    return Long.parseLong(s) * multiplier;
+  }
+
+  static MessageDigest sha256() {
+    try {
+      return MessageDigest.getInstance("SHA-256");
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException("SHA-256 is not available", e);
+    }
+  }
+
+  static String toHex(byte[] bytes) {
+    StringBuilder sb = new StringBuilder(bytes.length * 2);
+    for (byte b : bytes) {
+      sb.append(Character.forDigit((b >> 4) & 0xf, 16));
+      sb.append(Character.forDigit(b & 0xf, 16));
+    }
+    return sb.toString();
+  }
+
+  private static boolean isDigest(String s) {
+    return s.length() == 64 && s.matches("[0-9a-f]+");
+  }
+
+  // Makes a new body read-only, so that writes through a local repository sharing it fail rather
+  // than change it, and records its attributes for verify.
+  private void seal(String digest, Path body) throws IOException {
+    PosixFileAttributeView view =
+        Files.getFileAttributeView(body, PosixFileAttributeView.class);
+    if (view != null) {
+      Set<PosixFilePermission> permissions = view.readAttributes().permissions();
+      permissions.remove(PosixFilePermission.OWNER_WRITE);
+      permissions.remove(PosixFilePermission.GROUP_WRITE);
+      permissions.remove(PosixFilePermission.OTHERS_WRITE);
+      view.setPermissions(permissions);
+    }
+    stamps.put(digest, Stamp.of(body));
+  }
+
+  // Appends digest to the use journal, which orders the bodies when the store is opened again.
+  private void markUsed(String digest) throws IOException {
+    byte[] line = (digest + '\n').getBytes(StandardCharsets.US_ASCII);
+    synchronized (usedFile) {
+      try (OutputStream out = Files.newOutputStream(usedFile, StandardOpenOption.CREATE,
+          StandardOpenOption.APPEND)) {
+        out.write(line);
+      }
+    }
+  }
+
+  private Path path(String digest) {
+    if (!isDigest(digest)) {
+      throw new IllegalArgumentException("Not a SHA-256 digest: " + digest);
+    }
+    return blobs.resolve(digest.substring(0, 2)).resolve(digest);
+  }
+
+  // Evicts the least recently used bodies until the store fits, never evicting {@code keep}.
+  private void trim(String keep) throws IOException {
+    if (maxBytes <= 0) {
+      return;
+    }
+    Iterator<Map.Entry<String, Long>> it = entries.entrySet().iterator();
+    while (totalBytes > maxBytes && it.hasNext()) {
+      Map.Entry<String, Long> eldest = it.next();
+      if (eldest.getKey().equals(keep)) {
+        continue;
+      }
+      LOGGER.debug("Evicting {} from the content store.", eldest.getKey());
+      Files.deleteIfExists(path(eldest.getKey()));
+      stamps.remove(eldest.getKey());
+      totalBytes -= eldest.getValue();
+      it.remove();
+    }
+  }
+
+  private void load() throws IOException {
+    List<Path> files = new ArrayList<>();
+    try (DirectoryStream<Path> prefixes = Files.newDirectoryStream(blobs)) {
+      for (Path prefix : prefixes) {
+        if (!Files.isDirectory(prefix)) {
+          continue;
+        }
+        try (DirectoryStream<Path> bodies = Files.newDirectoryStream(prefix)) {
+          for (Path body : bodies) {
+            if (isDigest(body.getFileName().toString())) {
+              files.add(body);
+            }
+          }
+        }
+      }
+    }
+    // Bodies are ordered by when they were stored, and then by the use journal.
+    files.sort(Comparator.comparing(ContentStore::lastModified));
+    synchronized (this) {
+      for (Path file : files) {
+        long size = Files.size(file);
+        entries.put(file.getFileName().toString(), size);
+        totalBytes += size;
+      }
+      int lines = 0;
+      try (BufferedReader reader = Files.newBufferedReader(usedFile, StandardCharsets.US_ASCII)) {
+        String line;
+        while ((line = reader.readLine()) != null) {
+          lines++;
+          // Moves the body to the most recently used end.
+          entries.get(line);
+        }
+      } catch (NoSuchFileException e) {
+        // Nothing used yet.
+      }
+      trim(null);
+      if (lines - entries.size() > COMPACT_THRESHOLD) {
+        compactUsed();
+      }
+    }
+  }
+
+  // Rewrites the use journal with one line per body, in the current order.
+  private void compactUsed() throws IOException {
+    Path rewritten = newTempFile();
+    try (BufferedWriter writer = Files.newBufferedWriter(rewritten, StandardCharsets.US_ASCII)) {
+      for (String digest : entries.keySet()) {
+        writer.write(digest + '\n');
+      }
+    }
+    synchronized (usedFile) {
+      Files.move(rewritten, usedFile, StandardCopyOption.REPLACE_EXISTING,
+          StandardCopyOption.ATOMIC_MOVE);
+    }
+  }
+
+  private static long lastModified(Path file) {
+    return file.toFile().lastModified();
+  }
+}
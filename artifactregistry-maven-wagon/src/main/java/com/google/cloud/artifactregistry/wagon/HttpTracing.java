@@ -0,0 +1,84 @@
+/*
+ * Copyright 2026 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.cloud.artifactregistry.wagon;
+
+import com.google.api.client.http.HttpContent;
+import com.google.api.client.http.HttpRequest;
+import com.google.api.client.http.HttpResponse;
+import com.google.api.client.http.HttpResponseException;
+import com.google.cloud.artifactregistry.auth.Tracing;
+import java.io.IOException;
+
+/**
+ * HttpTracing records a client span for each HTTP request sent to Artifact Registry, with the
+ * attributes of the OpenTelemetry HTTP conventions, and passes the span on to the server in the
+ * {@code traceparent} header. It does nothing while {@link Tracing} is off.
+ */
+final class HttpTracing {
+
+  private HttpTracing() {}
+
+  /** Starts the span of {@code request} and adds its headers to the request. */
+  static Tracing.Span start(HttpRequest request) {
+    Tracing.Span span = Tracing.start(request.getRequestMethod(), Tracing.Kind.CLIENT);
+    if (!Tracing.isEnabled()) {
+      return span;
+    }
+    span.setAttribute("http.request.method", request.getRequestMethod())
+        .setAttribute("server.address", request.getUrl().getHost())
+        .setAttribute("url.full", request.getUrl().build());
+    HttpContent content = request.getContent();
+    if (content != null) {
+      try {
+        if (content.getLength() >= 0) {
+          span.setAttribute("http.request.body.size", content.getLength());
+        }
+      } catch (IOException e) {
+        // The size is unknown.
+      }
+    }
+    span.inject((name, value) -> request.getHeaders().set(name, value));
+    return span;
+  }
+
+  /** Records that {@code request} is sent again, {@code attempt} being 2 for the first retry. */
+  static void retried(Tracing.Span span, int attempt) {
+    span.addEvent("retry");
+    span.setAttribute("http.request.resend_count", attempt - 1);
+  }
+
+  static void completed(Tracing.Span span, HttpResponse response) {
+    span.setAttribute("http.response.status_code", response.getStatusCode());
+    Long length = response.getHeaders().getContentLength();
+    if (length != null) {
+      span.setAttribute("http.response.body.size", length);
+    }
+  }
+
+  /** Records the number of body bytes the caller read before releasing the response. */
+  static void released(Tracing.Span span, long bytesRead) {
+    span.setAttribute("artifactregistry.http.response.body.read", bytesRead);
+  }
+
+  static void failed(Tracing.Span span, IOException error) {
+    if (error instanceof HttpResponseException) {
+      span.setAttribute("http.response.status_code",
+          ((HttpResponseException) error).getStatusCode());
+    }
+    span.recordException(error);
+  }
+}
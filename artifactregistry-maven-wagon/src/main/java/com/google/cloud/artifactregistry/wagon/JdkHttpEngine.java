@@ -0,0 +1,40 @@
+/*
+ * Copyright 2026 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.cloud.artifactregistry.wagon;
+
+import com.google.api.client.http.javanet.NetHttpTransport;
+import com.google.auth.http.HttpTransportFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * JdkHttpEngine provides the HTTP transport built on {@code java.net.http.HttpClient}. This is the
+ * Java 8 version of the class, used when the client is not available; the jar carries the real
+ * implementation under {@code META-INF/versions/11}.
+ */
+final class JdkHttpEngine {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(JdkHttpEngine.class);
+
+  private JdkHttpEngine() {}
+
+  /** Returns the default engine, since the client needs Java 11 or later. */
+  static HttpTransportFactory factory() {
+    LOGGER.warn("The jdk HTTP engine requires Java 11 or later, using the default engine.");
+    return NetHttpTransport::new;
+  }
+}
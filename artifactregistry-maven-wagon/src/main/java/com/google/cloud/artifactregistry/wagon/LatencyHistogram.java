@@ -0,0 +1,115 @@
+/*
+ * Copyright 2026 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.cloud.artifactregistry.wagon;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * LatencyHistogram counts durations in fixed millisecond buckets, which is enough to estimate
+ * percentiles without keeping every sample.
+ */
+final class LatencyHistogram {
+
+  // Upper bounds of the buckets in milliseconds; the last bucket holds everything slower.
+  private static final long[] BOUNDS_MS = {
+      1, 2, 5, 10, 20, 50, 100, 200, 500, 1000, 2000, 5000, 10000, 30000, 60000};
+
+  private final AtomicLongArray counts = new AtomicLongArray(BOUNDS_MS.length + 1);
+  private final AtomicLong count = new AtomicLong();
+  private final AtomicLong totalNanos = new AtomicLong();
+
+  void record(long nanos) {
+    long ms = TimeUnit.NANOSECONDS.toMillis(nanos);
+    int bucket = 0;
+    while (bucket < BOUNDS_MS.length && ms > BOUNDS_MS[bucket]) {
+      bucket++;
+    }
+    counts.incrementAndGet(bucket);
+    count.incrementAndGet();
+    totalNanos.addAndGet(nanos);
+  }
+
+  long count() {
+    return count.get();
+  }
+
+  long meanMillis() {
+    long n = count.get();
+    return n == 0 ? 0 : TimeUnit.NANOSECONDS.toMillis(totalNanos.get() / n);
+  }
+
+  /**
+   * Returns the upper bound in milliseconds of the bucket holding the given percentile, or -1 if
+   * it falls in the unbounded bucket.
+   */
+  long percentileMillis(double percentile) {
+    long n = count.get();
+    if (n == 0) {
+      return 0;
+    }
+    long rank = (long) Math.ceil(n * percentile / 100.0);
+    long seen = 0;
+    for (int i = 0; i < BOUNDS_MS.length; i++) {
+      seen += counts.get(i);
+      if (seen >= rank) {
+        return BOUNDS_MS[i];
+      }
+    }
+    return -1;
+  }
+
+  /**
+   * Returns an estimate of the given percentile in milliseconds, interpolated linearly within the
+   * bucket holding it, or -1 if it falls in the unbounded bucket.
+   */
+  long interpolatedPercentileMillis(double percentile) {
+    long n = count.get();
+    if (n == 0) {
+      return 0;
+    }
+    double rank = n * percentile / 100.0;
+    long seen = 0;
+    for (int i = 0; i < BOUNDS_MS.length; i++) {
+      long inBucket = counts.get(i);
+      if (inBucket > 0 && seen + inBucket >= rank) {
+        long lower = i == 0 ? 0 : BOUNDS_MS[i - 1];
+        return lower + Math.round((BOUNDS_MS[i] - lower) * (rank - seen) / inBucket);
+      }
+      seen += inBucket;
+    }
+    return -1;
+  }
+
+  /**
+   * Halves every count once there are {@code maxCount} samples, so that older samples weigh less
+   * and less and the percentiles follow recent durations. Samples recorded concurrently may be
+   * lost.
+   */
+  synchronized void decay(long maxCount) {
+    if (count.get() < maxCount) {
+      return;
+    }
+    long total = 0;
+    for (int i = 0; i < counts.length(); i++) {
+      total += counts.updateAndGet(i, c -> c / 2);
+    }
+    count.set(total);
+    totalNanos.updateAndGet(t -> t / 2);
+  }
+}
@@ -0,0 +1,154 @@
+/*
+ * Copyright 2026 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.cloud.artifactregistry.wagon;
+
+import com.google.api.client.http.HttpExecuteInterceptor;
+import com.google.api.client.http.HttpRequest;
+import com.google.api.client.http.HttpResponse;
+import com.google.api.client.http.HttpResponseException;
+import com.google.cloud.artifactregistry.auth.EndpointSelector;
+import com.google.cloud.artifactregistry.auth.Tracing;
+import java.io.IOException;
+
+/**
+ * MeteredRequests executes the HTTP requests of both {@link ArtifactRegistryWagon} and
+ * {@link ArtifactRegistryTransporter}: it traces each request, reports its outcome and number of
+ * attempts to the metrics, and reports failures to the circuit breaker of its host and to the
+ * regional endpoint it was sent to.
+ */
+final class MeteredRequests {
+
+  private MeteredRequests() {}
+
+  /**
+   * Executes {@code request}. If {@code circuitBreaker} is set, the request fails immediately with
+   * a {@link CircuitBreaker.OpenException} while the breaker for its host is open.
+   */
+  static HttpResponse execute(HttpRequest request, TransferMetrics metrics, boolean circuitBreaker)
+      throws IOException {
+    Tracing.Span span = HttpTracing.start(request);
+    boolean traced = false;
+    try {
+      HttpResponse response = execute(request, span, metrics, circuitBreaker);
+      HttpTracing.completed(span, response);
+      // The span also covers reading the body, and ends when the response is released.
+      span.detach();
+      ResponseTracker.shared().trace(response, span);
+      traced = true;
+      return response;
+    } catch (IOException e) {
+      HttpTracing.failed(span, e);
+      throw e;
+    } finally {
+      if (!traced) {
+        span.close();
+      }
+    }
+  }
+
+  // Executes a request, reporting its outcome and the number of attempts to the metrics and its
+  // retries to the span.
+  private static HttpResponse execute(HttpRequest request, Tracing.Span span,
+      TransferMetrics metrics, boolean circuitBreaker) throws IOException {
+    String method = request.getRequestMethod();
+    String host = request.getUrl().getHost();
+    CircuitBreaker breaker = circuitBreaker ? CircuitBreaker.forHost(host) : null;
+    if (breaker != null) {
+      try {
+        breaker.acquire();
+      } catch (CircuitBreaker.OpenException e) {
+        metrics.requestCompleted(method, host, 0, 0, 0, "CircuitOpen");
+        recordEndpoint(request, 0, 0);
+        throw e;
+      }
+    }
+    int[] attempts = {0};
+    HttpExecuteInterceptor interceptor = request.getInterceptor();
+    request.setInterceptor(r -> {
+      attempts[0]++;
+      if (attempts[0] > 1) {
+        HttpTracing.retried(span, attempts[0]);
+      }
+      if (interceptor != null) {
+        interceptor.intercept(r);
+      }
+    });
+    long start = System.nanoTime();
+    try {
+      HttpResponse response = request.execute();
+      metrics.requestCompleted(method, host, response.getStatusCode(), attempts[0],
+          System.nanoTime() - start, null);
+      reportOutcome(request, breaker, response.getStatusCode(), System.nanoTime() - start);
+      return response;
+    } catch (HttpResponseException e) {
+      metrics.requestCompleted(method, host, e.getStatusCode(), attempts[0],
+          System.nanoTime() - start, null);
+      reportOutcome(request, breaker, e.getStatusCode(), System.nanoTime() - start);
+      throw e;
+    } catch (IOException e) {
+      metrics.requestCompleted(method, host, 0, attempts[0], System.nanoTime() - start,
+          e.getClass().getSimpleName());
+      // An interrupted request was cancelled, for example as the slower copy of a hedged one.
+      reportOutcome(request, breaker, Thread.currentThread().isInterrupted() ? -1 : 0,
+          System.nanoTime() - start);
+      throw e;
+    } catch (RuntimeException e) {
+      reportOutcome(request, breaker, -1, 0);
+      throw e;
+    }
+  }
+
+  // Reports the outcome of a request to the circuit breaker for its host and to the regional
+  // endpoint it was sent to. statusCode is 0 if no response was received, and -1 if the request
+  // ended without saying anything about the server.
+  private static void reportOutcome(HttpRequest request, CircuitBreaker breaker, int statusCode,
+      long durationNanos) {
+    if (statusCode < 0) {
+      if (breaker != null) {
+        breaker.cancelled();
+      }
+      return;
+    }
+    if (breaker != null) {
+      if (statusCode == 0 || statusCode >= 500) {
+        breaker.failed();
+      } else {
+        breaker.succeeded();
+      }
+    }
+    recordEndpoint(request, statusCode, durationNanos);
+  }
+
+  // Reports the outcome of a request to the regional endpoint it was sent to, if any. Only the
+  // latency of GET and HEAD requests is comparable between requests.
+  private static void recordEndpoint(HttpRequest request, int statusCode, long durationNanos) {
+    EndpointSelector endpoints = EndpointSelector.getInstance();
+    if (!endpoints.isEnabled()) {
+      return;
+    }
+    String endpoint = endpoints.endpointOf(request.getUrl().build());
+    if (endpoint == null) {
+      return;
+    }
+    if (statusCode == 0 || statusCode >= 500) {
+      endpoints.recordFailure(endpoint);
+    } else if (request.getRequestMethod().equals("GET")
+        || request.getRequestMethod().equals("HEAD")) {
+      endpoints.recordSuccess(endpoint, durationNanos);
+    }
+  }
+}
@@ -0,0 +1,152 @@
+/*
+ * Copyright 2026 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.cloud.artifactregistry.wagon;
+
+import com.google.api.client.http.HttpHeaders;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.Locale;
+
+/**
+ * RemoteDigest is the content digest that a server reports for a resource in its response
+ * headers. It is used to tell whether a local file is identical to the remote copy without
+ * downloading it.
+ */
+final class RemoteDigest {
+
+  // Checksum headers in order of preference.
+  private static final String[][] CHECKSUM_HEADERS = {
+      {"SHA-256", "x-checksum-sha256"},
+      {"SHA-1", "x-checksum-sha1"},
+      {"MD5", "x-checksum-md5"},
+  };
+
+  /** Opens the local content to compare. */
+  interface Content {
+    InputStream open() throws IOException;
+  }
+
+  private final String algorithm;
+  private final String hex;
+  private final long length;
+
+  private RemoteDigest(String algorithm, String hex, long length) {
+    this.algorithm = algorithm;
+    this.hex = hex.toLowerCase(Locale.ROOT);
+    this.length = length;
+  }
+
+  /**
+   * Returns the strongest digest found in {@code headers}, or null if there is none. Besides the
+   * {@code x-checksum-*} headers, the MD5 in {@code x-goog-hash} is used, as is a strong ETag that
+   * has the form of a hex MD5, SHA-1 or SHA-256 digest.
+   */
+  static RemoteDigest fromHeaders(HttpHeaders headers) {
+    Long contentLength = headers.getContentLength();
+    long length = contentLength == null ? -1 : contentLength;
+    for (String[] checksum : CHECKSUM_HEADERS) {
+      String value = headers.getFirstHeaderStringValue(checksum[1]);
+      if (isHex(value, digestLength(checksum[0]))) {
+        return new RemoteDigest(checksum[0], value, length);
+      }
+    }
+    String md5 = md5FromGoogHash(headers.getFirstHeaderStringValue("x-goog-hash"));
+    if (md5 != null) {
+      return new RemoteDigest("MD5", md5, length);
+    }
+    String etag = headers.getETag();
+    if (etag != null && !etag.startsWith("W/")) {
+      etag = etag.replace("\"", "");
+      for (String algorithm : new String[] {"SHA-256", "SHA-1", "MD5"}) {
+        if (isHex(etag, digestLength(algorithm))) {
+          return new RemoteDigest(algorithm, etag, length);
+        }
+      }
+    }
+    return null;
+  }
+
+  /** Returns whether {@code file} has this digest. */
+  boolean matches(File file) throws IOException {
+    return matches(file.length(), () -> new FileInputStream(file));
+  }
+
+  /** Returns whether the {@code length} bytes of {@code content} have this digest. */
+  boolean matches(long length, Content content) throws IOException {
+    if (this.length >= 0 && length >= 0 && this.length != length) {
+      return false;
+    }
+    MessageDigest md;
+    try {
+      md = MessageDigest.getInstance(algorithm);
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException(algorithm + " is not available.", e);
+    }
+    byte[] buf = new byte[0x10000];
+    try (InputStream in = content.open()) {
+      int n;
+      while ((n = in.read(buf)) != -1) {
+        md.update(buf, 0, n);
+      }
+    }
+    return hex.equals(ContentStore.toHex(md.digest()));
+  }
+
+  @Override
+  public String toString() {
+    return algorithm + ":" + hex;
+  }
+
+  // Extracts the MD5 from an "x-goog-hash: crc32c=...,md5=<base64>" header as hex.
+  static String md5FromGoogHash(String header) {
+    if (header == null) {
+      return null;
+    }
+    for (String part : header.split(",")) {
+      part = part.trim();
+      if (part.startsWith("md5=")) {
+        try {
+          byte[] digest = Base64.getDecoder().decode(part.substring(4));
+          return digest.length == 16 ? ContentStore.toHex(digest) : null;
+        } catch (IllegalArgumentException e) {
+          return null;
+        }
+      }
+    }
+    return null;
+  }
+
+  private static int digestLength(String algorithm) {
+    switch (algorithm) {
+      case "SHA-256":
+        return 64;
+      case "SHA-1":
+        return 40;
+      default:
+        return 32;
+    }
+  }
+
+  private static boolean isHex(String value, int length) {
+    return value != null && value.length() == length && value.matches("[0-9a-fA-F]+");
+  }
+}
@@ -0,0 +1,230 @@
+/*
+ * Copyright 2026 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.cloud.artifactregistry.wagon;
+
+import com.google.api.client.http.HttpResponse;
+import com.google.api.client.http.HttpResponseException;
+import com.google.cloud.artifactregistry.auth.Tracing;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * RequestHedger sends a second copy of a request when the first has not received response headers
+ * within a delay taken from a percentile of recent response times, and returns whichever answers
+ * first. The other copy is cancelled, and its response is discarded if it arrives anyway. The
+ * response times are kept in a histogram whose counts are halved every {@value #DECAY_SAMPLES}
+ * samples, so the delay recovers after a slow period, and the percentile is interpolated within
+ * the histogram's buckets.
+ *
+ * <p>Hedges are paid for from a budget: every request earns {@code budget} (at most 1) of a hedge
+ * and every hedge spends a whole one, so hedging can never more than double the number of
+ * requests.
+ */
+final class RequestHedger {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(RequestHedger.class);
+
+  // Below this many samples the percentile is meaningless and the initial delay is used instead.
+  private static final int MIN_SAMPLES = 20;
+  private static final int DECAY_SAMPLES = 1000;
+  private static final long MIN_DELAY_MS = 10;
+  private static final long MAX_DELAY_MS = 60000;
+  // Unspent budget is capped so that a long quiet period cannot fund a burst of hedges.
+  private static final double MAX_TOKENS = 10;
+
+  /** Sends one copy of a request. */
+  interface Attempt {
+    HttpResponse execute() throws IOException;
+  }
+
+  private final double percentile;
+  private final double budget;
+  private final long initialDelayMs;
+  private final ExecutorService executor;
+  private final LatencyHistogram latency = new LatencyHistogram();
+  private double tokens;
+
+  RequestHedger(double percentile, double budget) {
+    this(percentile, budget, 1000);
+  }
+
+  RequestHedger(double percentile, double budget, long initialDelayMs) {
+    if (percentile <= 0 || percentile >= 100) {
+      throw new IllegalArgumentException("The hedging percentile must be between 0 and 100.");
+    }
+    this.percentile = percentile;
+    this.budget = Math.max(0, Math.min(1, budget));
+    this.initialDelayMs = initialDelayMs;
+    this.executor = Executors.newCachedThreadPool(r -> {
+      Thread t = new Thread(r, "artifactregistry-hedge");
+      t.setDaemon(true);
+      return t;
+    });
+  }
+
+  /** Returns the hedger configured by system properties, shared by every wagon in the JVM. */
+  static RequestHedger shared() {
+    return Shared.INSTANCE;
+  }
+
+  private static final class Shared {
+    static final RequestHedger INSTANCE = new RequestHedger(
+        Double.parseDouble(System.getProperty("artifactregistry.hedgePercentile", "95")),
+        Double.parseDouble(System.getProperty("artifactregistry.hedgeBudget", "0.1")));
+  }
+
+  /**
+   * Executes {@code attempt}, hedging it if it is slow. An error response from either copy is an
+   * answer; a failure to get any response is only reported once no copy is left running.
+   */
+  HttpResponse execute(String method, String host, Attempt attempt, TransferMetrics metrics)
+      throws IOException {
+    earn();
+    long start = System.nanoTime();
+    Race race = new Race();
+    race.start(attempt);
+    try {
+      HttpResponse response = race.await(delayMillis());
+      if (response != null) {
+        return response;
+      }
+      boolean hedged = spend();
+      if (hedged) {
+        LOGGER.debug("Hedging a slow " + method + " request to " + host + ".");
+        race.start(attempt);
+      }
+      response = race.await(-1);
+      if (hedged) {
+        metrics.requestHedged(method, host, race.winner == 1);
+      }
+      return response;
+    } finally {
+      race.cancel();
+      recordLatency(System.nanoTime() - start);
+    }
+  }
+
+  void recordLatency(long nanos) {
+    latency.record(nanos);
+    latency.decay(DECAY_SAMPLES);
+  }
+
+  /** Returns how long to wait for response headers before hedging. */
+  long delayMillis() {
+    if (latency.count() < MIN_SAMPLES) {
+      return initialDelayMs;
+    }
+    long delay = latency.interpolatedPercentileMillis(percentile);
+    return delay < 0 ? MAX_DELAY_MS : Math.max(MIN_DELAY_MS, delay);
+  }
+
+  private synchronized void earn() {
+    tokens = Math.min(MAX_TOKENS, tokens + budget);
+  }
+
+  private synchronized boolean spend() {
+    if (tokens < 1) {
+      return false;
+    }
+    tokens -= 1;
+    return true;
+  }
+
+  // The copies of one request. The first response or error response completes the result.
+  private final class Race {
+
+    private final CompletableFuture<HttpResponse> result = new CompletableFuture<>();
+    private final List<Future<?>> attempts = new ArrayList<>();
+    private final AtomicInteger running = new AtomicInteger();
+    private volatile int winner = -1;
+
+    synchronized void start(Attempt attempt) {
+      if (result.isDone()) {
+        return;
+      }
+      int index = attempts.size();
+      running.incrementAndGet();
+      // The attempt's span is a child of the span of the caller.
+      attempts.add(executor.submit(Tracing.wrap(() -> run(index, attempt))));
+    }
+
+    private void run(int index, Attempt attempt) {
+      try {
+        HttpResponse response = attempt.execute();
+        if (!complete(index, response, null)) {
+          ResponseTracker.shared().discard(response);
+        }
+      } catch (HttpResponseException e) {
+        complete(index, null, e);
+      } catch (IOException | RuntimeException e) {
+        if (running.decrementAndGet() == 0) {
+          complete(index, null, e);
+        }
+      }
+    }
+
+    private synchronized boolean complete(int index, HttpResponse response, Exception error) {
+      if (result.isDone()) {
+        return false;
+      }
+      winner = index;
+      return error == null ? result.complete(response) : result.completeExceptionally(error);
+    }
+
+    // Waits for the result, without a time limit if timeoutMs is negative. Returns null if the
+    // time limit expires first.
+    HttpResponse await(long timeoutMs) throws IOException {
+      try {
+        return timeoutMs < 0 ? result.get() : result.get(timeoutMs, TimeUnit.MILLISECONDS);
+      } catch (TimeoutException e) {
+        return null;
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new InterruptedIOException("Interrupted while waiting for a response.");
+      } catch (ExecutionException e) {
+        Throwable cause = e.getCause();
+        if (cause instanceof IOException) {
+          throw (IOException) cause;
+        } else if (cause instanceof RuntimeException) {
+          throw (RuntimeException) cause;
+        }
+        throw new IOException(cause);
+      }
+    }
+
+    synchronized void cancel() {
+      if (!result.isDone()) {
+        result.cancel(false);
+      }
+      for (Future<?> attempt : attempts) {
+        attempt.cancel(true);
+      }
+    }
+  }
+}
@@ -0,0 +1,270 @@
+/*
+ * Copyright 2026 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.cloud.artifactregistry.wagon;
+
+import com.google.api.client.http.HttpResponse;
+import com.google.cloud.artifactregistry.auth.Tracing;
+import java.io.ByteArrayInputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.ref.PhantomReference;
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * ResponseTracker releases HTTP responses once their body has been read or is not needed, so that
+ * their connection goes back to the pool of the transport instead of staying open until the
+ * response is garbage collected. Short remaining bodies are read to the end, which lets the
+ * connection be reused; longer ones are abandoned along with their connection.
+ *
+ * <p>The span of each traced response ends when the response is released, so that it covers
+ * reading the body. The tracker counts the responses whose body is still open. With the {@code
+ * artifactregistry.debugResponses} system property it also remembers where each body was opened,
+ * and logs those that are garbage collected without being closed.
+ */
+final class ResponseTracker {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(ResponseTracker.class);
+
+  static final int DRAIN_LIMIT = 64 * 1024;
+
+  private static final ResponseTracker SHARED =
+      new ResponseTracker(Boolean.getBoolean("artifactregistry.debugResponses"));
+
+  private final boolean debug;
+  private final AtomicInteger open = new AtomicInteger();
+  private final ReferenceQueue<Object> collected = new ReferenceQueue<>();
+  // Keeps the leak references of open bodies reachable, so that they are enqueued when their
+  // stream is collected. Only used in debug mode.
+  private final Set<Reference<?>> watched = Collections.newSetFromMap(new ConcurrentHashMap<>());
+  // The spans of responses that were not released yet. Responses that are dropped without being
+  // released do not keep their span.
+  private final Map<HttpResponse, Tracing.Span> spans =
+      Collections.synchronizedMap(new WeakHashMap<>());
+
+  ResponseTracker(boolean debug) {
+    this.debug = debug;
+  }
+
+  /** Returns the tracker shared by every wagon and transporter in the JVM. */
+  static ResponseTracker shared() {
+    return SHARED;
+  }
+
+  /** Ends {@code span} once {@code response} is released. Does nothing while tracing is off. */
+  void trace(HttpResponse response, Tracing.Span span) {
+    if (Tracing.isEnabled()) {
+      spans.put(response, span);
+    }
+  }
+
+  /**
+   * Returns the body of {@code response}. Closing the stream releases the response, whether or not
+   * the body was read to the end.
+   */
+  InputStream open(HttpResponse response) throws IOException {
+    if (debug) {
+      reportLeaks();
+    }
+    Tracing.Span span = spans.remove(response);
+    InputStream content;
+    try {
+      content = response.getContent();
+    } catch (IOException | RuntimeException e) {
+      disconnect(response);
+      if (span != null) {
+        span.close();
+      }
+      throw e;
+    }
+    Lease lease = new Lease(response, span);
+    open.incrementAndGet();
+    Body body = new Body(content == null ? new ByteArrayInputStream(new byte[0]) : content, lease);
+    if (debug) {
+      lease.site = new Throwable("Opened here");
+      lease.reference = new LeakReference(body, lease, collected);
+      watched.add(lease.reference);
+    }
+    return body;
+  }
+
+  /** Releases a response whose body is not needed, such as the response to a HEAD or PUT. */
+  void release(HttpResponse response) {
+    Tracing.Span span = spans.remove(response);
+    try {
+      finish(response, response.getContent());
+    } catch (IOException | RuntimeException e) {
+      disconnect(response);
+    } finally {
+      if (span != null) {
+        span.close();
+      }
+    }
+  }
+
+  /** Releases a response that is not needed, closing its connection without reading the body. */
+  void discard(HttpResponse response) {
+    Tracing.Span span = spans.remove(response);
+    disconnect(response);
+    if (span != null) {
+      span.close();
+    }
+  }
+
+  /** Returns the number of bodies that were opened and not closed yet. */
+  int openResponses() {
+    return open.get();
+  }
+
+  /**
+   * Logs and releases the responses whose body was garbage collected without being closed, and
+   * returns their number. Only finds anything in debug mode.
+   */
+  int reportLeaks() {
+    int leaks = 0;
+    Reference<?> reference;
+    while ((reference = collected.poll()) != null) {
+      Lease lease = ((LeakReference) reference).lease;
+      watched.remove(reference);
+      if (lease.released.compareAndSet(false, true)) {
+        open.decrementAndGet();
+        leaks++;
+        LOGGER.warn("The response to " + lease.response.getRequest().getRequestMethod() + " "
+            + lease.response.getRequest().getUrl() + " was never closed.", lease.site);
+        disconnect(lease.response);
+        if (lease.span != null) {
+          lease.span.close();
+        }
+      }
+    }
+    return leaks;
+  }
+
+  private void close(Lease lease, InputStream content) {
+    if (lease.released.compareAndSet(false, true)) {
+      open.decrementAndGet();
+      if (lease.reference != null) {
+        watched.remove(lease.reference);
+        lease.reference.clear();
+      }
+      finish(lease.response, content);
+      if (lease.span != null) {
+        HttpTracing.released(lease.span, lease.bytesRead);
+        lease.span.close();
+      }
+    }
+  }
+
+  // Reads what is left of a short body so that the connection can be reused, and otherwise
+  // closes the connection.
+  private static void finish(HttpResponse response, InputStream content) {
+    if (content == null) {
+      disconnect(response);
+      return;
+    }
+    try {
+      byte[] buf = new byte[8192];
+      long skipped = 0;
+      int n;
+      while (skipped <= DRAIN_LIMIT && (n = content.read(buf)) != -1) {
+        skipped += n;
+      }
+      if (skipped > DRAIN_LIMIT) {
+        disconnect(response);
+        return;
+      }
+      content.close();
+    } catch (IOException e) {
+      disconnect(response);
+    }
+  }
+
+  private static void disconnect(HttpResponse response) {
+    try {
+      response.disconnect();
+    } catch (IOException e) {
+      LOGGER.debug("Failed to close a connection: " + e.getMessage());
+    }
+  }
+
+  private static final class Lease {
+    final HttpResponse response;
+    final Tracing.Span span;
+    final AtomicBoolean released = new AtomicBoolean();
+    Throwable site;
+    LeakReference reference;
+    // Only updated by the thread reading the body.
+    long bytesRead;
+
+    Lease(HttpResponse response, Tracing.Span span) {
+      this.response = response;
+      this.span = span;
+    }
+  }
+
+  // Refers to a body without keeping it reachable, and to its lease, which does not refer back.
+  private static final class LeakReference extends PhantomReference<Object> {
+    final Lease lease;
+
+    LeakReference(Object body, Lease lease, ReferenceQueue<Object> queue) {
+      super(body, queue);
+      this.lease = lease;
+    }
+  }
+
+  private final class Body extends FilterInputStream {
+    private final Lease lease;
+
+    Body(InputStream content, Lease lease) {
+      super(content);
+      this.lease = lease;
+    }
+
+    @Override
+    public int read() throws IOException {
+      int b = in.read();
+      if (b != -1) {
+        lease.bytesRead++;
+      }
+      return b;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+      int n = in.read(b, off, len);
+      if (n > 0) {
+        lease.bytesRead += n;
+      }
+      return n;
+    }
+
+    @Override
+    public void close() {
+      ResponseTracker.this.close(lease, in);
+    }
+  }
+}
@@ -0,0 +1,118 @@
+/*
+ * Copyright 2026 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.cloud.artifactregistry.wagon;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * SharedDownload is a downloaded response body held in a temporary file that several readers can
+ * consume. The file is deleted once the last reader closes its stream.
+ */
+final class SharedDownload {
+
+  private final Path file;
+  private int references = 1;
+  private boolean deleted;
+
+  private SharedDownload(Path file) {
+    this.file = file;
+  }
+
+  /**
+   * Copies {@code content} into a new temporary file. The caller holds the initial reference and
+   * must release it by closing a stream from {@link #openStream()}.
+   */
+  static SharedDownload create(InputStream content) throws IOException {
+    Path file = Files.createTempFile("artifactregistry-", ".download");
+    try (InputStream in = content) {
+      Files.copy(in, file, StandardCopyOption.REPLACE_EXISTING);
+    } catch (IOException e) {
+      Files.deleteIfExists(file);
+      throw e;
+    }
+    return new SharedDownload(file);
+  }
+
+  /**
+   * Takes an additional reference. Returns false if the file has already been deleted, in which
+   * case the caller has to fetch the resource itself.
+   */
+  synchronized boolean retain() {
+    if (deleted) {
+      return false;
+    }
+    references++;
+    return true;
+  }
+
+  /** Opens the body for one reference; closing the stream releases that reference. */
+  Stream openStream() throws IOException {
+    FileChannel channel;
+    try {
+      channel = FileChannel.open(file, StandardOpenOption.READ);
+    } catch (IOException e) {
+      release();
+      throw e;
+    }
+    return new Stream(channel);
+  }
+
+  /** A stream over the downloaded file that also exposes its channel. */
+  final class Stream extends FilterInputStream {
+
+    private final FileChannel channel;
+    private boolean closed;
+
+    private Stream(FileChannel channel) {
+      super(Channels.newInputStream(channel));
+      this.channel = channel;
+    }
+
+    FileChannel channel() {
+      return channel;
+    }
+
+    @Override
+    public void close() throws IOException {
+      if (closed) {
+        return;
+      }
+      closed = true;
+      try {
+        super.close();
+      } finally {
+        release();
+      }
+    }
+  }
+
+  private synchronized void release() throws IOException {
+    references--;
+    if (references == 0) {
+      deleted = true;
+      Files.deleteIfExists(file);
+    }
+  }
+}
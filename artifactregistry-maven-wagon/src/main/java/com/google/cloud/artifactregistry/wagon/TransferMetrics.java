@@ -0,0 +1,66 @@
+/*
+ * Copyright 2026 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.cloud.artifactregistry.wagon;
+
+/**
+ * TransferMetrics receives timing and outcome measurements from {@link ArtifactRegistryWagon}.
+ * Implementations are shared by every wagon in the JVM and must be thread-safe. All methods do
+ * nothing by default.
+ *
+ * <p>A custom implementation can be set with {@link ArtifactRegistryWagon#setTransferMetrics} or
+ * by naming a class with a public no-argument constructor in the {@code artifactregistry.metrics}
+ * system property. The value {@code log} selects the built-in implementation, which logs a summary
+ * when the JVM exits and, if {@code artifactregistry.metricsFile} is set, writes it as JSON.
+ */
+public interface TransferMetrics {
+
+  /** Metrics that discard every measurement. */
+  TransferMetrics NONE = new TransferMetrics() {};
+
+  /**
+   * Records obtaining credentials for a connection, including any refresh.
+   *
+   * @param success whether credentials were found
+   */
+  default void credentialsAcquired(long durationNanos, boolean success) {}
+
+  /**
+   * Records one HTTP request.
+   *
+   * @param method the HTTP method
+   * @param host the repository host
+   * @param statusCode the response status, or 0 if no response was received
+   * @param attempts the number of attempts made, including retries
+   * @param durationNanos the time until response headers were received or the request failed
+   * @param error the exception class if the request failed without a response, otherwise null
+   */
+  default void requestCompleted(String method, String host, int statusCode, int attempts,
+      long durationNanos, String error) {}
+
+  /**
+   * Records a request that was sent a second time because no response had arrived yet.
+   *
+   * @param won whether the second copy answered first
+   */
+  default void requestHedged(String method, String host, boolean won) {}
+
+  /** Records a response or request body transferred to or from {@code host}. */
+  default void bodyTransferred(String method, String host, long bytes, long durationNanos) {}
+
+  /** Called when a wagon closes its connection. */
+  default void connectionClosed() {}
+}
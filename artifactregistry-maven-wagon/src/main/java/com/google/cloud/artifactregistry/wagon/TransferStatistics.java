@@ -0,0 +1,191 @@
+/*
+ * Copyright 2026 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.cloud.artifactregistry.wagon;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * TransferStatistics is the built-in {@link TransferMetrics}. It aggregates measurements per HTTP
+ * method and host, logs a summary when the JVM exits and optionally writes it to a JSON file.
+ */
+final class TransferStatistics implements TransferMetrics {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(TransferStatistics.class);
+
+  private final LatencyHistogram credentials = new LatencyHistogram();
+  private final AtomicLong credentialFailures = new AtomicLong();
+  // Keyed by "METHOD host".
+  private final ConcurrentMap<String, Endpoint> endpoints = new ConcurrentHashMap<>();
+
+  private static final class Endpoint {
+
+    final LatencyHistogram latency = new LatencyHistogram();
+    final ConcurrentMap<String, AtomicLong> outcomes = new ConcurrentHashMap<>();
+    final AtomicLong retries = new AtomicLong();
+    final AtomicLong hedged = new AtomicLong();
+    final AtomicLong hedgesWon = new AtomicLong();
+    final AtomicLong bytes = new AtomicLong();
+    final AtomicLong transferNanos = new AtomicLong();
+
+    long bytesPerSecond() {
+      long nanos = transferNanos.get();
+      return nanos == 0 ? 0 : bytes.get() * TimeUnit.SECONDS.toNanos(1) / nanos;
+    }
+  }
+
+  /** Creates statistics that are reported when the JVM exits. */
+  static TransferStatistics reportingOnExit(String jsonFile) {
+    TransferStatistics statistics = new TransferStatistics();
+    Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+      if (statistics.endpoints.isEmpty() && statistics.credentials.count() == 0) {
+        return;
+      }
+      LOGGER.info(statistics.summary());
+      if (jsonFile != null) {
+        try {
+          statistics.writeJson(Paths.get(jsonFile));
+        } catch (IOException e) {
+          LOGGER.warn("Failed to write transfer metrics to " + jsonFile, e);
+        }
+      }
+    }, "artifactregistry-metrics"));
+    return statistics;
+  }
+
+  @Override
+  public void credentialsAcquired(long durationNanos, boolean success) {
+    credentials.record(durationNanos);
+    if (!success) {
+      credentialFailures.incrementAndGet();
+    }
+  }
+
+  @Override
+  public void requestCompleted(String method, String host, int statusCode, int attempts,
+      long durationNanos, String error) {
+    Endpoint endpoint = endpoint(method, host);
+    endpoint.latency.record(durationNanos);
+    endpoint.retries.addAndGet(Math.max(0, attempts - 1));
+    String outcome = error != null ? error : Integer.toString(statusCode);
+    endpoint.outcomes.computeIfAbsent(outcome, k -> new AtomicLong()).incrementAndGet();
+  }
+
+  @Override
+  public void requestHedged(String method, String host, boolean won) {
+    Endpoint endpoint = endpoint(method, host);
+    endpoint.hedged.incrementAndGet();
+    if (won) {
+      endpoint.hedgesWon.incrementAndGet();
+    }
+  }
+
+  @Override
+  public void bodyTransferred(String method, String host, long bytes, long durationNanos) {
+    Endpoint endpoint = endpoint(method, host);
+    endpoint.bytes.addAndGet(bytes);
+    endpoint.transferNanos.addAndGet(durationNanos);
+  }
+
+  @Override
+  public void connectionClosed() {
+    if (LOGGER.isDebugEnabled()) {
+      LOGGER.debug(summary());
+    }
+  }
+
+  private Endpoint endpoint(String method, String host) {
+    return endpoints.computeIfAbsent(method + " " + host, k -> new Endpoint());
+  }
+
+  String summary() {
+    StringBuilder sb = new StringBuilder("Artifact Registry transfer summary:");
+    sb.append(String.format("%n  credentials: %d acquired, %d failed, mean %d ms, p99 %s",
+        credentials.count(), credentialFailures.get(), credentials.meanMillis(),
+        formatMillis(credentials.percentileMillis(99))));
+    for (Map.Entry<String, Endpoint> e : new TreeMap<>(endpoints).entrySet()) {
+      Endpoint endpoint = e.getValue();
+      LatencyHistogram latency = endpoint.latency;
+      sb.append(String.format(
+          "%n  %s: %d requests, %d retries, %d hedged (%d won), p50 %s, p90 %s, p99 %s, "
+              + "%d bytes at %d KiB/s, %s",
+          e.getKey(), latency.count(), endpoint.retries.get(), endpoint.hedged.get(),
+          endpoint.hedgesWon.get(),
+          formatMillis(latency.percentileMillis(50)), formatMillis(latency.percentileMillis(90)),
+          formatMillis(latency.percentileMillis(99)), endpoint.bytes.get(),
+          endpoint.bytesPerSecond() / 1024, new TreeMap<>(endpoint.outcomes)));
+    }
+    return sb.toString();
+  }
+
+  private static String formatMillis(long millis) {
+    return millis < 0 ? "slow" : "<=" + millis + " ms";
+  }
+
+  void writeJson(Path file) throws IOException {
+    try (Writer w = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+      w.write("{\"credentials\":");
+      writeHistogram(w, credentials);
+      w.write(",\"credentialFailures\":" + credentialFailures.get());
+      w.write(",\"endpoints\":{");
+      boolean first = true;
+      for (Map.Entry<String, Endpoint> e : new TreeMap<>(endpoints).entrySet()) {
+        Endpoint endpoint = e.getValue();
+        w.write(first ? "" : ",");
+        first = false;
+        w.write(quote(e.getKey()) + ":{\"latency\":");
+        writeHistogram(w, endpoint.latency);
+        w.write(",\"retries\":" + endpoint.retries.get());
+        w.write(",\"hedged\":" + endpoint.hedged.get());
+        w.write(",\"hedgesWon\":" + endpoint.hedgesWon.get());
+        w.write(",\"bytes\":" + endpoint.bytes.get());
+        w.write(",\"bytesPerSecond\":" + endpoint.bytesPerSecond());
+        w.write(",\"outcomes\":{");
+        boolean firstOutcome = true;
+        for (Map.Entry<String, AtomicLong> o : new TreeMap<>(endpoint.outcomes).entrySet()) {
+          w.write(firstOutcome ? "" : ",");
+          firstOutcome = false;
+          w.write(quote(o.getKey()) + ":" + o.getValue().get());
+        }
+        w.write("}}");
+      }
+      w.write("}}\n");
+    }
+  }
+
+  private static void writeHistogram(Writer w, LatencyHistogram h) throws IOException {
+    w.write(String.format("{\"count\":%d,\"meanMs\":%d,\"p50Ms\":%d,\"p90Ms\":%d,\"p99Ms\":%d}",
+        h.count(), h.meanMillis(), h.percentileMillis(50), h.percentileMillis(90),
+        h.percentileMillis(99)));
+  }
+
+  private static String quote(String s) {
+    return "\"" + s.replace("\\", "\\\\").replace("\"", "\\\"") + "\"";
+  }
+}
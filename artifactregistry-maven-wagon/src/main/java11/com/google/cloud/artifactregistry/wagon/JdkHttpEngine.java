@@ -0,0 +1,65 @@
+/*
+ * Copyright 2026 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.cloud.artifactregistry.wagon;
+
+import com.google.api.client.http.HttpTransport;
+import com.google.auth.http.HttpTransportFactory;
+import java.net.http.HttpClient;
+import java.time.Duration;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * JdkHttpEngine provides the HTTP transport built on {@code java.net.http.HttpClient}. One client
+ * is shared by every wagon in the JVM so that concurrent transfers are multiplexed over a few
+ * HTTP/2 connections. On Java 21 and later the client runs its work on virtual threads.
+ */
+final class JdkHttpEngine {
+
+  private JdkHttpEngine() {}
+
+  private static final class Holder {
+
+    static final HttpTransport TRANSPORT = new JdkHttpTransport(newClient());
+  }
+
+  /** Returns the factory of the shared transport. */
+  static HttpTransportFactory factory() {
+    return () -> Holder.TRANSPORT;
+  }
+
+  static HttpClient newClient() {
+    HttpClient.Builder builder = HttpClient.newBuilder()
+        .version(HttpClient.Version.HTTP_2)
+        .connectTimeout(Duration.ofSeconds(20));
+    ExecutorService executor = virtualThreadExecutor();
+    if (executor != null) {
+      builder.executor(executor);
+    }
+    return builder.build();
+  }
+
+  // Executors.newVirtualThreadPerTaskExecutor() exists from Java 21; this class is compiled for 11.
+  private static ExecutorService virtualThreadExecutor() {
+    try {
+      return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor")
+          .invoke(null);
+    } catch (ReflectiveOperationException e) {
+      return null;
+    }
+  }
+}
@@ -0,0 +1,475 @@
+/*
+ * Copyright 2026 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.cloud.artifactregistry.wagon;
+
+import com.google.api.client.http.HttpTransport;
+import com.google.api.client.http.LowLevelHttpRequest;
+import com.google.api.client.http.LowLevelHttpResponse;
+import com.google.api.client.util.StreamingContent;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.net.SocketTimeoutException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.ByteBuffer;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Flow;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JdkHttpTransport is an {@link HttpTransport} that sends requests with
+ * {@code java.net.http.HttpClient}. Request and response bodies are streamed, so they are not
+ * buffered in memory or on disk, and the read timeout applies to every read of a response body as
+ * it does with the default engine.
+ */
+final class JdkHttpTransport extends HttpTransport {
+
+  // Headers that HttpClient sets itself and refuses to accept from callers.
+  private static final Set<String> RESTRICTED_HEADERS =
+      Set.of("connection", "content-length", "expect", "host", "upgrade");
+
+  // Request bodies are handed to the client in chunks of this size.
+  private static final int CHUNK_SIZE = 16 * 1024;
+
+  private final HttpClient client;
+
+  JdkHttpTransport(HttpClient client) {
+    this.client = client;
+  }
+
+  @Override
+  protected LowLevelHttpRequest buildRequest(String method, String url) {
+    return new Request(method, url);
+  }
+
+  private final class Request extends LowLevelHttpRequest {
+
+    private final HttpRequest.Builder builder;
+    private final String method;
+    private int readTimeout;
+
+    Request(String method, String url) {
+      this.method = method;
+      this.builder = HttpRequest.newBuilder(URI.create(url));
+    }
+
+    @Override
+    public void addHeader(String name, String value) {
+      if (!RESTRICTED_HEADERS.contains(name.toLowerCase(Locale.ROOT))) {
+        builder.header(name, value);
+      }
+    }
+
+    @Override
+    public void setTimeout(int connectTimeout, int readTimeout) {
+      // HttpClient has no separate read timeout: the wait for the response headers is bounded
+      // here, and every read of the body by the response stream.
+      this.readTimeout = readTimeout;
+      if (readTimeout > 0) {
+        builder.timeout(Duration.ofMillis((long) Math.max(0, connectTimeout) + readTimeout));
+      }
+    }
+
+    @Override
+    public LowLevelHttpResponse execute() throws IOException {
+      if (getContentType() != null) {
+        builder.header("Content-Type", getContentType());
+      }
+      if (getContentEncoding() != null) {
+        builder.header("Content-Encoding", getContentEncoding());
+      }
+      StreamingContent content = getStreamingContent();
+      if (content == null) {
+        builder.method(method, HttpRequest.BodyPublishers.noBody());
+      } else if (getContentLength() >= 0) {
+        builder.method(method,
+            HttpRequest.BodyPublishers.fromPublisher(new Upload(content), getContentLength()));
+      } else {
+        builder.method(method, HttpRequest.BodyPublishers.fromPublisher(new Upload(content)));
+      }
+      return new Response(send(builder.build()));
+    }
+
+    private HttpResponse<InputStream> send(HttpRequest request) throws IOException {
+      int timeout = readTimeout;
+      CompletableFuture<HttpResponse<InputStream>> future =
+          client.sendAsync(request, info -> new Body(timeout));
+      try {
+        return future.get();
+      } catch (InterruptedException e) {
+        future.cancel(true);
+        Thread.currentThread().interrupt();
+        throw new InterruptedIOException("Interrupted while waiting for " + request.uri());
+      } catch (ExecutionException e) {
+        Throwable cause = e.getCause();
+        if (cause instanceof IOException) {
+          throw (IOException) cause;
+        }
+        throw new IOException(cause);
+      }
+    }
+  }
+
+  /**
+   * Upload publishes a request body as it is written by {@link StreamingContent#writeTo}, on a
+   * thread of its own for each subscription, and only as fast as the client asks for it.
+   */
+  private static final class Upload implements Flow.Publisher<ByteBuffer> {
+
+    private final StreamingContent content;
+
+    Upload(StreamingContent content) {
+      this.content = content;
+    }
+
+    @Override
+    public void subscribe(Flow.Subscriber<? super ByteBuffer> subscriber) {
+      Writer writer = new Writer(subscriber);
+      subscriber.onSubscribe(writer);
+      Thread thread = new Thread(writer, "artifactregistry-upload");
+      thread.setDaemon(true);
+      thread.start();
+    }
+
+    private final class Writer extends OutputStream implements Flow.Subscription, Runnable {
+
+      private final Flow.Subscriber<? super ByteBuffer> subscriber;
+      private byte[] chunk = new byte[CHUNK_SIZE];
+      private int length;
+      // Guarded by this.
+      private long demand;
+      private boolean cancelled;
+
+      Writer(Flow.Subscriber<? super ByteBuffer> subscriber) {
+        this.subscriber = subscriber;
+      }
+
+      @Override
+      public void run() {
+        try {
+          content.writeTo(this);
+          emit();
+        } catch (IOException | RuntimeException e) {
+          if (!isCancelled()) {
+            subscriber.onError(e);
+          }
+          return;
+        }
+        subscriber.onComplete();
+      }
+
+      @Override
+      public void write(int b) throws IOException {
+        if (length == chunk.length) {
+          emit();
+        }
+        chunk[length++] = (byte) b;
+      }
+
+      @Override
+      public void write(byte[] b, int off, int len) throws IOException {
+        while (len > 0) {
+          if (length == chunk.length) {
+            emit();
+          }
+          int n = Math.min(len, chunk.length - length);
+          System.arraycopy(b, off, chunk, length, n);
+          length += n;
+          off += n;
+          len -= n;
+        }
+      }
+
+      // Hands the buffered bytes to the client once it has asked for more.
+      private void emit() throws IOException {
+        if (length == 0) {
+          return;
+        }
+        synchronized (this) {
+          while (demand == 0 && !cancelled) {
+            try {
+              wait();
+            } catch (InterruptedException e) {
+              Thread.currentThread().interrupt();
+              throw new InterruptedIOException("Interrupted while uploading.");
+            }
+          }
+          if (cancelled) {
+            throw new IOException("The upload was cancelled.");
+          }
+          demand--;
+        }
+        subscriber.onNext(ByteBuffer.wrap(chunk, 0, length));
+        chunk = new byte[CHUNK_SIZE];
+        length = 0;
+      }
+
+      private synchronized boolean isCancelled() {
+        return cancelled;
+      }
+
+      @Override
+      public synchronized void request(long n) {
+        if (n <= 0) {
+          cancelled = true;
+          subscriber.onError(new IllegalArgumentException("Non-positive request: " + n));
+        } else {
+          demand = demand + n < 0 ? Long.MAX_VALUE : demand + n;
+        }
+        notifyAll();
+      }
+
+      @Override
+      public synchronized void cancel() {
+        cancelled = true;
+        notifyAll();
+      }
+    }
+  }
+
+  /**
+   * Body streams a response body to its reader, failing a read with a
+   * {@link SocketTimeoutException} if no data arrives within the read timeout.
+   */
+  private static final class Body extends InputStream
+      implements HttpResponse.BodySubscriber<InputStream> {
+
+    private static final Object END = new Object();
+
+    private final int readTimeout;
+    private final BlockingQueue<Object> items = new LinkedBlockingQueue<>();
+    private volatile Flow.Subscription subscription;
+    private Iterator<ByteBuffer> buffers = Collections.emptyIterator();
+    private ByteBuffer current;
+    private boolean done;
+    private volatile boolean closed;
+
+    Body(int readTimeout) {
+      this.readTimeout = readTimeout;
+    }
+
+    @Override
+    public CompletionStage<InputStream> getBody() {
+      return CompletableFuture.completedFuture(this);
+    }
+
+    @Override
+    public void onSubscribe(Flow.Subscription subscription) {
+      this.subscription = subscription;
+      if (closed) {
+        subscription.cancel();
+      } else {
+        subscription.request(1);
+      }
+    }
+
+    @Override
+    public void onNext(List<ByteBuffer> item) {
+      items.add(item);
+    }
+
+    @Override
+    public void onError(Throwable error) {
+      items.add(error);
+    }
+
+    @Override
+    public void onComplete() {
+      items.add(END);
+    }
+
+    @Override
+    public int read() throws IOException {
+      byte[] b = new byte[1];
+      return read(b, 0, 1) == -1 ? -1 : b[0] & 0xff;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+      if (len == 0) {
+        return 0;
+      }
+      ByteBuffer buffer = next();
+      if (buffer == null) {
+        return -1;
+      }
+      int n = Math.min(len, buffer.remaining());
+      buffer.get(b, off, n);
+      return n;
+    }
+
+    @Override
+    public int available() {
+      return current == null ? 0 : current.remaining();
+    }
+
+    // Returns a buffer with data left in it, waiting for the next one if needed, or null at the end
+    // of the body.
+    private ByteBuffer next() throws IOException {
+      while (current == null || !current.hasRemaining()) {
+        if (buffers.hasNext()) {
+          current = buffers.next();
+          continue;
+        }
+        if (done || closed) {
+          if (closed && !done) {
+            throw new IOException("The response body is closed.");
+          }
+          return null;
+        }
+        Object item = take();
+        if (item == END) {
+          done = true;
+          return null;
+        }
+        if (item instanceof Throwable) {
+          done = true;
+          Throwable error = (Throwable) item;
+          throw error instanceof IOException ? (IOException) error : new IOException(error);
+        }
+        @SuppressWarnings("unchecked")
+        List<ByteBuffer> list = (List<ByteBuffer>) item;
+        buffers = list.iterator();
+        subscription.request(1);
+      }
+      return current;
+    }
+
+    private Object take() throws IOException {
+      try {
+        Object item = readTimeout > 0
+            ? items.poll(readTimeout, TimeUnit.MILLISECONDS) : items.take();
+        if (item == null) {
+          close();
+          throw new SocketTimeoutException(
+              "Read timed out after " + readTimeout + " ms without data.");
+        }
+        return item;
+      } catch (InterruptedException e) {
+        close();
+        Thread.currentThread().interrupt();
+        throw new InterruptedIOException("Interrupted while reading the response body.");
+      }
+    }
+
+    @Override
+    public void close() {
+      if (closed) {
+        return;
+      }
+      closed = true;
+      Flow.Subscription s = subscription;
+      if (s != null && !done) {
+        s.cancel();
+      }
+    }
+  }
+
+  private static final class Response extends LowLevelHttpResponse {
+
+    private final HttpResponse<InputStream> response;
+    private final List<String> headerNames = new ArrayList<>();
+    private final List<String> headerValues = new ArrayList<>();
+
+    Response(HttpResponse<InputStream> response) {
+      this.response = response;
+      for (Map.Entry<String, List<String>> header : response.headers().map().entrySet()) {
+        // HTTP/2 pseudo-headers such as ":status" are not real headers.
+        if (header.getKey().startsWith(":")) {
+          continue;
+        }
+        for (String value : header.getValue()) {
+          headerNames.add(header.getKey());
+          headerValues.add(value);
+        }
+      }
+    }
+
+    @Override
+    public InputStream getContent() {
+      return response.body();
+    }
+
+    @Override
+    public String getContentEncoding() {
+      return response.headers().firstValue("content-encoding").orElse(null);
+    }
+
+    @Override
+    public long getContentLength() {
+      return response.headers().firstValueAsLong("content-length").orElse(-1);
+    }
+
+    @Override
+    public String getContentType() {
+      return response.headers().firstValue("content-type").orElse(null);
+    }
+
+    @Override
+    public String getStatusLine() {
+      String version = response.version() == HttpClient.Version.HTTP_2 ? "HTTP/2" : "HTTP/1.1";
+      return version + " " + response.statusCode();
+    }
+
+    @Override
+    public int getStatusCode() {
+      return response.statusCode();
+    }
+
+    @Override
+    public String getReasonPhrase() {
+      // HTTP/2 has no reason phrase and HttpClient does not expose the HTTP/1.1 one.
+      return null;
+    }
+
+    @Override
+    public int getHeaderCount() {
+      return headerNames.size();
+    }
+
+    @Override
+    public String getHeaderName(int index) {
+      return headerNames.get(index);
+    }
+
+    @Override
+    public String getHeaderValue(int index) {
+      return headerValues.get(index);
+    }
+
+    @Override
+    public void disconnect() throws IOException {
+      response.body().close();
+    }
+  }
+}
@@ -0,0 +1,133 @@
+/*
+ * Copyright 2026 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.cloud.artifactregistry.wagon;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+public class ArtifactBundleTest {
+
+  @Rule
+  public TemporaryFolder tmp = new TemporaryFolder();
+
+  @Test
+  public void testRoundTrip() throws Exception {
+    Path bundleFile = tmp.getRoot().toPath().resolve("bundle");
+    try (ArtifactBundle.Writer writer = new ArtifactBundle.Writer(bundleFile)) {
+      // Added out of order, to check that lookups do not depend on it.
+      Assert.assertTrue(writer.add("b/b-1.0.jar", file("jar b")));
+      Assert.assertTrue(writer.add("a/a-1.0.pom", file("pom a")));
+      Assert.assertTrue(writer.add("a/empty", file("")));
+      Assert.assertFalse(writer.add("a/a-1.0.pom", file("duplicate")));
+    }
+    try (ArtifactBundle bundle = ArtifactBundle.open(bundleFile)) {
+      Assert.assertEquals(3, bundle.size());
+      Assert.assertEquals("jar b", read(bundle, "b/b-1.0.jar"));
+      Assert.assertEquals("pom a", read(bundle, "a/a-1.0.pom"));
+      Assert.assertEquals("", read(bundle, "a/empty"));
+      Assert.assertNull(bundle.find("a/a-1.0.jar"));
+      Assert.assertNull(bundle.find("c"));
+      Assert.assertEquals("a/a-1.0.pom", bundle.name(0));
+    }
+  }
+
+  @Test
+  public void testRecordingIsWrittenAfterLastRelease() throws Exception {
+    Path bundleFile = tmp.getRoot().toPath().resolve("recorded");
+    ArtifactBundle.Writer first = ArtifactBundle.recordingTo(bundleFile);
+    ArtifactBundle.Writer second = ArtifactBundle.recordingTo(bundleFile);
+    Assert.assertSame(first, second);
+    first.add("a", file("content a"));
+    ArtifactBundle.release(first, 0);
+    second.add("b", file("content b"));
+    Assert.assertFalse(Files.exists(bundleFile));
+    ArtifactBundle.release(second, 0);
+    for (int i = 0; i < 500 && !Files.exists(bundleFile); i++) {
+      Thread.sleep(10);
+    }
+    try (ArtifactBundle bundle = ArtifactBundle.open(bundleFile)) {
+      Assert.assertEquals(2, bundle.size());
+      Assert.assertEquals("content a", read(bundle, "a"));
+      Assert.assertEquals("content b", read(bundle, "b"));
+    }
+  }
+
+  @Test
+  public void testRecordingReusedBeforeItIsWritten() throws Exception {
+    Path bundleFile = tmp.getRoot().toPath().resolve("reused");
+    ArtifactBundle.Writer first = ArtifactBundle.recordingTo(bundleFile);
+    ArtifactBundle.release(first, 60000);
+    ArtifactBundle.Writer second = ArtifactBundle.recordingTo(bundleFile);
+    Assert.assertSame(first, second);
+    Assert.assertTrue(second.add("a", file("content")));
+    ArtifactBundle.release(second, 0);
+    for (int i = 0; i < 500 && !Files.exists(bundleFile); i++) {
+      Thread.sleep(10);
+    }
+    try (ArtifactBundle bundle = ArtifactBundle.open(bundleFile)) {
+      Assert.assertEquals(1, bundle.size());
+    }
+  }
+
+  @Test
+  public void testTruncatedBundleIsRejected() throws Exception {
+    Path bundleFile = tmp.getRoot().toPath().resolve("bundle");
+    try (ArtifactBundle.Writer writer = new ArtifactBundle.Writer(bundleFile)) {
+      writer.add("a", file("content"));
+    }
+    byte[] content = Files.readAllBytes(bundleFile);
+    Files.write(bundleFile, Arrays.copyOf(content, content.length - 1),
+        StandardOpenOption.TRUNCATE_EXISTING);
+    try {
+      ArtifactBundle.open(bundleFile).close();
+      Assert.fail("expected the bundle to be rejected");
+    } catch (IOException expected) {
+      // The trailer is incomplete.
+    }
+  }
+
+  private Path file(String content) throws IOException {
+    Path file = tmp.newFile().toPath();
+    Files.write(file, content.getBytes(StandardCharsets.UTF_8));
+    return file;
+  }
+
+  private static String read(ArtifactBundle bundle, String path) throws IOException {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    try (InputStream in = bundle.openStream(bundle.find(path))) {
+      byte[] buf = new byte[2];
+      int n;
+      while ((n = in.read(buf)) != -1) {
+        out.write(buf, 0, n);
+      }
+    }
+    return new String(out.toByteArray(), StandardCharsets.UTF_8);
+  }
+}
@@ -0,0 +1,133 @@
+/*
+ * Copyright 2026 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.cloud.artifactregistry.wagon;
+
+import com.google.api.client.http.LowLevelHttpRequest;
+import com.google.api.client.http.LowLevelHttpResponse;
+import com.google.api.client.testing.http.MockHttpTransport;
+import com.google.api.client.testing.http.MockLowLevelHttpRequest;
+import com.google.api.client.testing.http.MockLowLevelHttpResponse;
+import com.google.auth.Credentials;
+import java.io.IOException;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Future;
+import org.eclipse.aether.repository.RemoteRepository;
+import org.eclipse.aether.spi.connector.transport.GetTask;
+import org.eclipse.aether.spi.connector.transport.PeekTask;
+import org.eclipse.aether.spi.connector.transport.PutTask;
+import org.eclipse.aether.spi.connector.transport.Transporter;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+public class ArtifactRegistryTransporterTest {
+
+  private static final RemoteRepository REPO = new RemoteRepository.Builder(
+      "my-repo", "default", "artifactregistry://maven.pkg.dev/my-project/my-repo").build();
+  private static final Future<Credentials> ANONYMOUS = CompletableFuture.completedFuture(null);
+
+  @Test
+  public void testGet() throws Exception {
+    List<String> urls = new ArrayList<>();
+    MockHttpTransport transport = recordingTransport(urls, new MockLowLevelHttpResponse()
+        .setContent("test content")
+        .addHeader("x-goog-hash", "crc32c=n03x6A==,md5=mIm7jdhD+4Sa4Oq+PoY3Bw=="));
+    Transporter transporter = new ArtifactRegistryTransporter(REPO, transport, ANONYMOUS, 1000);
+    GetTask task = new GetTask(URI.create("my/resource.jar"));
+    transporter.get(task);
+    Assert.assertEquals("test content", task.getDataString());
+    Assert.assertEquals("9889bb8dd843fb849ae0eabe3e863707", task.getChecksums().get("MD5"));
+    Assert.assertEquals("https://maven.pkg.dev/my-project/my-repo/my/resource.jar", urls.get(0));
+  }
+
+  @Test
+  public void testFailedCredentialLookupSendsAnonymousRequests() throws Exception {
+    List<String> urls = new ArrayList<>();
+    MockHttpTransport transport =
+        recordingTransport(urls, new MockLowLevelHttpResponse().setContent("test content"));
+    CompletableFuture<Credentials> failed = new CompletableFuture<>();
+    failed.completeExceptionally(new IOException("no credentials"));
+    Transporter transporter = new ArtifactRegistryTransporter(REPO, transport, failed, 1000);
+    GetTask task = new GetTask(URI.create("my/resource.jar"));
+    transporter.get(task);
+    Assert.assertEquals("test content", task.getDataString());
+    Assert.assertEquals(1, urls.size());
+  }
+
+  @Test
+  public void testGetNotFound() throws Exception {
+    MockHttpTransport transport = recordingTransport(new ArrayList<>(),
+        new MockLowLevelHttpResponse().setStatusCode(404));
+    Transporter transporter = new ArtifactRegistryTransporter(REPO, transport, ANONYMOUS, 1000);
+    try {
+      transporter.peek(new PeekTask(URI.create("my/missing.jar")));
+      Assert.fail("expected peek to fail");
+    } catch (Exception e) {
+      Assert.assertEquals(Transporter.ERROR_NOT_FOUND, transporter.classify(e));
+    }
+  }
+
+  @Test
+  public void testPut() throws Exception {
+    MockLowLevelHttpRequest request = new MockLowLevelHttpRequest();
+    MockHttpTransport transport = new MockHttpTransport.Builder()
+        .setLowLevelHttpRequest(request)
+        .build();
+    Transporter transporter = new ArtifactRegistryTransporter(REPO, transport, ANONYMOUS, 1000);
+    transporter.put(new PutTask(URI.create("my/resource.pom")).setDataString("<project/>"));
+    Assert.assertEquals("<project/>", request.getContentAsString());
+  }
+
+  @Test
+  public void testPutSkipsIdenticalContent() throws Exception {
+    List<String> urls = new ArrayList<>();
+    MockHttpTransport transport = recordingTransport(urls, new MockLowLevelHttpResponse()
+        .addHeader("x-checksum-sha1", "31a6e1717665b9fb4646a906d52abae65a7eefbc"));
+    Transporter transporter = new ArtifactRegistryTransporter(REPO, transport, ANONYMOUS, 1000)
+        .setSkipIdenticalUploads(true);
+    transporter.put(new PutTask(URI.create("my/resource.pom")).setDataString("<project/>"));
+    Assert.assertEquals(1, urls.size());
+    transporter.put(new PutTask(URI.create("my/resource.pom")).setDataString("<project></project>"));
+    Assert.assertEquals(3, urls.size());
+  }
+
+  @Test
+  public void testMd5FromGoogHash() {
+    Assert.assertNull(RemoteDigest.md5FromGoogHash("crc32c=n03x6A=="));
+    Assert.assertNull(RemoteDigest.md5FromGoogHash("md5=invalid!"));
+  }
+
+  private static MockHttpTransport recordingTransport(List<String> urls,
+      MockLowLevelHttpResponse response) {
+    return new MockHttpTransport() {
+      @Override
+      public LowLevelHttpRequest buildRequest(String method, String url) throws IOException {
+        urls.add(url);
+        return new MockLowLevelHttpRequest(url) {
+          @Override
+          public LowLevelHttpResponse execute() {
+            return response;
+          }
+        };
+      }
+    };
+  }
+}
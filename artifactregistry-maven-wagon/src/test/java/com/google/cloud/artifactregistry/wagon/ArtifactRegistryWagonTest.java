@@ -18,6 +18,7 @@ package com.google.cloud.artifactregistry.wagon;
 import com.google.api.client.http.HttpHeaders;
 import com.google.api.client.http.HttpResponseException;
 import com.google.api.client.http.HttpStatusCodes;
+import com.google.api.client.http.LowLevelHttpRequest;
 import com.google.api.client.http.LowLevelHttpResponse;
 import com.google.api.client.testing.http.MockHttpTransport;
 import com.google.api.client.testing.http.MockLowLevelHttpRequest;
@@ -27,22 +28,38 @@ import com.google.auth.oauth2.AccessToken;
 import com.google.auth.oauth2.GoogleCredentials;
 import com.google.cloud.artifactregistry.auth.CommandExecutor;
 import com.google.cloud.artifactregistry.auth.CredentialProvider;
+import com.google.cloud.artifactregistry.auth.Tracing;
 import java.io.FileWriter;
 import java.io.IOException;
 import java.nio.charset.Charset;
+import java.net.SocketTimeoutException;
 import java.nio.file.Files;
 import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Date;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 import org.apache.maven.wagon.FileTestUtils;
 import java.io.File;
 import org.apache.maven.wagon.ResourceDoesNotExistException;
+import org.apache.maven.wagon.TransferFailedException;
 import org.apache.maven.wagon.authorization.AuthorizationException;
+import org.apache.maven.wagon.events.TransferEvent;
+import org.apache.maven.wagon.observers.AbstractTransferListener;
 import org.apache.maven.wagon.repository.Repository;
 import org.hamcrest.CoreMatchers;
 import org.junit.Assert;
 import org.junit.Rule;
 import org.junit.Test;
 import org.junit.rules.ExpectedException;
+import org.junit.rules.TemporaryFolder;
 import org.junit.runner.RunWith;
 import org.junit.runners.JUnit4;
 
@@ -52,6 +69,9 @@ public class ArtifactRegistryWagonTest {
   @Rule
   public ExpectedException expectedException = ExpectedException.none();
 
+  @Rule
+  public TemporaryFolder tmp = new TemporaryFolder();
+
   private final String REPO_URL = "artifactregistry://maven.pkg.dev/my-project/my-repo";
 
   @Test
@@ -96,6 +116,45 @@ public class ArtifactRegistryWagonTest {
     wagon.get("my/resource", f);
   }
 
+  @Test
+  public void testMissingPrefetchedCompanionIsNotRequestedAgain() throws Exception {
+    List<String> requests = Collections.synchronizedList(new ArrayList<>());
+    String jar = "com/example/missing/1.0/missing-1.0.jar";
+    MockHttpTransport transport = new MockHttpTransport() {
+      @Override
+      public LowLevelHttpRequest buildRequest(String method, String url) {
+        requests.add(method + " " + url.substring(url.indexOf("com/example")));
+        return new MockLowLevelHttpRequest(url) {
+          @Override
+          public LowLevelHttpResponse execute() {
+            MockLowLevelHttpResponse response = new MockLowLevelHttpResponse();
+            if (url.endsWith(jar)) {
+              response.setContent("test content");
+            } else {
+              response.setStatusCode(HttpStatusCodes.STATUS_CODE_NOT_FOUND);
+            }
+            return response;
+          }
+        };
+      }
+    };
+    ArtifactRegistryWagon wagon = new ArtifactRegistryWagon();
+    wagon.setCredentialProvider(new FailingCredentialProvider(new IOException("failed to get access token")));
+    wagon.setHttpTransportFactory(() -> transport);
+    wagon.setPrefetchCompanions(true);
+    wagon.connect(new Repository("my-repo", REPO_URL));
+    wagon.get(jar, FileTestUtils.createUniqueFile("my/artifact/dir", "test"));
+    for (int i = 0; i < 100 && !requests.contains("GET " + jar + ".sha1"); i++) {
+      Thread.sleep(20);
+    }
+    try {
+      wagon.get(jar + ".sha1", FileTestUtils.createUniqueFile("my/artifact/dir", "test"));
+      Assert.fail("Expected the missing checksum to be reported.");
+    } catch (ResourceDoesNotExistException expected) {
+    }
+    Assert.assertEquals(1, Collections.frequency(requests, "GET " + jar + ".sha1"));
+  }
+
   @Test
   public void testAuthenticatedGet() throws Exception {
     MockHttpTransport transport = new MockHttpTransport.Builder()
@@ -193,6 +252,380 @@ public class ArtifactRegistryWagonTest {
     Assert.assertFalse(wagon.resourceExists("my/resource"));
   }
 
+  @Test
+  public void testCoalescedGet() throws Exception {
+    MockHttpTransport transport = transportWithResponse("test content");
+    ArtifactRegistryWagon wagon = new ArtifactRegistryWagon();
+    wagon.setCredentialProvider(new FailingCredentialProvider(new IOException("failed to get access token")));
+    wagon.setHttpTransportFactory(() -> transport);
+    wagon.setCoalesceRequests(true);
+    wagon.connect(new Repository("my-repo", REPO_URL));
+    File f = FileTestUtils.createUniqueFile("my/artifact/dir", "test");
+    wagon.get("my/resource", f);
+    assertFileContains(f, "test content");
+  }
+
+  @Test
+  public void testHedgedGet() throws Exception {
+    MockHttpTransport transport = transportWithResponse("test content");
+    ArtifactRegistryWagon wagon = new ArtifactRegistryWagon();
+    wagon.setCredentialProvider(new FailingCredentialProvider(new IOException("failed to get access token")));
+    wagon.setHttpTransportFactory(() -> transport);
+    wagon.setHedgeRequests(true);
+    wagon.connect(new Repository("my-repo", REPO_URL));
+    File f = FileTestUtils.createUniqueFile("my/artifact/dir", "test");
+    wagon.get("my/resource", f);
+    assertFileContains(f, "test content");
+  }
+
+  @Test
+  public void testBundle() throws Exception {
+    File bundleFile = tmp.newFile("bundle");
+    try (ArtifactBundle.Writer writer = new ArtifactBundle.Writer(bundleFile.toPath())) {
+      File content = tmp.newFile();
+      Files.write(content.toPath(), "test content".getBytes(Charset.defaultCharset()));
+      writer.add("maven.pkg.dev/my-project/my-repo/my/resource", content.toPath());
+    }
+    ArtifactRegistryWagon wagon = new ArtifactRegistryWagon();
+    wagon.setHttpTransportFactory(() -> {
+      throw new AssertionError("a bundle must be served without network access");
+    });
+    wagon.setBundle(bundleFile);
+    wagon.connect(new Repository("my-repo", "artifactregistry://maven.pkg.dev/my-project/my-repo"));
+    File f = FileTestUtils.createUniqueFile("my/resource", "resource");
+    wagon.get("my/resource", f);
+    Assert.assertEquals("test content", new String(Files.readAllBytes(f.toPath()), Charset.defaultCharset()));
+    Assert.assertTrue(wagon.resourceExists("my/resource"));
+    Assert.assertFalse(wagon.resourceExists("my/other"));
+    expectedException.expect(ResourceDoesNotExistException.class);
+    wagon.get("my/other", f);
+  }
+
+  @Test
+  public void testBundleRejectsUploadChecks() throws Exception {
+    File bundleFile = tmp.newFile("bundle");
+    new ArtifactBundle.Writer(bundleFile.toPath()).close();
+    ArtifactRegistryWagon wagon = new ArtifactRegistryWagon();
+    wagon.setBundle(bundleFile);
+    wagon.connect(new Repository("my-repo", "artifactregistry://maven.pkg.dev/my-project/my-repo"));
+    expectedException.expect(TransferFailedException.class);
+    expectedException.expectMessage(CoreMatchers.containsString("bundles are read-only"));
+    wagon.precheckUploads(Collections.singletonMap("my/resource", tmp.newFile()));
+  }
+
+  @Test
+  public void testCircuitBreakerFailsFast() throws Exception {
+    AtomicInteger requests = new AtomicInteger();
+    MockHttpTransport transport = new MockHttpTransport.Builder()
+        .setLowLevelHttpRequest(new MockLowLevelHttpRequest() {
+          @Override
+          public LowLevelHttpResponse execute() throws IOException {
+            requests.incrementAndGet();
+            throw new SocketTimeoutException("Read timed out");
+          }
+        }).build();
+    ArtifactRegistryWagon wagon = new ArtifactRegistryWagon();
+    wagon.setCredentialProvider(new FailingCredentialProvider(new IOException("failed to get access token")));
+    wagon.setHttpTransportFactory(() -> transport);
+    wagon.setCircuitBreaker(true);
+    wagon.connect(new Repository("my-repo", "artifactregistry://breaker.pkg.dev/my-project/my-repo"));
+    for (int i = 0; i < 12; i++) {
+      try {
+        wagon.resourceExists("my/resource");
+        Assert.fail("expected a failure");
+      } catch (TransferFailedException e) {
+        if (i >= 10) {
+          Assert.assertTrue(e.getCause() instanceof CircuitBreaker.OpenException);
+        }
+      }
+    }
+    Assert.assertEquals(10, requests.get());
+  }
+
+  @Test
+  public void testTracing() throws Exception {
+    MockHttpTransport transport = transportWithResponse("test content");
+    RecordingTracer tracer = new RecordingTracer();
+    Tracing.setTracer(tracer);
+    try {
+      ArtifactRegistryWagon wagon = new ArtifactRegistryWagon();
+      wagon.setCredentialProvider(new FailingCredentialProvider(new IOException("failed to get access token")));
+      wagon.setHttpTransportFactory(() -> transport);
+      wagon.connect(new Repository("my-repo", REPO_URL));
+      try (Tracing.Span build = Tracing.start("build")) {
+        wagon.get("my/resource", tmp.newFile());
+      }
+    } finally {
+      Tracing.setTracer(null);
+    }
+    List<RecordingTracer.RecordedSpan> gets = tracer.spans("GET");
+    Assert.assertEquals(1, gets.size());
+    RecordingTracer.RecordedSpan get = gets.get(0);
+    Assert.assertEquals("build", get.parent.name);
+    Assert.assertEquals(Tracing.Kind.CLIENT, get.kind);
+    Assert.assertEquals(200L, get.attributes.get("http.response.status_code"));
+    // The span ends once the body has been read.
+    Assert.assertEquals(12L, get.attributes.get("artifactregistry.http.response.body.read"));
+    Assert.assertEquals("https://maven.pkg.dev/my-project/my-repo/my/resource",
+        get.attributes.get("url.full"));
+    Assert.assertNull(get.error);
+    Assert.assertEquals(get.traceparent(),
+        transport.getLowLevelHttpRequest().getFirstHeaderValue("traceparent"));
+  }
+
+  @Test
+  public void testTracingRecordsFailures() throws Exception {
+    MockHttpTransport transport = failingTransportWithStatus(HttpStatusCodes.STATUS_CODE_SERVER_ERROR);
+    RecordingTracer tracer = new RecordingTracer();
+    Tracing.setTracer(tracer);
+    try {
+      ArtifactRegistryWagon wagon = new ArtifactRegistryWagon();
+      wagon.setCredentialProvider(new FailingCredentialProvider(new IOException("failed to get access token")));
+      wagon.setHttpTransportFactory(() -> transport);
+      wagon.connect(new Repository("my-repo", REPO_URL));
+      wagon.resourceExists("my/resource");
+      Assert.fail("expected a failure");
+    } catch (TransferFailedException e) {
+      // Expected.
+    } finally {
+      Tracing.setTracer(null);
+    }
+    List<RecordingTracer.RecordedSpan> heads = tracer.spans("HEAD");
+    Assert.assertEquals(1, heads.size());
+    Assert.assertEquals(500L, heads.get(0).attributes.get("http.response.status_code"));
+    Assert.assertTrue(heads.get(0).error instanceof HttpResponseException);
+  }
+
+  @Test
+  public void testCoalescedGetNotFound() throws Exception {
+    MockHttpTransport transport = failingTransportWithStatus(HttpStatusCodes.STATUS_CODE_NOT_FOUND);
+    ArtifactRegistryWagon wagon = new ArtifactRegistryWagon();
+    wagon.setCredentialProvider(new FailingCredentialProvider(new IOException("failed to get access token")));
+    wagon.setHttpTransportFactory(() -> transport);
+    wagon.setCoalesceRequests(true);
+    wagon.connect(new Repository("my-repo", REPO_URL));
+    File f = FileTestUtils.createUniqueFile("my/artifact/dir", "test");
+    expectedException.expect(ResourceDoesNotExistException.class);
+    wagon.get("my/resource", f);
+  }
+
+  @Test
+  public void testCoalescedHeadNotFound() throws Exception {
+    MockHttpTransport transport = failingTransportWithStatus(HttpStatusCodes.STATUS_CODE_NOT_FOUND);
+    ArtifactRegistryWagon wagon = new ArtifactRegistryWagon();
+    wagon.setCredentialProvider(new FailingCredentialProvider(new IOException("failed to get access token")));
+    wagon.setHttpTransportFactory(() -> transport);
+    wagon.setCoalesceRequests(true);
+    wagon.connect(new Repository("my-repo", REPO_URL));
+    Assert.assertFalse(wagon.resourceExists("my/resource"));
+  }
+
+  @Test
+  public void testCachedGetIsRevalidated() throws Exception {
+    File cacheDir = tmp.newFolder("cache");
+    MockHttpTransport transport = new MockHttpTransport.Builder()
+        .setLowLevelHttpResponse(new MockLowLevelHttpResponse().setContent("test content")
+            .addHeader("ETag", "\"v1\""))
+        .build();
+    ArtifactRegistryWagon wagon = new ArtifactRegistryWagon();
+    wagon.setCredentialProvider(new FailingCredentialProvider(new IOException("failed to get access token")));
+    wagon.setHttpTransportFactory(() -> transport);
+    wagon.setCacheDirectory(cacheDir);
+    wagon.connect(new Repository("my-repo", REPO_URL));
+    File f = tmp.newFile("first");
+    wagon.get("my/resource", f);
+    assertFileContains(f, "test content");
+
+    MockHttpTransport notModified = failingTransportWithStatus(
+        HttpStatusCodes.STATUS_CODE_NOT_MODIFIED);
+    ArtifactRegistryWagon cachedWagon = new ArtifactRegistryWagon();
+    cachedWagon.setCredentialProvider(new FailingCredentialProvider(new IOException("failed to get access token")));
+    cachedWagon.setHttpTransportFactory(() -> notModified);
+    cachedWagon.setCacheDirectory(cacheDir);
+    cachedWagon.connect(new Repository("my-repo", REPO_URL));
+    File g = new File(tmp.getRoot(), "second");
+    cachedWagon.get("my/resource", g);
+    assertFileContains(g, "test content");
+    Assert.assertEquals("\"v1\"",
+        notModified.getLowLevelHttpRequest().getFirstHeaderValue("If-None-Match"));
+  }
+
+  @Test
+  public void testCachedGetReportsProgress() throws Exception {
+    File cacheDir = tmp.newFolder("progress-cache");
+    MockHttpTransport transport = new MockHttpTransport.Builder()
+        .setLowLevelHttpResponse(new MockLowLevelHttpResponse().setContent("test content")
+            .addHeader("ETag", "\"v1\""))
+        .build();
+    ArtifactRegistryWagon wagon = new ArtifactRegistryWagon();
+    wagon.setCredentialProvider(new FailingCredentialProvider(new IOException("failed to get access token")));
+    wagon.setHttpTransportFactory(() -> transport);
+    wagon.setCacheDirectory(cacheDir);
+    wagon.connect(new Repository("my-repo", REPO_URL));
+    wagon.get("my/resource", tmp.newFile("first"));
+
+    ArtifactRegistryWagon cachedWagon = new ArtifactRegistryWagon();
+    cachedWagon.setCredentialProvider(new FailingCredentialProvider(new IOException("failed to get access token")));
+    cachedWagon.setHttpTransportFactory(
+        () -> failingTransportWithStatus(HttpStatusCodes.STATUS_CODE_NOT_MODIFIED));
+    cachedWagon.setCacheDirectory(cacheDir);
+    AtomicLong bytes = new AtomicLong();
+    cachedWagon.addTransferListener(new AbstractTransferListener() {
+      @Override
+      public void transferProgress(TransferEvent event, byte[] buffer, int length) {
+        bytes.addAndGet(length);
+      }
+    });
+    cachedWagon.connect(new Repository("my-repo", REPO_URL));
+    File g = new File(tmp.getRoot(), "second");
+    cachedWagon.get("my/resource", g);
+    assertFileContains(g, "test content");
+    Assert.assertEquals("test content".length(), bytes.get());
+  }
+
+  @Test
+  public void testInterruptedCredentialWaitDoesNotDropCredentials() throws Exception {
+    MockHttpTransport transport = transportWithResponse("test content");
+    CountDownLatch lookedUp = new CountDownLatch(1);
+    List<String> events = new ArrayList<>();
+    ArtifactRegistryWagon wagon = new ArtifactRegistryWagon();
+    wagon.setCredentialProvider(commandExecutor -> {
+      try {
+        lookedUp.await();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+      throw new IOException("failed to get access token");
+    });
+    wagon.setHttpTransportFactory(() -> transport);
+    wagon.setTransferMetrics(new TransferMetrics() {
+      @Override
+      public void credentialsAcquired(long durationNanos, boolean success) {
+        events.add("credentials " + success);
+      }
+    });
+    wagon.connect(new Repository("my-repo", REPO_URL));
+    File f = FileTestUtils.createUniqueFile("my/artifact/dir", "test");
+
+    Thread.currentThread().interrupt();
+    try {
+      wagon.get("my/resource", f);
+      Assert.fail("Expected the interrupted request to fail.");
+    } catch (TransferFailedException e) {
+      Assert.assertTrue(Thread.interrupted());
+    }
+    Assert.assertEquals(Collections.emptyList(), events);
+
+    // The next request waits for the lookup again instead of going out without it.
+    lookedUp.countDown();
+    wagon.get("my/resource", f);
+    assertFileContains(f, "test content");
+    Assert.assertEquals(Collections.singletonList("credentials false"), events);
+  }
+
+  @Test
+  public void testCredentialLookupIsTimedWhenItCompletes() throws Exception {
+    MockHttpTransport transport = transportWithResponse("test content");
+    List<Long> durations = new ArrayList<>();
+    ArtifactRegistryWagon wagon = new ArtifactRegistryWagon();
+    wagon.setCredentialProvider(new FailingCredentialProvider(new IOException("no credentials")));
+    wagon.setHttpTransportFactory(() -> transport);
+    wagon.setTransferMetrics(new TransferMetrics() {
+      @Override
+      public void credentialsAcquired(long durationNanos, boolean success) {
+        durations.add(durationNanos);
+      }
+    });
+    wagon.connect(new Repository("my-repo", REPO_URL));
+    // The lookup fails at once; the time until the first request is not part of it.
+    Thread.sleep(300);
+    wagon.get("my/resource", FileTestUtils.createUniqueFile("my/artifact/dir", "test"));
+    Assert.assertEquals(1, durations.size());
+    Assert.assertTrue(durations.get(0) < TimeUnit.MILLISECONDS.toNanos(300));
+  }
+
+  @Test
+  public void testMetricsAreRecorded() throws Exception {
+    MockHttpTransport transport = transportWithResponse("test content");
+    List<String> events = new ArrayList<>();
+    ArtifactRegistryWagon wagon = new ArtifactRegistryWagon();
+    wagon.setCredentialProvider(new FailingCredentialProvider(new IOException("failed to get access token")));
+    wagon.setHttpTransportFactory(() -> transport);
+    wagon.setTransferMetrics(new TransferMetrics() {
+      @Override
+      public void credentialsAcquired(long durationNanos, boolean success) {
+        events.add("credentials " + success);
+      }
+
+      @Override
+      public void requestCompleted(String method, String host, int statusCode, int attempts,
+          long durationNanos, String error) {
+        events.add(method + " " + host + " " + statusCode + " " + attempts);
+      }
+
+      @Override
+      public void bodyTransferred(String method, String host, long bytes, long durationNanos) {
+        events.add(method + " " + host + " " + bytes + " bytes");
+      }
+    });
+    wagon.connect(new Repository("my-repo", REPO_URL));
+    File f = FileTestUtils.createUniqueFile("my/artifact/dir", "test");
+    wagon.get("my/resource", f);
+    Assert.assertEquals(Arrays.asList(
+        "credentials false",
+        "GET maven.pkg.dev 200 1",
+        "GET maven.pkg.dev 12 bytes"), events);
+  }
+
+  @Test
+  public void testIdenticalPutIsSkipped() throws Exception {
+    List<String> requests = new ArrayList<>();
+    ArtifactRegistryWagon wagon = new ArtifactRegistryWagon();
+    wagon.setCredentialProvider(new FailingCredentialProvider(new IOException("failed to get access token")));
+    wagon.setHttpTransportFactory(() -> headTransport(requests, "my/resource"));
+    wagon.setSkipIdenticalUploads(true);
+    List<Integer> events = new ArrayList<>();
+    wagon.addTransferListener(new AbstractTransferListener() {
+      @Override
+      public void transferCompleted(TransferEvent event) {
+        events.add(event.getEventType());
+      }
+    });
+    wagon.connect(new Repository("my-repo", REPO_URL));
+    File f = tmp.newFile("identical");
+    writeStringToFile(f, "test content");
+
+    wagon.put(f, "my/resource");
+    Assert.assertEquals(Collections.singletonList("HEAD my/resource"), requests);
+    Assert.assertEquals(Collections.singletonList(TransferEvent.TRANSFER_COMPLETED), events);
+
+    wagon.put(f, "my/other");
+    Assert.assertEquals(Arrays.asList("HEAD my/resource", "HEAD my/other", "PUT my/other"),
+        requests);
+  }
+
+  @Test
+  public void testPrecheckUploads() throws Exception {
+    List<String> requests = Collections.synchronizedList(new ArrayList<>());
+    ArtifactRegistryWagon wagon = new ArtifactRegistryWagon();
+    wagon.setCredentialProvider(new FailingCredentialProvider(new IOException("failed to get access token")));
+    wagon.setHttpTransportFactory(() -> headTransport(requests, "my/resource"));
+    wagon.setSkipIdenticalUploads(true);
+    wagon.connect(new Repository("my-repo", REPO_URL));
+    File f = tmp.newFile("identical");
+    writeStringToFile(f, "test content");
+    Map<String, File> uploads = new LinkedHashMap<>();
+    uploads.put("my/resource", f);
+    uploads.put("my/other", f);
+
+    Assert.assertEquals(Collections.singleton("my/resource"), wagon.precheckUploads(uploads));
+    Assert.assertEquals(2, requests.size());
+    wagon.put(f, "my/resource");
+    wagon.put(f, "my/other");
+    Assert.assertEquals(3, requests.size());
+    Assert.assertEquals("PUT my/other", requests.get(2));
+  }
+
   private void assertFileContains(File f, String wantContent) throws IOException {
     String content = readStringFromFile(f);
 
@@ -206,6 +639,32 @@ public class ArtifactRegistryWagonTest {
         .build();
   }
 
+  // Answers HEAD requests for identicalPath with the SHA-1 of "test content", and other HEAD
+  // requests with 404. Requests are recorded as "METHOD path".
+  private MockHttpTransport headTransport(List<String> requests, String identicalPath) {
+    String base = "https://maven.pkg.dev/my-project/my-repo/";
+    return new MockHttpTransport() {
+      @Override
+      public LowLevelHttpRequest buildRequest(String method, String url) {
+        requests.add(method + " " + url.substring(base.length()));
+        return new MockLowLevelHttpRequest(url) {
+          @Override
+          public LowLevelHttpResponse execute() {
+            MockLowLevelHttpResponse response = new MockLowLevelHttpResponse();
+            if (method.equals("HEAD")) {
+              if (url.equals(base + identicalPath)) {
+                response.addHeader("x-checksum-sha1", "1eebdf4fdc9fc7bf283031b93f9aef3338de9052");
+              } else {
+                response.setStatusCode(HttpStatusCodes.STATUS_CODE_NOT_FOUND);
+              }
+            }
+            return response;
+          }
+        };
+      }
+    };
+  }
+
   private MockHttpTransport failingTransport(IOException e) {
     return new MockHttpTransport.Builder().setLowLevelHttpRequest(new MockLowLevelHttpRequest() {
       @Override
@@ -0,0 +1,79 @@
+/*
+ * Copyright 2026 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.cloud.artifactregistry.wagon;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+public class ChannelDownloadTest {
+
+  @Rule
+  public TemporaryFolder tmp = new TemporaryFolder();
+
+  @Test
+  public void testProgressSeesEveryByteInChunks() throws Exception {
+    byte[] content = randomBytes(ChannelDownload.CHUNK_SIZE * 2 + 123);
+    Path destination = tmp.newFile().toPath();
+    ByteArrayOutputStream seen = new ByteArrayOutputStream();
+    int[] events = {0};
+    long written = ChannelDownload.copy(new ByteArrayInputStream(content), destination,
+        (buffer, length) -> {
+          events[0]++;
+          seen.write(buffer, 0, length);
+        });
+    Assert.assertEquals(content.length, written);
+    Assert.assertEquals(3, events[0]);
+    Assert.assertArrayEquals(content, seen.toByteArray());
+    Assert.assertArrayEquals(content, Files.readAllBytes(destination));
+  }
+
+  @Test
+  public void testReplacesExistingContent() throws Exception {
+    Path destination = tmp.newFile().toPath();
+    Files.write(destination, randomBytes(1000));
+    byte[] content = randomBytes(10);
+    ChannelDownload.copy(new ByteArrayInputStream(content), destination, null);
+    Assert.assertArrayEquals(content, Files.readAllBytes(destination));
+  }
+
+  @Test
+  public void testCopiesSharedDownloadWithoutProgress() throws Exception {
+    byte[] content = randomBytes(ChannelDownload.CHUNK_SIZE + 1);
+    SharedDownload download = SharedDownload.create(new ByteArrayInputStream(content));
+    Path destination = tmp.newFile().toPath();
+    Assert.assertEquals(content.length,
+        ChannelDownload.copy(download.openStream(), destination, null));
+    Assert.assertArrayEquals(content, Files.readAllBytes(destination));
+    // Closing the stream released the only reference.
+    Assert.assertFalse(download.retain());
+  }
+
+  private static byte[] randomBytes(int length) {
+    byte[] bytes = new byte[length];
+    new Random(length).nextBytes(bytes);
+    return bytes;
+  }
+}
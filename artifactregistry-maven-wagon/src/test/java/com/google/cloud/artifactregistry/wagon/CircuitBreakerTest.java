@@ -0,0 +1,97 @@
+/*
+ * Copyright 2026 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.cloud.artifactregistry.wagon;
+
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+public class CircuitBreakerTest {
+
+  private final AtomicLong now = new AtomicLong();
+  private final CircuitBreaker breaker = new CircuitBreaker("host", 0.5, 1000, now::get);
+
+  @Test
+  public void testOpensAboveThreshold() throws Exception {
+    for (int i = 0; i < 9; i++) {
+      breaker.acquire();
+      breaker.failed();
+    }
+    // Too few requests to judge.
+    Assert.assertEquals(CircuitBreaker.State.CLOSED, breaker.state());
+    breaker.acquire();
+    breaker.failed();
+    Assert.assertEquals(CircuitBreaker.State.OPEN, breaker.state());
+    try {
+      breaker.acquire();
+      Assert.fail("expected the breaker to be open");
+    } catch (CircuitBreaker.OpenException e) {
+      Assert.assertEquals(
+          "Requests to host have been failing, not sending more for 1 seconds.", e.getMessage());
+    }
+  }
+
+  @Test
+  public void testStaysClosedBelowThreshold() throws Exception {
+    for (int i = 0; i < 100; i++) {
+      breaker.acquire();
+      if (i % 3 == 0) {
+        breaker.failed();
+      } else {
+        breaker.succeeded();
+      }
+    }
+    Assert.assertEquals(CircuitBreaker.State.CLOSED, breaker.state());
+  }
+
+  @Test
+  public void testHalfOpenLetsOneTrialThrough() throws Exception {
+    open();
+    now.addAndGet(1000);
+    breaker.acquire();
+    Assert.assertEquals(CircuitBreaker.State.HALF_OPEN, breaker.state());
+    try {
+      breaker.acquire();
+      Assert.fail("expected only one trial request");
+    } catch (CircuitBreaker.OpenException expected) {
+      // The trial is still in flight.
+    }
+    breaker.failed();
+    Assert.assertEquals(CircuitBreaker.State.OPEN, breaker.state());
+
+    now.addAndGet(1000);
+    breaker.acquire();
+    breaker.cancelled();
+    breaker.acquire();
+    breaker.succeeded();
+    Assert.assertEquals(CircuitBreaker.State.CLOSED, breaker.state());
+    // The failures from before the outage no longer count.
+    breaker.acquire();
+    breaker.failed();
+    Assert.assertEquals(CircuitBreaker.State.CLOSED, breaker.state());
+  }
+
+  private void open() throws Exception {
+    for (int i = 0; i < 10; i++) {
+      breaker.acquire();
+      breaker.failed();
+    }
+    Assert.assertEquals(CircuitBreaker.State.OPEN, breaker.state());
+  }
+}
@@ -0,0 +1,140 @@
+/*
+ * Copyright 2026 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.cloud.artifactregistry.wagon;
+
+import java.io.ByteArrayInputStream;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+public class CompanionPrefetcherTest {
+
+  @Test
+  public void testCompanionsOfJar() {
+    Assert.assertEquals(Arrays.asList(
+            "com/example/foo/1.0/foo-1.0.jar.sha1",
+            "com/example/foo/1.0/foo-1.0.pom",
+            "com/example/foo/1.0/foo-1.0.pom.sha1"),
+        CompanionPrefetcher.companionsOf("com/example/foo/1.0/foo-1.0.jar"));
+  }
+
+  @Test
+  public void testCompanionsOfClassifiedJar() {
+    Assert.assertEquals(Arrays.asList(
+            "com/example/foo/1.0/foo-1.0-sources.jar.sha1",
+            "com/example/foo/1.0/foo-1.0.pom",
+            "com/example/foo/1.0/foo-1.0.pom.sha1"),
+        CompanionPrefetcher.companionsOf("com/example/foo/1.0/foo-1.0-sources.jar"));
+  }
+
+  @Test
+  public void testCompanionsOfPom() {
+    Assert.assertEquals(Collections.singletonList("com/example/foo/1.0/foo-1.0.pom.sha1"),
+        CompanionPrefetcher.companionsOf("com/example/foo/1.0/foo-1.0.pom"));
+  }
+
+  @Test
+  public void testNoCompanionsForChecksumsAndMetadata() {
+    Assert.assertTrue(
+        CompanionPrefetcher.companionsOf("com/example/foo/1.0/foo-1.0.jar.sha1").isEmpty());
+    Assert.assertTrue(
+        CompanionPrefetcher.companionsOf("com/example/foo/maven-metadata.xml").isEmpty());
+  }
+
+  @Test
+  public void testTakeReturnsPrefetchedBodyOnce() throws Exception {
+    CompanionPrefetcher prefetcher = new CompanionPrefetcher(1);
+    AtomicInteger fetches = new AtomicInteger();
+    CountDownLatch started = new CountDownLatch(1);
+    prefetcher.prefetch("https://example.com/a.sha1", () -> {
+      fetches.incrementAndGet();
+      started.countDown();
+      return new ByteArrayInputStream("abc".getBytes(StandardCharsets.UTF_8));
+    });
+    Assert.assertTrue(started.await(5, TimeUnit.SECONDS));
+    Assert.assertEquals("abc",
+        new String(prefetcher.take("https://example.com/a.sha1", 5000), StandardCharsets.UTF_8));
+    Assert.assertNull(prefetcher.take("https://example.com/a.sha1", 5000));
+    // Recently taken URLs are not prefetched again.
+    prefetcher.prefetch("https://example.com/a.sha1", () -> {
+      fetches.incrementAndGet();
+      return new ByteArrayInputStream(new byte[0]);
+    });
+    Assert.assertEquals(1, fetches.get());
+  }
+
+  @Test
+  public void testFailedPrefetchReturnsNull() throws Exception {
+    CompanionPrefetcher prefetcher = new CompanionPrefetcher(1);
+    prefetcher.prefetch("https://example.com/b.sha1", () -> {
+      throw new IOException("not found");
+    });
+    Assert.assertNull(prefetcher.take("https://example.com/b.sha1", 5000));
+  }
+
+  @Test
+  public void testMissingPrefetchIsReported() throws Exception {
+    CompanionPrefetcher prefetcher = new CompanionPrefetcher(1);
+    CountDownLatch started = new CountDownLatch(1);
+    prefetcher.prefetch("https://example.com/c.sha1", () -> {
+      started.countDown();
+      throw new FileNotFoundException("https://example.com/c.sha1");
+    });
+    Assert.assertTrue(started.await(5, TimeUnit.SECONDS));
+    try {
+      prefetcher.take("https://example.com/c.sha1", 5000);
+      Assert.fail("Expected the missing file to be reported.");
+    } catch (FileNotFoundException expected) {
+    }
+    // Like a body, the result is only taken once.
+    Assert.assertNull(prefetcher.take("https://example.com/c.sha1", 5000));
+  }
+
+  @Test
+  public void testQueuedPrefetchIsAbandoned() throws Exception {
+    CompanionPrefetcher prefetcher = new CompanionPrefetcher(1);
+    CountDownLatch started = new CountDownLatch(1);
+    CountDownLatch release = new CountDownLatch(1);
+    AtomicInteger fetches = new AtomicInteger();
+    prefetcher.prefetch("https://example.com/slow.sha1", () -> {
+      started.countDown();
+      release.await();
+      return new ByteArrayInputStream(new byte[0]);
+    });
+    Assert.assertTrue(started.await(5, TimeUnit.SECONDS));
+    prefetcher.prefetch("https://example.com/queued.sha1", () -> {
+      fetches.incrementAndGet();
+      return new ByteArrayInputStream(new byte[0]);
+    });
+    long start = System.nanoTime();
+    Assert.assertNull(prefetcher.take("https://example.com/queued.sha1", 60000));
+    Assert.assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(1));
+    release.countDown();
+    // The slow download is taken once it completes, and the abandoned one never runs.
+    Assert.assertNotNull(prefetcher.take("https://example.com/slow.sha1", 5000));
+    Assert.assertEquals(0, fetches.get());
+  }
+}
@@ -0,0 +1,137 @@
+/*
+ * Copyright 2026 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.cloud.artifactregistry.wagon;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.nio.file.attribute.PosixFileAttributeView;
+import java.nio.file.attribute.PosixFilePermission;
+import org.junit.Assert;
+import org.junit.Assume;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+public class ContentStoreTest {
+
+  @Rule
+  public TemporaryFolder tmp = new TemporaryFolder();
+
+  @Test
+  public void testPutAndGet() throws Exception {
+    ContentStore store = new ContentStore(tmp.getRoot().toPath(), 0);
+    String digest = store.put(tempFile(store, "test content"));
+    Assert.assertEquals("6ae8a75555209fd6c44157c0aed8016e763ff435a19cf186f76863140143ff72",
+        digest);
+    Path body = store.get(digest);
+    Assert.assertEquals("test content", new String(Files.readAllBytes(body), StandardCharsets.UTF_8));
+    Assert.assertEquals(12, store.size());
+  }
+
+  @Test
+  public void testDuplicateContentIsStoredOnce() throws Exception {
+    ContentStore store = new ContentStore(tmp.getRoot().toPath(), 0);
+    String first = store.put(tempFile(store, "test content"));
+    String second = store.put(tempFile(store, "test content"));
+    Assert.assertEquals(first, second);
+    Assert.assertEquals(12, store.size());
+  }
+
+  @Test
+  public void testLeastRecentlyUsedIsEvicted() throws Exception {
+    ContentStore store = new ContentStore(tmp.getRoot().toPath(), 10);
+    String a = store.put(tempFile(store, "aaaa"));
+    String b = store.put(tempFile(store, "bbbb"));
+    Assert.assertNotNull(store.get(a));
+    String c = store.put(tempFile(store, "cccc"));
+    Assert.assertNotNull(store.get(a));
+    Assert.assertNull(store.get(b));
+    Assert.assertNotNull(store.get(c));
+    Assert.assertEquals(8, store.size());
+  }
+
+  @Test
+  public void testReopenKeepsContent() throws Exception {
+    ContentStore store = new ContentStore(tmp.getRoot().toPath(), 0);
+    String digest = store.put(tempFile(store, "test content"));
+    ContentStore reopened = new ContentStore(tmp.getRoot().toPath(), 0);
+    Assert.assertNotNull(reopened.get(digest));
+    Assert.assertEquals(12, reopened.size());
+  }
+
+  @Test
+  public void testUseOrderSurvivesReopen() throws Exception {
+    ContentStore store = new ContentStore(tmp.getRoot().toPath(), 0);
+    String a = store.put(tempFile(store, "aaaa"));
+    String b = store.put(tempFile(store, "bbbb"));
+    Assert.assertNotNull(store.get(a));
+    ContentStore reopened = new ContentStore(tmp.getRoot().toPath(), 10);
+    String c = reopened.put(tempFile(reopened, "cccc"));
+    Assert.assertNotNull(reopened.get(a));
+    Assert.assertNull(reopened.get(b));
+    Assert.assertNotNull(reopened.get(c));
+  }
+
+  @Test
+  public void testGetLeavesModificationTime() throws Exception {
+    ContentStore store = new ContentStore(tmp.getRoot().toPath(), 0);
+    String digest = store.put(tempFile(store, "test content"));
+    Path body = store.get(digest);
+    FileTime stored = FileTime.fromMillis(1000);
+    Files.setLastModifiedTime(body, stored);
+    store.get(digest);
+    Assert.assertEquals(stored, Files.getLastModifiedTime(body));
+  }
+
+  @Test
+  public void testAddedBodyIsReadOnly() throws Exception {
+    ContentStore store = new ContentStore(tmp.getRoot().toPath(), 0);
+    Path file = tmp.newFile().toPath();
+    Files.write(file, "test content".getBytes(StandardCharsets.UTF_8));
+    Path body = store.get(store.add(file));
+    Assume.assumeNotNull(Files.getFileAttributeView(body, PosixFileAttributeView.class));
+    Assert.assertFalse(
+        Files.getPosixFilePermissions(body).contains(PosixFilePermission.OWNER_WRITE));
+  }
+
+  @Test
+  public void testChangedBodyIsVerified() throws Exception {
+    ContentStore store = new ContentStore(tmp.getRoot().toPath(), 0);
+    Path file = tmp.newFile().toPath();
+    Files.write(file, "test content".getBytes(StandardCharsets.UTF_8));
+    String digest = store.add(file);
+    Assert.assertTrue(store.verify(digest));
+    // Written in place through a local repository that shares the body, keeping its size.
+    Path body = store.get(digest);
+    body.toFile().setWritable(true);
+    Files.write(body, "TEST CONTENT".getBytes(StandardCharsets.UTF_8));
+    Files.setLastModifiedTime(body, FileTime.fromMillis(1000));
+    Assert.assertFalse(store.verify(digest));
+    Assert.assertNull(store.get(digest));
+  }
+
+  private static Path tempFile(ContentStore store, String content) throws IOException {
+    Path file = store.newTempFile();
+    Files.write(file, content.getBytes(StandardCharsets.UTF_8));
+    return file;
+  }
+}
@@ -0,0 +1,125 @@
+/*
+ * Copyright 2026 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.cloud.artifactregistry.wagon;
+
+import com.google.api.client.http.LowLevelHttpRequest;
+import com.google.api.client.http.LowLevelHttpResponse;
+import com.google.api.client.testing.http.MockHttpTransport;
+import com.google.api.client.testing.http.MockLowLevelHttpRequest;
+import com.google.api.client.testing.http.MockLowLevelHttpResponse;
+import java.io.File;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+import org.apache.maven.wagon.events.TransferEvent;
+import org.apache.maven.wagon.observers.AbstractTransferListener;
+import org.apache.maven.wagon.repository.Repository;
+
+/**
+ * DownloadBenchmark compares the stream and channel download modes of the wagon. Each thread
+ * downloads a body served from memory with a progress listener attached, as Maven does, and the
+ * benchmark reports throughput, heap allocated per download and progress events per download.
+ *
+ * <p>Run it from the test classpath with the arguments {@code [THREADS] [SIZE_MB]
+ * [DOWNLOADS_PER_THREAD]}.
+ */
+public final class DownloadBenchmark {
+
+  public static void main(String[] args) throws Exception {
+    int threads = args.length > 0 ? Integer.parseInt(args[0]) : 64;
+    int sizeMb = args.length > 1 ? Integer.parseInt(args[1]) : 8;
+    int downloads = args.length > 2 ? Integer.parseInt(args[2]) : 5;
+    byte[] body = new byte[sizeMb * 1024 * 1024];
+    new Random(0).nextBytes(body);
+    File dir = Files.createTempDirectory("artifactregistry-benchmark").toFile();
+    for (int round = 0; round < 3; round++) {
+      // The first round warms up the JIT.
+      for (boolean channel : new boolean[] {false, true}) {
+        run(round > 0, channel, threads, downloads, body, dir);
+      }
+    }
+  }
+
+  private static void run(boolean report, boolean channel, int threads, int downloads,
+      byte[] body, File dir) throws Exception {
+    com.sun.management.ThreadMXBean mx =
+        (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+    AtomicLong allocated = new AtomicLong();
+    AtomicLong events = new AtomicLong();
+    ExecutorService executor = Executors.newFixedThreadPool(threads);
+    List<Future<?>> results = new ArrayList<>();
+    long start = System.nanoTime();
+    for (int t = 0; t < threads; t++) {
+      File destination = new File(dir, "artifact-" + t);
+      results.add(executor.submit(() -> {
+        ArtifactRegistryWagon wagon = new ArtifactRegistryWagon();
+        wagon.setCredentialProvider(commandExecutor -> {
+          throw new IOException("anonymous");
+        });
+        wagon.setHttpTransportFactory(() -> servingTransport(body));
+        wagon.setChannelDownload(channel);
+        wagon.addTransferListener(new AbstractTransferListener() {
+          @Override
+          public void transferProgress(TransferEvent event, byte[] buffer, int length) {
+            events.incrementAndGet();
+          }
+        });
+        wagon.connect(new Repository("benchmark", "artifactregistry://localhost/p/r"));
+        long before = mx.getThreadAllocatedBytes(Thread.currentThread().getId());
+        for (int i = 0; i < downloads; i++) {
+          wagon.get("com/example/artifact.jar", destination);
+        }
+        allocated.addAndGet(mx.getThreadAllocatedBytes(Thread.currentThread().getId()) - before);
+        wagon.disconnect();
+        return null;
+      }));
+    }
+    for (Future<?> result : results) {
+      result.get();
+    }
+    long nanos = System.nanoTime() - start;
+    executor.shutdown();
+    if (report) {
+      long total = (long) threads * downloads;
+      System.out.printf("%-7s %4d threads: %7.0f MiB/s, %8d KiB allocated and %5d progress events"
+              + " per download%n",
+          channel ? "channel" : "stream", threads,
+          total * body.length / 1048576.0 / (nanos / 1e9), allocated.get() / total / 1024,
+          events.get() / total);
+    }
+  }
+
+  private static MockHttpTransport servingTransport(byte[] body) {
+    return new MockHttpTransport() {
+      @Override
+      public LowLevelHttpRequest buildRequest(String method, String url) {
+        return new MockLowLevelHttpRequest(url) {
+          @Override
+          public LowLevelHttpResponse execute() {
+            return new MockLowLevelHttpResponse().setContent(body);
+          }
+        };
+      }
+    };
+  }
+}
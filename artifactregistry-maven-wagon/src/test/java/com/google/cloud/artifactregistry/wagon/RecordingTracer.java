@@ -0,0 +1,146 @@
+/*
+ * Copyright 2026 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.cloud.artifactregistry.wagon;
+
+import com.google.cloud.artifactregistry.auth.Tracing;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiConsumer;
+
+/** RecordingTracer keeps the spans that ended in memory, the way an in-memory exporter does. */
+final class RecordingTracer implements Tracing.Tracer {
+
+  /** An ended span. */
+  static final class RecordedSpan implements Tracing.Span {
+    final String name;
+    final Tracing.Kind kind;
+    final int id;
+    final RecordedSpan parent;
+    final Map<String, Object> attributes = Collections.synchronizedMap(new LinkedHashMap<>());
+    final List<String> events = Collections.synchronizedList(new ArrayList<>());
+    volatile Throwable error;
+    private final RecordingTracer tracer;
+    private boolean detached;
+
+    RecordedSpan(RecordingTracer tracer, String name, Tracing.Kind kind, int id,
+        RecordedSpan parent) {
+      this.tracer = tracer;
+      this.name = name;
+      this.kind = kind;
+      this.id = id;
+      this.parent = parent;
+    }
+
+    @Override
+    public Tracing.Span setAttribute(String key, String value) {
+      attributes.put(key, value);
+      return this;
+    }
+
+    @Override
+    public Tracing.Span setAttribute(String key, long value) {
+      attributes.put(key, value);
+      return this;
+    }
+
+    @Override
+    public Tracing.Span setAttribute(String key, boolean value) {
+      attributes.put(key, value);
+      return this;
+    }
+
+    @Override
+    public void addEvent(String name) {
+      events.add(name);
+    }
+
+    @Override
+    public void recordException(Throwable error) {
+      this.error = error;
+    }
+
+    @Override
+    public void inject(BiConsumer<String, String> headers) {
+      headers.accept("traceparent", traceparent());
+    }
+
+    String traceparent() {
+      return String.format("00-%032x-%016x-01", 1, id);
+    }
+
+    @Override
+    public synchronized void detach() {
+      if (!detached) {
+        detached = true;
+        tracer.current.set(parent);
+      }
+    }
+
+    @Override
+    public void close() {
+      detach();
+      tracer.ended.add(this);
+    }
+  }
+
+  final List<RecordedSpan> ended = Collections.synchronizedList(new ArrayList<>());
+  private final ThreadLocal<RecordedSpan> current = new ThreadLocal<>();
+  private final AtomicInteger ids = new AtomicInteger();
+
+  @Override
+  public Tracing.Span start(String name) {
+    return start(name, Tracing.Kind.INTERNAL);
+  }
+
+  @Override
+  public Tracing.Span start(String name, Tracing.Kind kind) {
+    RecordedSpan span = new RecordedSpan(this, name, kind, ids.incrementAndGet(), current.get());
+    current.set(span);
+    return span;
+  }
+
+  @Override
+  public Runnable wrap(Runnable task) {
+    RecordedSpan parent = current.get();
+    return () -> {
+      RecordedSpan previous = current.get();
+      current.set(parent);
+      try {
+        task.run();
+      } finally {
+        current.set(previous);
+      }
+    };
+  }
+
+  /** Returns the ended spans called {@code name}. */
+  List<RecordedSpan> spans(String name) {
+    List<RecordedSpan> result = new ArrayList<>();
+    synchronized (ended) {
+      for (RecordedSpan span : ended) {
+        if (span.name.equals(name)) {
+          result.add(span);
+        }
+      }
+    }
+    return result;
+  }
+}
@@ -0,0 +1,77 @@
+/*
+ * Copyright 2026 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.cloud.artifactregistry.wagon;
+
+import com.google.api.client.http.HttpHeaders;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+public class RemoteDigestTest {
+
+  @Rule
+  public TemporaryFolder tmp = new TemporaryFolder();
+
+  @Test
+  public void testChecksumHeaderIsPreferred() throws IOException {
+    HttpHeaders headers = new HttpHeaders()
+        .setETag("\"9473fdd0d880a43c21b7778d34872157\"")
+        .set("x-checksum-sha1", "1eebdf4fdc9fc7bf283031b93f9aef3338de9052");
+    RemoteDigest digest = RemoteDigest.fromHeaders(headers);
+    Assert.assertEquals("SHA-1:1eebdf4fdc9fc7bf283031b93f9aef3338de9052", digest.toString());
+    Assert.assertTrue(digest.matches(file("test content")));
+    Assert.assertFalse(digest.matches(file("other content")));
+  }
+
+  @Test
+  public void testGoogHash() throws IOException {
+    HttpHeaders headers = new HttpHeaders()
+        .set("x-goog-hash", "crc32c=n03x6A==,md5=lHP90NiApDwht3eNNIchVw==");
+    Assert.assertTrue(RemoteDigest.fromHeaders(headers).matches(file("test content")));
+  }
+
+  @Test
+  public void testEtag() throws IOException {
+    HttpHeaders headers = new HttpHeaders()
+        .setETag("\"6ae8a75555209fd6c44157c0aed8016e763ff435a19cf186f76863140143ff72\"");
+    Assert.assertTrue(RemoteDigest.fromHeaders(headers).matches(file("test content")));
+    Assert.assertNull(RemoteDigest.fromHeaders(
+        new HttpHeaders().setETag("W/\"9473fdd0d880a43c21b7778d34872157\"")));
+    Assert.assertNull(RemoteDigest.fromHeaders(new HttpHeaders().setETag("\"v1\"")));
+  }
+
+  @Test
+  public void testLengthMismatch() throws IOException {
+    HttpHeaders headers = new HttpHeaders()
+        .setContentLength(5L)
+        .set("x-checksum-md5", "9473fdd0d880a43c21b7778d34872157");
+    Assert.assertFalse(RemoteDigest.fromHeaders(headers).matches(file("test content")));
+  }
+
+  private File file(String content) throws IOException {
+    File f = tmp.newFile();
+    Files.write(f.toPath(), content.getBytes(StandardCharsets.UTF_8));
+    return f;
+  }
+}
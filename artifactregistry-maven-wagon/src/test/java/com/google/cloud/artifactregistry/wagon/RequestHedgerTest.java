@@ -0,0 +1,134 @@
+/*
+ * Copyright 2026 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.cloud.artifactregistry.wagon;
+
+import com.google.api.client.http.GenericUrl;
+import com.google.api.client.http.HttpResponse;
+import com.google.api.client.testing.http.MockHttpTransport;
+import com.google.api.client.testing.http.MockLowLevelHttpResponse;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+public class RequestHedgerTest {
+
+  private final List<String> hedges = Collections.synchronizedList(new ArrayList<>());
+  private final TransferMetrics metrics = new TransferMetrics() {
+    @Override
+    public void requestHedged(String method, String host, boolean won) {
+      hedges.add(method + " " + won);
+    }
+  };
+
+  @Test
+  public void testFastRequestIsNotHedged() throws IOException {
+    RequestHedger hedger = new RequestHedger(95, 1, 1000);
+    AtomicInteger attempts = new AtomicInteger();
+    HttpResponse response = hedger.execute("GET", "host", () -> {
+      attempts.incrementAndGet();
+      return response("first");
+    }, metrics);
+    Assert.assertEquals("first", response.parseAsString());
+    Assert.assertEquals(1, attempts.get());
+    Assert.assertEquals(Collections.emptyList(), hedges);
+  }
+
+  @Test
+  public void testSlowRequestIsHedged() throws Exception {
+    RequestHedger hedger = new RequestHedger(95, 1, 10);
+    AtomicInteger attempts = new AtomicInteger();
+    CountDownLatch stalled = new CountDownLatch(1);
+    HttpResponse response = hedger.execute("GET", "host", () -> {
+      if (attempts.incrementAndGet() == 1) {
+        try {
+          stalled.await(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+        }
+        return response("first");
+      }
+      return response("second");
+    }, metrics);
+    Assert.assertEquals("second", response.parseAsString());
+    Assert.assertEquals(2, attempts.get());
+    Assert.assertEquals(Collections.singletonList("GET true"), hedges);
+    stalled.countDown();
+  }
+
+  @Test
+  public void testBudgetCapsHedges() throws IOException {
+    RequestHedger hedger = new RequestHedger(95, 0.5, 1);
+    AtomicInteger attempts = new AtomicInteger();
+    for (int i = 0; i < 4; i++) {
+      hedger.execute("HEAD", "host", () -> {
+        attempts.incrementAndGet();
+        try {
+          Thread.sleep(50);
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+        }
+        return response("");
+      }, metrics);
+    }
+    Assert.assertEquals(2, hedges.size());
+    Assert.assertEquals(6, attempts.get());
+  }
+
+  @Test
+  public void testDelayRecoversAfterSlowPeriod() {
+    RequestHedger hedger = new RequestHedger(95, 1, 1000);
+    for (int i = 0; i < 1000; i++) {
+      hedger.recordLatency(TimeUnit.SECONDS.toNanos(5));
+    }
+    Assert.assertTrue(hedger.delayMillis() > 2000);
+    for (int i = 0; i < 5000; i++) {
+      hedger.recordLatency(TimeUnit.MILLISECONDS.toNanos(50));
+    }
+    // Interpolated within the 20-50 ms bucket rather than rounded up to its bound.
+    Assert.assertEquals(49, hedger.delayMillis());
+  }
+
+  @Test
+  public void testFailureIsReported() {
+    RequestHedger hedger = new RequestHedger(95, 1, 1000);
+    try {
+      hedger.execute("GET", "host", () -> {
+        throw new IOException("connection refused");
+      }, metrics);
+      Assert.fail("expected an IOException");
+    } catch (IOException e) {
+      Assert.assertEquals("connection refused", e.getMessage());
+    }
+  }
+
+  private static HttpResponse response(String content) throws IOException {
+    return new MockHttpTransport.Builder()
+        .setLowLevelHttpResponse(new MockLowLevelHttpResponse().setContent(content))
+        .build()
+        .createRequestFactory()
+        .buildGetRequest(new GenericUrl("https://maven.pkg.dev/my/resource"))
+        .execute();
+  }
+}
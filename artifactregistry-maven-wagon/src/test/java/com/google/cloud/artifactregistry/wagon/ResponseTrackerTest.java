@@ -0,0 +1,181 @@
+/*
+ * Copyright 2026 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.cloud.artifactregistry.wagon;
+
+import com.google.api.client.http.GenericUrl;
+import com.google.api.client.http.HttpResponse;
+import com.google.api.client.http.javanet.NetHttpTransport;
+import com.google.api.client.testing.http.MockHttpTransport;
+import com.google.api.client.testing.http.MockLowLevelHttpResponse;
+import com.google.cloud.artifactregistry.auth.CredentialProvider;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import org.apache.maven.wagon.repository.Repository;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+public class ResponseTrackerTest {
+
+  @Rule
+  public TemporaryFolder tmp = new TemporaryFolder();
+
+  @Test
+  public void testReleaseReadsShortBody() throws Exception {
+    MockLowLevelHttpResponse low = new MockLowLevelHttpResponse().setContent("short");
+    new ResponseTracker(false).release(execute(low));
+    Assert.assertFalse(low.isDisconnected());
+  }
+
+  @Test
+  public void testReleaseDisconnectsLongBody() throws Exception {
+    MockLowLevelHttpResponse low =
+        new MockLowLevelHttpResponse().setContent(new byte[ResponseTracker.DRAIN_LIMIT * 2]);
+    new ResponseTracker(false).release(execute(low));
+    Assert.assertTrue(low.isDisconnected());
+  }
+
+  @Test
+  public void testCountsOpenResponses() throws Exception {
+    ResponseTracker tracker = new ResponseTracker(false);
+    InputStream first = tracker.open(execute(new MockLowLevelHttpResponse().setContent("a")));
+    InputStream second = tracker.open(execute(new MockLowLevelHttpResponse().setContent("b")));
+    Assert.assertEquals(2, tracker.openResponses());
+    Assert.assertEquals('a', first.read());
+    first.close();
+    first.close();
+    Assert.assertEquals(1, tracker.openResponses());
+    second.close();
+    Assert.assertEquals(0, tracker.openResponses());
+  }
+
+  @Test
+  public void testReportsLeaks() throws Exception {
+    ResponseTracker tracker = new ResponseTracker(true);
+    MockLowLevelHttpResponse low =
+        new MockLowLevelHttpResponse().setContent(new byte[ResponseTracker.DRAIN_LIMIT * 2]);
+    tracker.open(execute(low));
+    tracker.open(execute(new MockLowLevelHttpResponse().setContent("closed"))).close();
+    int leaks = 0;
+    for (int i = 0; i < 50 && leaks == 0; i++) {
+      System.gc();
+      Thread.sleep(20);
+      leaks = tracker.reportLeaks();
+    }
+    Assert.assertEquals(1, leaks);
+    Assert.assertTrue(low.isDisconnected());
+    Assert.assertEquals(0, tracker.openResponses());
+  }
+
+  // Sends a few hundred requests of every kind through a wagon to a local server, and checks that
+  // they all share a handful of connections instead of leaving one behind per request.
+  @Test
+  public void testWagonReusesConnections() throws Exception {
+    Map<String, byte[]> files = new ConcurrentHashMap<>();
+    Set<Integer> clientPorts = ConcurrentHashMap.newKeySet();
+    HttpServer server =
+        HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+    server.createContext("/", exchange -> serve(exchange, files, clientPorts));
+    server.start();
+    try {
+      int port = server.getAddress().getPort();
+      ArtifactRegistryWagon wagon = new ArtifactRegistryWagon();
+      wagon.setHttpTransportFactory(() -> new NetHttpTransport.Builder()
+          .setConnectionFactory(url -> (HttpURLConnection)
+              new URL("http", "127.0.0.1", port, url.getFile()).openConnection())
+          .build());
+      wagon.setCredentialProvider((CredentialProvider) commandExecutor -> {
+        throw new IOException("anonymous");
+      });
+      wagon.connect(new Repository("my-repo", "artifactregistry://maven.pkg.dev/p/r"));
+      File upload = tmp.newFile();
+      Files.write(upload.toPath(), "content".getBytes(StandardCharsets.UTF_8));
+      File download = new File(tmp.getRoot(), "download");
+      int openBefore = ResponseTracker.shared().openResponses();
+      for (int i = 0; i < 200; i++) {
+        wagon.put(upload, "file-" + i);
+        Assert.assertTrue(wagon.resourceExists("file-" + i));
+        Assert.assertFalse(wagon.resourceExists("missing-" + i));
+        wagon.get("file-" + i, download);
+      }
+      wagon.disconnect();
+      Assert.assertEquals(200, files.size());
+      Assert.assertEquals(openBefore, ResponseTracker.shared().openResponses());
+      Assert.assertTrue("Used " + clientPorts.size() + " connections", clientPorts.size() <= 4);
+    } finally {
+      server.stop(0);
+    }
+  }
+
+  private static void serve(HttpExchange exchange, Map<String, byte[]> files,
+      Set<Integer> clientPorts) throws IOException {
+    clientPorts.add(exchange.getRemoteAddress().getPort());
+    ByteArrayOutputStream body = new ByteArrayOutputStream();
+    try (InputStream in = exchange.getRequestBody()) {
+      byte[] buf = new byte[8192];
+      int n;
+      while ((n = in.read(buf)) != -1) {
+        body.write(buf, 0, n);
+      }
+    }
+    // Every response has a body, as uploads and errors do in Artifact Registry.
+    String path = exchange.getRequestURI().getPath();
+    int status = 200;
+    byte[] content = files.get(path);
+    if (exchange.getRequestMethod().equals("PUT")) {
+      files.put(path, body.toByteArray());
+      content = "Uploaded.".getBytes(StandardCharsets.UTF_8);
+    } else if (content == null) {
+      status = 404;
+      content = "Not found.".getBytes(StandardCharsets.UTF_8);
+    }
+    if (exchange.getRequestMethod().equals("HEAD")) {
+      exchange.getResponseHeaders().set("Content-Length", Integer.toString(content.length));
+      exchange.sendResponseHeaders(status, -1);
+    } else {
+      exchange.sendResponseHeaders(status, content.length);
+      try (OutputStream out = exchange.getResponseBody()) {
+        out.write(content);
+      }
+    }
+    exchange.close();
+  }
+
+  private static HttpResponse execute(MockLowLevelHttpResponse response) throws IOException {
+    return new MockHttpTransport.Builder().setLowLevelHttpResponse(response).build()
+        .createRequestFactory().buildGetRequest(new GenericUrl("https://maven.pkg.dev/p/r/file"))
+        .execute();
+  }
+}
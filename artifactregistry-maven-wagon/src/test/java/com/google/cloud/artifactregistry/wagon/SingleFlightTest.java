@@ -0,0 +1,78 @@
+/*
+ * Copyright 2026 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.cloud.artifactregistry.wagon;
+
+import java.io.IOException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+public class SingleFlightTest {
+
+  @Test
+  public void testConcurrentCallsAreCoalesced() throws Exception {
+    SingleFlight<String, String> flights = new SingleFlight<>();
+    AtomicInteger calls = new AtomicInteger();
+    CountDownLatch started = new CountDownLatch(1);
+    CountDownLatch release = new CountDownLatch(1);
+    ExecutorService executor = Executors.newFixedThreadPool(2);
+    try {
+      Future<String> first = executor.submit(() -> flights.execute("key", () -> {
+        calls.incrementAndGet();
+        started.countDown();
+        release.await();
+        return "value";
+      }));
+      started.await();
+      Future<String> second = executor.submit(() -> flights.execute("key", () -> {
+        calls.incrementAndGet();
+        return "other";
+      }));
+      // Give the second call time to join the first before letting it finish.
+      Thread.sleep(100);
+      release.countDown();
+      Assert.assertEquals("value", first.get(5, TimeUnit.SECONDS));
+      Assert.assertEquals("value", second.get(5, TimeUnit.SECONDS));
+      Assert.assertEquals(1, calls.get());
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  @Test
+  public void testSequentialCallsRunAgain() throws Exception {
+    SingleFlight<String, Integer> flights = new SingleFlight<>();
+    AtomicInteger calls = new AtomicInteger();
+    Assert.assertEquals(1, (int) flights.execute("key", calls::incrementAndGet));
+    Assert.assertEquals(2, (int) flights.execute("key", calls::incrementAndGet));
+  }
+
+  @Test(expected = IOException.class)
+  public void testExceptionIsPropagated() throws Exception {
+    SingleFlight<String, String> flights = new SingleFlight<>();
+    flights.execute("key", () -> {
+      throw new IOException("failed");
+    });
+  }
+}
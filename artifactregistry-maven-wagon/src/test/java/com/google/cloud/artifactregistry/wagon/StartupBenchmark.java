@@ -0,0 +1,135 @@
+/*
+ * Copyright 2026 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.cloud.artifactregistry.wagon;
+
+import com.google.api.client.http.LowLevelHttpRequest;
+import com.google.api.client.http.LowLevelHttpResponse;
+import com.google.api.client.testing.http.MockHttpTransport;
+import com.google.api.client.testing.http.MockLowLevelHttpRequest;
+import com.google.api.client.testing.http.MockLowLevelHttpResponse;
+import com.google.cloud.artifactregistry.auth.CommandExecutorResult;
+import com.google.cloud.artifactregistry.auth.GcloudCredentials;
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.lang.management.ClassLoadingMXBean;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.apache.maven.wagon.repository.Repository;
+
+/**
+ * StartupBenchmark measures the cost of the first download in a fresh JVM: the time from Maven
+ * looking up the wagon class to the first response being written, and the number of classes
+ * loaded on the way. Each run is a separate JVM started with the current classpath, and the
+ * benchmark reports the median of the runs.
+ *
+ * <p>Run it from the test classpath with the arguments {@code [RUNS] [gcloud|anonymous]}. With
+ * {@code gcloud}, the default, the credentials are read from canned {@code gcloud} output, so
+ * that parsing it and initializing the auth library are part of the measurement.
+ */
+public final class StartupBenchmark {
+
+  private static final String GCLOUD_OUTPUT = "{\"credential\": {\"access_token\": \"token\","
+      + " \"token_expiry\": \"2999-01-01T00:00:00Z\"}}";
+
+  public static void main(String[] args) throws Exception {
+    if (args.length > 0 && args[0].equals("--once")) {
+      runOnce(args.length > 1 ? args[1] : "gcloud");
+      return;
+    }
+    int runs = args.length > 0 ? Integer.parseInt(args[0]) : 10;
+    String credentials = args.length > 1 ? args[1] : "gcloud";
+    String java = System.getProperty("java.home") + File.separator + "bin" + File.separator
+        + "java";
+    List<long[]> results = new ArrayList<>();
+    for (int i = 0; i < runs; i++) {
+      Process process = new ProcessBuilder(java, "-cp", System.getProperty("java.class.path"),
+          StartupBenchmark.class.getName(), "--once", credentials)
+          .redirectError(ProcessBuilder.Redirect.INHERIT)
+          .start();
+      String line;
+      try (BufferedReader reader = new BufferedReader(
+          new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8))) {
+        line = reader.readLine();
+      }
+      if (process.waitFor() != 0 || line == null) {
+        throw new IOException("Run " + i + " failed.");
+      }
+      results.add(Arrays.stream(line.split(" ")).mapToLong(Long::parseLong).toArray());
+    }
+    System.out.printf("%s credentials, median of %d runs: %d ms to connect, %d ms to the first"
+            + " response, %d classes loaded%n",
+        credentials, runs, median(results, 0) / 1000000, median(results, 1) / 1000000,
+        median(results, 2));
+  }
+
+  // Prints the nanoseconds to connect, the nanoseconds to the first response and the number of
+  // classes loaded. Nothing from the wagon may be touched before the clock starts.
+  private static void runOnce(String credentials) throws Exception {
+    File destination = File.createTempFile("artifactregistry-startup", ".pom");
+    destination.deleteOnExit();
+    ClassLoadingMXBean classLoading = ManagementFactory.getClassLoadingMXBean();
+    int classesBefore = classLoading.getLoadedClassCount();
+    long start = System.nanoTime();
+
+    // Maven instantiates the wagon reflectively through its component container.
+    ArtifactRegistryWagon wagon = (ArtifactRegistryWagon) Class.forName(
+        "com.google.cloud.artifactregistry.wagon.ArtifactRegistryWagon")
+        .getDeclaredConstructor().newInstance();
+    if (credentials.equals("gcloud")) {
+      wagon.setCredentialProvider(commandExecutor -> GcloudCredentials.tryCreateGcloudCredentials(
+          (command, args) -> new CommandExecutorResult(0, GCLOUD_OUTPUT, "")));
+    } else {
+      wagon.setCredentialProvider(commandExecutor -> {
+        throw new IOException("anonymous");
+      });
+    }
+    wagon.setHttpTransportFactory(StartupBenchmark::servingTransport);
+    wagon.connect(new Repository("benchmark", "artifactregistry://localhost/p/r"));
+    long connected = System.nanoTime();
+    wagon.get("com/example/artifact/1.0/artifact-1.0.pom", destination);
+    long done = System.nanoTime();
+    wagon.disconnect();
+
+    System.out.println((connected - start) + " " + (done - start) + " "
+        + (classLoading.getLoadedClassCount() - classesBefore));
+    System.exit(0);
+  }
+
+  private static long median(List<long[]> results, int index) {
+    long[] values = results.stream().mapToLong(result -> result[index]).sorted().toArray();
+    return values[values.length / 2];
+  }
+
+  private static MockHttpTransport servingTransport() {
+    return new MockHttpTransport() {
+      @Override
+      public LowLevelHttpRequest buildRequest(String method, String url) {
+        return new MockLowLevelHttpRequest(url) {
+          @Override
+          public LowLevelHttpResponse execute() {
+            return new MockLowLevelHttpResponse().setContent("<project/>");
+          }
+        };
+      }
+    };
+  }
+}
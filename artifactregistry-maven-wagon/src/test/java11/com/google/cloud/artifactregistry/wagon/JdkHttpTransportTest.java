@@ -0,0 +1,150 @@
+/*
+ * Copyright 2026 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.cloud.artifactregistry.wagon;
+
+import com.google.api.client.http.ByteArrayContent;
+import com.google.api.client.http.GenericUrl;
+import com.google.api.client.http.HttpRequestFactory;
+import com.google.api.client.http.HttpResponse;
+import com.google.api.client.http.HttpResponseException;
+import com.sun.net.httpserver.HttpServer;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.SocketTimeoutException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+public class JdkHttpTransportTest {
+
+  private HttpServer server;
+  private String baseUrl;
+  private final AtomicReference<String> uploaded = new AtomicReference<>();
+  private final CountDownLatch stalled = new CountDownLatch(1);
+
+  @Before
+  public void startServer() throws IOException {
+    server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+    server.createContext("/stalled", exchange -> {
+      // Sends part of the body and then stops, as a stalled or slow server would.
+      exchange.sendResponseHeaders(200, 100);
+      OutputStream out = exchange.getResponseBody();
+      out.write(new byte[10]);
+      out.flush();
+      try {
+        stalled.await(30, TimeUnit.SECONDS);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+      exchange.close();
+    });
+    server.createContext("/", exchange -> {
+      byte[] body = new byte[0];
+      int status = 404;
+      if (exchange.getRequestURI().getPath().equals("/my/resource")) {
+        status = 200;
+        if (exchange.getRequestMethod().equals("PUT")) {
+          try (InputStream in = exchange.getRequestBody()) {
+            uploaded.set(new String(in.readAllBytes(), StandardCharsets.UTF_8));
+          }
+        } else {
+          body = "test content".getBytes(StandardCharsets.UTF_8);
+          exchange.getResponseHeaders().add("ETag", "\"abc\"");
+        }
+      }
+      exchange.sendResponseHeaders(status, body.length == 0 ? -1 : body.length);
+      try (OutputStream out = exchange.getResponseBody()) {
+        out.write(body);
+      }
+    });
+    server.start();
+    baseUrl = "http://localhost:" + server.getAddress().getPort();
+  }
+
+  @After
+  public void stopServer() {
+    stalled.countDown();
+    server.stop(0);
+  }
+
+  @Test
+  public void testGet() throws Exception {
+    HttpResponse response = requestFactory()
+        .buildGetRequest(new GenericUrl(baseUrl + "/my/resource")).execute();
+    Assert.assertEquals(200, response.getStatusCode());
+    Assert.assertEquals("\"abc\"", response.getHeaders().getETag());
+    Assert.assertEquals("test content", response.parseAsString());
+  }
+
+  @Test
+  public void testPut() throws Exception {
+    requestFactory().buildPutRequest(new GenericUrl(baseUrl + "/my/resource"),
+        ByteArrayContent.fromString("text/plain", "uploaded content")).execute().disconnect();
+    Assert.assertEquals("uploaded content", uploaded.get());
+  }
+
+  @Test
+  public void testLargePut() throws Exception {
+    char[] content = new char[3 * 1024 * 1024 + 1];
+    Arrays.fill(content, 'x');
+    requestFactory().buildPutRequest(new GenericUrl(baseUrl + "/my/resource"),
+        ByteArrayContent.fromString("text/plain", new String(content))).execute().disconnect();
+    Assert.assertEquals(content.length, uploaded.get().length());
+  }
+
+  @Test
+  public void testStalledBodyTimesOut() throws Exception {
+    HttpResponse response = requestFactory()
+        .buildGetRequest(new GenericUrl(baseUrl + "/stalled"))
+        .setReadTimeout(500)
+        .execute();
+    long start = System.nanoTime();
+    try (InputStream in = response.getContent()) {
+      while (in.read() != -1) {
+        // Reads until the timeout.
+      }
+      Assert.fail("expected the read to time out");
+    } catch (SocketTimeoutException expected) {
+      Assert.assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(10));
+    }
+  }
+
+  @Test
+  public void testNotFound() throws Exception {
+    try {
+      requestFactory().buildHeadRequest(new GenericUrl(baseUrl + "/missing")).execute();
+      Assert.fail("expected a 404 response");
+    } catch (HttpResponseException e) {
+      Assert.assertEquals(404, e.getStatusCode());
+    }
+  }
+
+  private static HttpRequestFactory requestFactory() {
+    return JdkHttpEngine.factory().create().createRequestFactory();
+  }
+}
@@ -6,3 +6,6 @@ rootProject.name = "artifactregistry-maven-tools"
 include("artifactregistry-maven-wagon")
 include("artifactregistry-auth-common")
 include("artifactregistry-gradle-plugin")
+include("artifactregistry-maven-proxy")
+include("artifactregistry-maven-plugin")
+include("artifactregistry-load-test")